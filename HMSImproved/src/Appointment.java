@@ -0,0 +1,37 @@
+import java.time.LocalDateTime;
+
+public class Appointment {
+    public static final String BOOKED = "BOOKED";
+    public static final String CANCELLED = "CANCELLED";
+
+    private final long id;
+    private final String patientId;
+    private final String doctorId;
+    private final int room;
+    private final LocalDateTime slotStart;
+    private final LocalDateTime slotEnd;
+    private final String status;
+
+    public Appointment(long id, String patientId, String doctorId, int room,
+                       LocalDateTime slotStart, LocalDateTime slotEnd, String status) {
+        this.id = id;
+        this.patientId = patientId;
+        this.doctorId = doctorId;
+        this.room = room;
+        this.slotStart = slotStart;
+        this.slotEnd = slotEnd;
+        this.status = status;
+    }
+
+    public long getId() { return id; }
+    public String getPatientId() { return patientId; }
+    public String getDoctorId() { return doctorId; }
+    public int getRoom() { return room; }
+    public LocalDateTime getSlotStart() { return slotStart; }
+    public LocalDateTime getSlotEnd() { return slotEnd; }
+    public String getStatus() { return status; }
+
+    @Override public String toString() {
+        return String.format("%-6d%-18s%-10s%-10s%-6d%-10s", id, slotStart, doctorId, patientId, room, status);
+    }
+}
@@ -0,0 +1,89 @@
+import java.nio.file.*;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.sqlite.SQLiteDataSource;
+
+/**
+ * Stand-alone load check for SqlAppointmentRepository (run like HelloFX, no UI).
+ * Many "desks" hammer a small pool of doctor slots on a scratch database so most
+ * attempts collide; afterwards no doctor/slot may be booked twice and the number
+ * of rows must equal the number of successful bookings. Exits with status 1 otherwise,
+ * or when a booking failed with a database error instead of a clean "slot taken".
+ *
+ *   java AppointmentLoadTest [desks] [attemptsPerDesk]
+ */
+public class AppointmentLoadTest {
+    public static void main(String[] args) throws Exception {
+        int desks = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int attempts = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        int doctors = 200, patients = 5000, slotsPerDoctor = 4 * 8; // one 8h day in 15-min slots
+
+        Path file = Files.createTempFile("hms-appointments", ".db");
+        SQLiteDataSource ds = new SQLiteDataSource();
+        ds.setUrl("jdbc:sqlite:" + file);
+        Db.configure(ds);
+        Db.bootstrap(ds);
+        try (Connection c = ds.getConnection(); Statement s = c.createStatement()) {
+            c.setAutoCommit(false);
+            for (int d = 0; d < doctors; d++)
+                s.execute("INSERT INTO doctor VALUES('D" + d + "','Doc " + d + "','General','Daily 08:00-16:00','MD'," + (100 + d) + ")");
+            for (int p = 0; p < patients; p++)
+                s.execute("INSERT INTO patient VALUES('P" + p + "','Patient " + p + "','Flu','F','Admitted',30)");
+            c.commit();
+        }
+
+        SqlAppointmentRepository repo = new SqlAppointmentRepository(ds);
+        LocalDateTime dayStart = LocalDate.now().plusDays(1).atTime(8, 0);
+        AtomicInteger booked = new AtomicInteger(), errors = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(desks);
+        CountDownLatch go = new CountDownLatch(1);
+
+        for (int t = 0; t < desks; t++) {
+            pool.submit(() -> {
+                ThreadLocalRandom r = ThreadLocalRandom.current();
+                go.await();
+                for (int i = 0; i < attempts; i++) {
+                    String doctor = "D" + r.nextInt(doctors);
+                    String patient = "P" + r.nextInt(patients);
+                    LocalDateTime slot = dayStart.plusMinutes((long) r.nextInt(slotsPerDoctor) * AppointmentRepository.SLOT_MINUTES);
+                    try {
+                        if (repo.book(patient, doctor, slot).isPresent()) booked.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        if (errors.getAndIncrement() == 0) System.err.println("book failed: " + e.getMessage());
+                    }
+                }
+                return null;
+            });
+        }
+        long t0 = System.nanoTime();
+        go.countDown();
+        pool.shutdown();
+        pool.awaitTermination(10, TimeUnit.MINUTES);
+        double secs = (System.nanoTime() - t0) / 1e9;
+
+        int rows, dupes;
+        try (Connection c = ds.getConnection(); Statement s = c.createStatement()) {
+            try (ResultSet rs = s.executeQuery("SELECT COUNT(*) FROM appointment WHERE status='BOOKED'")) { rs.next(); rows = rs.getInt(1); }
+            try (ResultSet rs = s.executeQuery(
+                    "SELECT COUNT(*) FROM (SELECT 1 FROM appointment WHERE status='BOOKED' " +
+                    "GROUP BY doctor_id, slot_start HAVING COUNT(*) > 1)")) { rs.next(); dupes = rs.getInt(1); }
+        }
+
+        int total = desks * attempts;
+        System.out.printf("%d attempts from %d desks in %.2fs (%.0f attempts/s), %d booked (%.0f bookings/s)%n",
+                total, desks, secs, total / secs, booked.get(), booked.get() / secs);
+        System.out.printf("rows=%d, double-booked slots=%d, errors=%d, capacity=%d%n", rows, dupes, errors.get(), doctors * slotsPerDoctor);
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(Paths.get(file + "-wal"));
+        Files.deleteIfExists(Paths.get(file + "-shm"));
+
+        if (dupes != 0 || rows != booked.get() || errors.get() != 0) {
+            System.out.println("FAILED");
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+}
@@ -0,0 +1,21 @@
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+public interface AppointmentRepository {
+    /** Length of every bookable slot; slot starts are aligned to this grid. */
+    int SLOT_MINUTES = 15;
+
+    static String slotLabel(LocalDateTime slot) {
+        return slot.toLocalDate() + " " + slot.toLocalTime();
+    }
+
+    /** Empty when the slot is taken, misaligned, or patient/doctor do not exist; database failures throw. */
+    Optional<Appointment> book(String patientId, String doctorId, LocalDateTime slotStart);
+    boolean cancel(long id);
+
+    Optional<Appointment> findById(long id);
+    List<Appointment> findDay(LocalDate day);
+    List<Appointment> findDoctorDay(String doctorId, LocalDate day);
+    List<Appointment> findUpcomingForPatient(String patientId, LocalDateTime from);
+}
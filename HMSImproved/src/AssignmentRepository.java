@@ -0,0 +1,19 @@
+import java.util.*;
+
+public interface AssignmentRepository {
+    /** Notified after assignment writes (used by the caseload heap). */
+    interface Listener {
+        void onAssigned(String patientId, String doctorId, boolean admitted);
+        void onUnassigned(String patientId, String doctorId);
+    }
+
+    boolean assign(String patientId, String doctorId);
+    boolean unassign(String patientId, String doctorId);
+
+    int caseload(String doctorId, boolean admittedOnly);
+    List<String> findPatientIds(String doctorId, boolean admittedOnly);
+    List<String> findDoctorIds(String patientId);
+
+    /** doctor id -> number of admitted patients, doctors without any are absent. */
+    Map<String, Integer> admittedCaseloads();
+}
@@ -0,0 +1,163 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.sql.*;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+import javax.sql.DataSource;
+
+/**
+ * Read side of the audit archive written by {@link AuditArchiver}.
+ *
+ * Block metadata comes from audit_segment_block; a block is read by seeking to its
+ * gzip member and inflating only that. Recently decoded blocks are kept in a small LRU
+ * so scrolling back and forth over archived history does not re-inflate them.
+ */
+public final class AuditArchive {
+    private static final int CACHE_BLOCKS = 64;
+
+    private final DataSource ds;
+    private final Path dir;
+    private final Map<String, List<AuditLog>> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override protected boolean removeEldestEntry(Map.Entry<String, List<AuditLog>> e) { return size() > CACHE_BLOCKS; }
+    };
+
+    public AuditArchive(DataSource ds, Path dir) {
+        this.ds = ds;
+        this.dir = dir;
+    }
+
+    private static final class BlockRef {
+        String file;
+        long firstId, lastId, minTs, maxTs, offset, length;
+        int blockNo;
+    }
+
+    /** Up to {@code limit} archived entries with id < beforeId, newest id first. */
+    public List<AuditLog> newestFirst(String table, Predicate<AuditLog> match, long beforeId, int limit) {
+        List<AuditLog> out = new ArrayList<>();
+        for (BlockRef b : blocks("b.first_id < ?", table, "b.last_id DESC", beforeId)) {
+            if (out.size() >= limit && b.lastId < out.get(limit - 1).getId()) break;
+            for (AuditLog a : read(b)) {
+                if (a.getId() < beforeId && match.test(a)) out.add(a);
+            }
+            out.sort(Comparator.comparingLong(AuditLog::getId).reversed());
+        }
+        return out.size() > limit ? new ArrayList<>(out.subList(0, limit)) : out;
+    }
+
+    /** Up to {@code limit} archived entries with id > afterId, oldest id first. */
+    public List<AuditLog> oldestFirst(String table, Predicate<AuditLog> match, long afterId, int limit) {
+        List<AuditLog> out = new ArrayList<>();
+        for (BlockRef b : blocks("b.last_id > ?", table, "b.first_id ASC", afterId)) {
+            if (out.size() >= limit && b.firstId > out.get(limit - 1).getId()) break;
+            for (AuditLog a : read(b)) {
+                if (a.getId() > afterId && match.test(a)) out.add(a);
+            }
+            out.sort(Comparator.comparingLong(AuditLog::getId));
+        }
+        return out.size() > limit ? new ArrayList<>(out.subList(0, limit)) : out;
+    }
+
+    /** Newest archived match with id < beforeId and ts_ms <= atMs; blocks starting after atMs are never read. */
+    public Optional<AuditLog> latestAtOrBefore(String table, Predicate<AuditLog> match, long beforeId, long atMs) {
+        AuditLog best = null;
+        for (BlockRef b : blocks("b.first_id < ? AND b.min_ts_ms <= ?", table, "b.last_id DESC", beforeId, atMs)) {
+            if (best != null && b.lastId < best.getId()) break;
+            for (AuditLog a : read(b)) {
+                if (a.getId() < beforeId && a.getTsMs() <= atMs && match.test(a)
+                        && (best == null || a.getId() > best.getId())) best = a;
+            }
+        }
+        return Optional.ofNullable(best);
+    }
+
+    public Optional<AuditLog> findById(long id) {
+        for (BlockRef b : blocks("b.first_id <= ? AND b.last_id >= ?", null, "b.first_id", id, id)) {
+            for (AuditLog a : read(b)) if (a.getId() == id) return Optional.of(a);
+        }
+        return Optional.empty();
+    }
+
+    /** Archived entries with fromMs <= ts_ms < toMs after {@code after}, in (ts_ms, id) order. */
+    public List<AuditLog> between(long fromMs, long toMs, String table, Predicate<AuditLog> match,
+                                  AuditPage.Key after, int limit) {
+        Comparator<AuditLog> order = Comparator.comparingLong(AuditLog::getTsMs).thenComparingLong(AuditLog::getId);
+        List<AuditLog> out = new ArrayList<>();
+        for (BlockRef b : blocks("b.min_ts_ms < ? AND b.max_ts_ms >= ?", table, "b.min_ts_ms", toMs, fromMs)) {
+            if (out.size() >= limit && b.minTs > out.get(limit - 1).getTsMs()) break;
+            for (AuditLog a : read(b)) {
+                if (a.getTsMs() < fromMs || a.getTsMs() >= toMs || !match.test(a)) continue;
+                if (after != null && (a.getTsMs() < after.getTsMs()
+                        || (a.getTsMs() == after.getTsMs() && a.getId() <= after.getId()))) continue;
+                out.add(a);
+            }
+            out.sort(order);
+        }
+        return out.size() > limit ? new ArrayList<>(out.subList(0, limit)) : out;
+    }
+
+    public boolean isEmpty() {
+        try (Connection c = ds.getConnection(); Statement s = c.createStatement();
+             ResultSet rs = s.executeQuery("SELECT 1 FROM audit_segment LIMIT 1")) {
+            return !rs.next();
+        } catch (SQLException e) { throw new RuntimeException(e); }
+    }
+
+    // `where` binds `args` in order; the table filter, if any, comes after them
+    private List<BlockRef> blocks(String where, String table, String orderBy, long... args) {
+        String sql = "SELECT s.file, b.block_no, b.first_id, b.last_id, b.min_ts_ms, b.max_ts_ms, b.offset, b.length " +
+                     "FROM audit_segment_block b JOIN audit_segment s ON s.id = b.segment_id WHERE " + where +
+                     (table != null ? " AND b.tables LIKE ?" : "") + " ORDER BY " + orderBy;
+        try (Connection c = ds.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
+            for (int i = 0; i < args.length; i++) ps.setLong(i + 1, args[i]);
+            if (table != null) ps.setString(args.length + 1, "%," + table + ",%");
+            try (ResultSet rs = ps.executeQuery()) {
+                List<BlockRef> out = new ArrayList<>();
+                while (rs.next()) {
+                    BlockRef b = new BlockRef();
+                    b.file = rs.getString(1);
+                    b.blockNo = rs.getInt(2);
+                    b.firstId = rs.getLong(3);
+                    b.lastId = rs.getLong(4);
+                    b.minTs = rs.getLong(5);
+                    b.maxTs = rs.getLong(6);
+                    b.offset = rs.getLong(7);
+                    b.length = rs.getLong(8);
+                    out.add(b);
+                }
+                return out;
+            }
+        } catch (SQLException e) { throw new RuntimeException(e); }
+    }
+
+    private List<AuditLog> read(BlockRef b) {
+        String key = b.file + "#" + b.blockNo;
+        synchronized (cache) {
+            List<AuditLog> hit = cache.get(key);
+            if (hit != null) return hit;
+        }
+        List<AuditLog> rows = new ArrayList<>();
+        try (FileChannel ch = FileChannel.open(dir.resolve(b.file), StandardOpenOption.READ)) {
+            ByteBuffer buf = ByteBuffer.allocate((int) b.length);
+            while (buf.hasRemaining() && ch.read(buf, b.offset + buf.position()) > 0) { /* fill */ }
+            try (BufferedReader r = new BufferedReader(new InputStreamReader(
+                    new GZIPInputStream(new ByteArrayInputStream(buf.array())), StandardCharsets.UTF_8))) {
+                for (String line; (line = r.readLine()) != null; ) {
+                    Map<String, String> m = AuditJson.parseObject(line);
+                    rows.add(new AuditLog(Long.parseLong(m.get("id")), m.get("ts"), m.get("table_name"), m.get("action"),
+                                          m.get("entity_id"), m.get("old_values"), m.get("new_values"),
+                                          Long.parseLong(m.get("ts_ms")), "1".equals(m.get("delta"))));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot read audit segment " + b.file, e);
+        }
+        List<AuditLog> frozen = Collections.unmodifiableList(rows);
+        synchronized (cache) { cache.put(key, frozen); }
+        return frozen;
+    }
+}
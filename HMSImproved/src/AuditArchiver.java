@@ -0,0 +1,211 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.sql.*;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.zip.GZIPOutputStream;
+import javax.sql.DataSource;
+
+/**
+ * Retention job: moves audit_log rows older than a cutoff into immutable segment files
+ * and deletes them from SQLite.
+ *
+ * A segment is gzip JSONL written as independent gzip members of BLOCK_ROWS lines each,
+ * so a reader can seek straight to one block; audit_segment / audit_segment_block hold
+ * the catalog and the sparse (id, ts) index. Order of work per segment: write to a temp
+ * file, fsync, rename, record the catalog, then delete the rows in small batches.
+ * A crash after the catalog insert just leaves rows to delete; the next run finishes them.
+ * Only rows already sealed by {@link AuditHashChain} are archived.
+ */
+public final class AuditArchiver {
+    public static final int BLOCK_ROWS = 512;
+    public static final int SEGMENT_ROWS = 100_000;
+    private static final int DELETE_BATCH = 5_000;
+
+    private final DataSource ds;
+    private final Path dir;
+
+    public AuditArchiver(DataSource ds, Path dir) {
+        this.ds = ds;
+        this.dir = dir;
+    }
+
+    /** Archives everything older than {@code days}; returns rows moved. */
+    public int applyRetention(int days) {
+        return archiveOlderThan(Instant.now().minus(Duration.ofDays(days)));
+    }
+
+    public int archiveOlderThan(Instant cutoff) {
+        long cutoffMs = cutoff.toEpochMilli();
+        try {
+            Files.createDirectories(dir);
+            finishPendingDeletes();
+            int total = 0;
+            while (true) {
+                int n = writeSegment(cutoffMs);
+                if (n == 0) return total;
+                total += n;
+            }
+        } catch (IOException | SQLException e) {
+            throw new RuntimeException("audit archive failed", e);
+        }
+    }
+
+    private static final class Block {
+        long firstId = Long.MAX_VALUE, lastId = Long.MIN_VALUE;
+        long minTs = Long.MAX_VALUE, maxTs = Long.MIN_VALUE;
+        final Set<String> tables = new TreeSet<>();
+        long offset, length;
+        int rows;
+    }
+
+    /** One segment of up to SEGMENT_ROWS rows; returns rows archived (0 when nothing is old enough). */
+    private int writeSegment(long cutoffMs) throws IOException, SQLException {
+        String sql = "SELECT id, ts, table_name, action, entity_id, old_values, new_values, ts_ms, delta " +
+                     "FROM audit_log WHERE ts_ms < ? " +
+                     "AND id <= (SELECT COALESCE(MAX(audit_id), 0) FROM audit_hash) " +   // sealed rows only
+                     "ORDER BY id LIMIT ?";
+        Path tmp = Files.createTempFile(dir, "segment-", ".tmp");
+        List<Block> blocks = new ArrayList<>();
+        int rows = 0;
+        try (Connection c = ds.getConnection(); PreparedStatement ps = c.prepareStatement(sql);
+             FileOutputStream file = new FileOutputStream(tmp.toFile())) {
+            ps.setLong(1, cutoffMs);
+            ps.setInt(2, SEGMENT_ROWS);
+            FileChannel ch = file.getChannel();
+            ByteArrayOutputStream buf = new ByteArrayOutputStream();
+            Block block = null;
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (block == null) { block = new Block(); buf.reset(); }
+                    long id = rs.getLong(1), tsMs = rs.getLong(8);
+                    String table = rs.getString(3);
+                    buf.write(line(id, rs.getString(2), table, rs.getString(4), rs.getString(5),
+                                   rs.getString(6), rs.getString(7), tsMs, rs.getInt(9) != 0));
+                    block.firstId = Math.min(block.firstId, id);
+                    block.lastId = Math.max(block.lastId, id);
+                    block.minTs = Math.min(block.minTs, tsMs);
+                    block.maxTs = Math.max(block.maxTs, tsMs);
+                    block.tables.add(table);
+                    block.rows++;
+                    rows++;
+                    if (block.rows == BLOCK_ROWS) { flush(block, buf, ch); blocks.add(block); block = null; }
+                }
+            }
+            if (block != null) { flush(block, buf, ch); blocks.add(block); }
+            ch.force(true);
+        } catch (IOException | SQLException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        if (rows == 0) {
+            Files.deleteIfExists(tmp);
+            return 0;
+        }
+
+        long firstId = blocks.get(0).firstId, lastId = blocks.get(blocks.size() - 1).lastId;
+        String name = String.format("segment-%012d-%012d.jsonl.gz", firstId, lastId);
+        Path target = dir.resolve(name);
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+        target.toFile().setReadOnly();
+
+        recordCatalog(name, blocks, cutoffMs, rows, Files.size(target));
+        deleteArchived(firstId, lastId, cutoffMs);
+        return rows;
+    }
+
+    // each block is its own gzip member; closing the stream ends it and frees the native Deflater
+    private static void flush(Block block, ByteArrayOutputStream buf, FileChannel ch) throws IOException {
+        ByteArrayOutputStream member = new ByteArrayOutputStream(buf.size() / 4 + 64);
+        try (GZIPOutputStream gz = new GZIPOutputStream(member, 64 * 1024)) {
+            buf.writeTo(gz);
+        }
+        block.offset = ch.position();
+        ByteBuffer bytes = ByteBuffer.wrap(member.toByteArray());
+        while (bytes.hasRemaining()) ch.write(bytes);
+        block.length = ch.position() - block.offset;
+    }
+
+    private static byte[] line(long id, String ts, String table, String action, String entity,
+                               String oldValues, String newValues, long tsMs, boolean delta) {
+        String json = "{\"id\":" + id +
+                      ",\"ts\":" + AuditJson.quote(ts) +
+                      ",\"ts_ms\":" + tsMs +
+                      ",\"table_name\":" + AuditJson.quote(table) +
+                      ",\"action\":" + AuditJson.quote(action) +
+                      ",\"entity_id\":" + AuditJson.quote(entity) +
+                      ",\"old_values\":" + AuditJson.quote(oldValues) +
+                      ",\"new_values\":" + AuditJson.quote(newValues) +
+                      ",\"delta\":" + (delta ? 1 : 0) + "}\n";
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void recordCatalog(String name, List<Block> blocks, long cutoffMs, int rows, long bytes) throws SQLException {
+        long minTs = Long.MAX_VALUE, maxTs = Long.MIN_VALUE;
+        for (Block b : blocks) { minTs = Math.min(minTs, b.minTs); maxTs = Math.max(maxTs, b.maxTs); }
+        try (Connection c = ds.getConnection()) {
+            c.setAutoCommit(false);
+            try (PreparedStatement seg = c.prepareStatement(
+                     "INSERT INTO audit_segment(file, first_id, last_id, min_ts_ms, max_ts_ms, cutoff_ms, row_count, bytes) " +
+                     "VALUES(?,?,?,?,?,?,?,?)", Statement.RETURN_GENERATED_KEYS);
+                 PreparedStatement blk = c.prepareStatement(
+                     "INSERT INTO audit_segment_block(segment_id, block_no, first_id, last_id, min_ts_ms, max_ts_ms, tables, offset, length) " +
+                     "VALUES(?,?,?,?,?,?,?,?,?)")) {
+                seg.setString(1, name);
+                seg.setLong(2, blocks.get(0).firstId);
+                seg.setLong(3, blocks.get(blocks.size() - 1).lastId);
+                seg.setLong(4, minTs);
+                seg.setLong(5, maxTs);
+                seg.setLong(6, cutoffMs);
+                seg.setInt(7, rows);
+                seg.setLong(8, bytes);
+                seg.executeUpdate();
+                long segmentId;
+                try (ResultSet keys = seg.getGeneratedKeys()) { keys.next(); segmentId = keys.getLong(1); }
+                for (int i = 0; i < blocks.size(); i++) {
+                    Block b = blocks.get(i);
+                    blk.setLong(1, segmentId);
+                    blk.setInt(2, i);
+                    blk.setLong(3, b.firstId);
+                    blk.setLong(4, b.lastId);
+                    blk.setLong(5, b.minTs);
+                    blk.setLong(6, b.maxTs);
+                    blk.setString(7, "," + String.join(",", b.tables) + ",");
+                    blk.setLong(8, b.offset);
+                    blk.setLong(9, b.length);
+                    blk.addBatch();
+                }
+                blk.executeBatch();
+                c.commit();
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            }
+        }
+    }
+
+    // batches keep each write transaction short so desks are never blocked behind the archiver
+    private void deleteArchived(long firstId, long lastId, long cutoffMs) throws SQLException {
+        String sql = "DELETE FROM audit_log WHERE id IN (" +
+                     "SELECT id FROM audit_log WHERE id BETWEEN ? AND ? AND ts_ms < ? LIMIT " + DELETE_BATCH + ")";
+        try (Connection c = ds.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setLong(1, firstId);
+            ps.setLong(2, lastId);
+            ps.setLong(3, cutoffMs);
+            while (ps.executeUpdate() > 0) { /* next batch */ }
+        }
+    }
+
+    private void finishPendingDeletes() throws SQLException {
+        List<long[]> segments = new ArrayList<>();
+        try (Connection c = ds.getConnection(); Statement s = c.createStatement();
+             ResultSet rs = s.executeQuery("SELECT first_id, last_id, cutoff_ms FROM audit_segment")) {
+            while (rs.next()) segments.add(new long[] { rs.getLong(1), rs.getLong(2), rs.getLong(3) });
+        }
+        for (long[] seg : segments) deleteArchived(seg[0], seg[1], seg[2]);
+    }
+}
@@ -0,0 +1,163 @@
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import javax.sql.DataSource;
+
+/**
+ * Tails audit_log by id and hands each new entry to subscribers as a typed {@link Change},
+ * so open screens can patch single rows instead of reloading whole tables.
+ *
+ * A dedicated connection polls PRAGMA data_version, which moves whenever any other
+ * connection commits - in this process or in another one on the same file - and only then
+ * is audit_log read, from the last id seen. Within one poll, several entries for the same
+ * record collapse into the last one. Subscribers run on the feed thread.
+ */
+public final class AuditChangeFeed implements AutoCloseable {
+    public enum Kind { INSERT, UPDATE, DELETE }
+
+    public static final class Change {
+        private final long auditId;
+        private final String table;
+        private final Kind kind;
+        private final String entityId;
+
+        Change(long auditId, String table, Kind kind, String entityId) {
+            this.auditId = auditId;
+            this.table = table;
+            this.kind = kind;
+            this.entityId = entityId;
+        }
+
+        public long getAuditId() { return auditId; }
+        public String getTable() { return table; }
+        public Kind getKind() { return kind; }
+        public String getEntityId() { return entityId; }
+
+        @Override public String toString() { return kind + " " + table + " " + entityId + " #" + auditId; }
+    }
+
+    private static final int BATCH = 500;
+    private static final String ALL = "*";
+
+    private final DataSource ds;
+    private final long intervalMs;
+    private final Map<String, List<Consumer<Change>>> subscribers = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService exec = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "audit-change-feed");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private Connection conn;
+    private long dataVersion = Long.MIN_VALUE;
+    private long lastId = -1;
+
+    public AuditChangeFeed(DataSource ds, long intervalMs) {
+        this.ds = ds;
+        this.intervalMs = intervalMs;
+    }
+
+    /** Starts tailing from the current end of audit_log; earlier history is not replayed. */
+    public void start() {
+        exec.execute(() -> {
+            try { lastId = maxId(); } catch (SQLException e) { System.err.println("Change feed: " + e.getMessage()); }
+        });
+        exec.scheduleWithFixedDelay(this::poll, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /** Subscribes to one table ({@code null} = every table); run the returned action to unsubscribe. */
+    public Runnable subscribe(String table, Consumer<Change> listener) {
+        String key = table == null ? ALL : table;
+        subscribers.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>()).add(listener);
+        return () -> subscribers.getOrDefault(key, List.of()).remove(listener);
+    }
+
+    void poll() {
+        try {
+            if (conn == null) conn = ds.getConnection();
+            long v;
+            try (Statement s = conn.createStatement(); ResultSet rs = s.executeQuery("PRAGMA data_version")) {
+                rs.next();
+                v = rs.getLong(1);
+            }
+            if (v == dataVersion) return;
+            dataVersion = v;
+            if (lastId < 0) lastId = maxId();
+            int read;
+            do {
+                List<Change> batch = new ArrayList<>();
+                read = readAfter(lastId, batch);
+                publish(batch);
+            } while (read == BATCH);
+        } catch (SQLException e) {
+            System.err.println("Change feed poll failed: " + e.getMessage());
+            closeConnection();   // reopened on the next tick
+        }
+    }
+
+    /** Appends entries after {@code afterId} to {@code out}, advances lastId; returns rows read. */
+    private int readAfter(long afterId, List<Change> out) throws SQLException {
+        int read = 0;
+        String sql = "SELECT id, table_name, action, entity_id FROM audit_log WHERE id > ? ORDER BY id LIMIT " + BATCH;
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setLong(1, afterId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    read++;
+                    lastId = rs.getLong(1);
+                    Kind kind;
+                    try { kind = Kind.valueOf(rs.getString(3)); } catch (IllegalArgumentException | NullPointerException e) { continue; }
+                    out.add(new Change(rs.getLong(1), rs.getString(2), kind, rs.getString(4)));
+                }
+            }
+        }
+        return read;
+    }
+
+    private long maxId() throws SQLException {
+        if (conn == null) conn = ds.getConnection();
+        try (Statement s = conn.createStatement();
+             ResultSet rs = s.executeQuery("SELECT COALESCE(MAX(id), 0) FROM audit_log")) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private void publish(List<Change> batch) {
+        LinkedHashMap<String, Change> latest = new LinkedHashMap<>();
+        for (Change c : batch) {
+            String key = c.getTable() + "\u0000" + c.getEntityId();
+            latest.remove(key);
+            latest.put(key, c);
+        }
+        for (Change c : latest.values()) {
+            deliver(subscribers.get(c.getTable()), c);
+            deliver(subscribers.get(ALL), c);
+        }
+    }
+
+    private static void deliver(List<Consumer<Change>> listeners, Change c) {
+        if (listeners == null) return;
+        for (Consumer<Change> l : listeners) {
+            try {
+                l.accept(c);
+            } catch (RuntimeException e) {
+                System.err.println("Change feed subscriber failed on " + c + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void closeConnection() {
+        if (conn == null) return;
+        try { conn.close(); } catch (SQLException ignore) {}
+        conn = null;
+        dataVersion = Long.MIN_VALUE;
+    }
+
+    @Override public void close() {
+        exec.shutdownNow();
+        try { exec.awaitTermination(2, TimeUnit.SECONDS); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+        closeConnection();
+    }
+}
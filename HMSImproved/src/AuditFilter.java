@@ -0,0 +1,24 @@
+/** Optional equality filters for audit queries; null fields match everything. */
+public final class AuditFilter {
+    private final String tableName;
+    private final String action;
+    private final String entityId;
+
+    private AuditFilter(String tableName, String action, String entityId) {
+        this.tableName = tableName;
+        this.action = action;
+        this.entityId = entityId;
+    }
+
+    public static AuditFilter all() { return new AuditFilter(null, null, null); }
+
+    public AuditFilter table(String tableName) { return new AuditFilter(blankToNull(tableName), action, entityId); }
+    public AuditFilter action(String action) { return new AuditFilter(tableName, blankToNull(action), entityId); }
+    public AuditFilter entity(String entityId) { return new AuditFilter(tableName, action, blankToNull(entityId)); }
+
+    public String getTableName() { return tableName; }
+    public String getAction() { return action; }
+    public String getEntityId() { return entityId; }
+
+    private static String blankToNull(String v) { return v == null || v.isBlank() ? null : v.trim(); }
+}
@@ -0,0 +1,256 @@
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import javax.sql.DataSource;
+
+/**
+ * Tamper-evident seal over audit_log: audit_hash holds, per audit row in id order,
+ * SHA-256(previous hash || row). Editing, deleting or back-inserting a sealed row breaks
+ * the link at that row and every later one no longer matches what was recorded.
+ *
+ * {@link #sealPending()} runs in the background and seals new rows in batches, so the
+ * audit triggers themselves do no extra work. Hashing is deterministic, so two instances
+ * sealing the same rows write identical values (INSERT OR IGNORE).
+ *
+ * Each link only needs the stored hash before it, so {@link #verify()} checks id ranges
+ * in parallel with fork/join and reports the lowest broken id. Rows moved out by
+ * {@link AuditArchiver} keep their audit_hash entry; inside an archived id range a
+ * missing audit_log row is expected and that link is taken as stored.
+ * The chain proves nothing if audit_hash is rewritten as well, so keep copies of
+ * {@link #head()} somewhere else.
+ */
+public final class AuditHashChain {
+    public static final int SEAL_BATCH = 5_000;
+    private static final int VERIFY_LEAF_IDS = 50_000;
+    private static final byte[] GENESIS = new byte[32];
+
+    private final DataSource ds;
+
+    public AuditHashChain(DataSource ds) {
+        this.ds = ds;
+    }
+
+    /** Outcome of {@link #verify()}; brokenId is -1 when every link matched. */
+    public static final class Result {
+        private final long checked;
+        private final long brokenId;
+        private final String reason;
+
+        Result(long checked, long brokenId, String reason) {
+            this.checked = checked;
+            this.brokenId = brokenId;
+            this.reason = reason;
+        }
+
+        public boolean isIntact() { return brokenId < 0; }
+        public long getChecked() { return checked; }
+        public long getBrokenId() { return brokenId; }
+        public String getReason() { return reason; }
+
+        @Override public String toString() {
+            return isIntact() ? "intact (" + checked + " rows)" : "broken at audit id " + brokenId + ": " + reason;
+        }
+    }
+
+    // ----- sealing -----
+
+    /** Seals every audit row newer than the chain head; returns rows sealed. */
+    public synchronized int sealPending() {
+        int total = 0;
+        while (true) {
+            int n = sealBatch();
+            total += n;
+            if (n < SEAL_BATCH) return total;
+        }
+    }
+
+    private int sealBatch() {
+        String sql = "SELECT id, ts, table_name, action, entity_id, old_values, new_values, ts_ms, delta " +
+                     "FROM audit_log WHERE id > ? ORDER BY id LIMIT " + SEAL_BATCH;
+        try (Connection c = ds.getConnection()) {
+            long headId = 0;
+            byte[] prev = GENESIS;
+            try (Statement s = c.createStatement();
+                 ResultSet rs = s.executeQuery("SELECT audit_id, hash FROM audit_hash ORDER BY audit_id DESC LIMIT 1")) {
+                if (rs.next()) { headId = rs.getLong(1); prev = rs.getBytes(2); }
+            }
+            List<Long> ids = new ArrayList<>();
+            List<byte[]> hashes = new ArrayList<>();
+            MessageDigest md = sha256();
+            try (PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setLong(1, headId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        prev = link(md, prev, rs);
+                        ids.add(rs.getLong(1));
+                        hashes.add(prev);
+                    }
+                }
+            }
+            if (ids.isEmpty()) return 0;
+            c.setAutoCommit(false);
+            try (PreparedStatement ins = c.prepareStatement("INSERT OR IGNORE INTO audit_hash(audit_id, hash) VALUES(?,?)")) {
+                for (int i = 0; i < ids.size(); i++) {
+                    ins.setLong(1, ids.get(i));
+                    ins.setBytes(2, hashes.get(i));
+                    ins.addBatch();
+                }
+                ins.executeBatch();
+                c.commit();
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            }
+            return ids.size();
+        } catch (SQLException e) {
+            throw new RuntimeException("audit sealing failed", e);
+        }
+    }
+
+    /** Last sealed audit id and its hash in hex, or empty before anything is sealed. */
+    public Optional<Map.Entry<Long, String>> head() {
+        try (Connection c = ds.getConnection(); Statement s = c.createStatement();
+             ResultSet rs = s.executeQuery("SELECT audit_id, hash FROM audit_hash ORDER BY audit_id DESC LIMIT 1")) {
+            if (!rs.next()) return Optional.empty();
+            return Optional.of(Map.entry(rs.getLong(1), HexFormat.of().formatHex(rs.getBytes(2))));
+        } catch (SQLException e) { throw new RuntimeException(e); }
+    }
+
+    // ----- verification -----
+
+    /** Checks every sealed link on the common fork/join pool. */
+    public Result verify() {
+        return verify(ForkJoinPool.commonPool());
+    }
+
+    public Result verify(ForkJoinPool pool) {
+        long lo, hi;
+        List<long[]> archived = new ArrayList<>();
+        try (Connection c = ds.getConnection(); Statement s = c.createStatement()) {
+            try (ResultSet rs = s.executeQuery("SELECT MIN(audit_id), MAX(audit_id) FROM audit_hash")) {
+                rs.next();
+                lo = rs.getLong(1);
+                hi = rs.getLong(2);
+                if (rs.wasNull()) return new Result(0, -1, null);
+            }
+            try (ResultSet rs = s.executeQuery("SELECT first_id, last_id FROM audit_segment ORDER BY first_id")) {
+                while (rs.next()) archived.add(new long[] { rs.getLong(1), rs.getLong(2) });
+            }
+        } catch (SQLException e) { throw new RuntimeException(e); }
+        return pool.invoke(new VerifyRange(lo, hi, archived));
+    }
+
+    private final class VerifyRange extends RecursiveTask<Result> {
+        private static final long serialVersionUID = 1L;   // ForkJoinTask is Serializable; never serialized here
+        private final long lo, hi;
+        private final List<long[]> archived;
+
+        VerifyRange(long lo, long hi, List<long[]> archived) {
+            this.lo = lo;
+            this.hi = hi;
+            this.archived = archived;
+        }
+
+        @Override protected Result compute() {
+            if (hi - lo < VERIFY_LEAF_IDS) return verifyLeaf();
+            long mid = lo + (hi - lo) / 2;
+            VerifyRange left = new VerifyRange(lo, mid, archived);
+            VerifyRange right = new VerifyRange(mid + 1, hi, archived);
+            right.fork();
+            Result l = left.compute();
+            Result r = right.join();
+            long checked = l.getChecked() + r.getChecked();
+            if (!l.isIntact()) return new Result(checked, l.getBrokenId(), l.getReason());
+            return new Result(checked, r.getBrokenId(), r.getReason());
+        }
+
+        // two id-ordered cursors merged side by side; cheaper than joining row by row
+        private Result verifyLeaf() {
+            String rowsSql = "SELECT id, ts, table_name, action, entity_id, old_values, new_values, ts_ms, delta " +
+                             "FROM audit_log WHERE id BETWEEN ? AND ? ORDER BY id";
+            String hashSql = "SELECT audit_id, hash FROM audit_hash WHERE audit_id BETWEEN ? AND ? ORDER BY audit_id";
+            try (Connection c = ds.getConnection();
+                 PreparedStatement rowsPs = c.prepareStatement(rowsSql);
+                 PreparedStatement hashPs = c.prepareStatement(hashSql)) {
+                byte[] prev = GENESIS;
+                try (PreparedStatement ps = c.prepareStatement(
+                        "SELECT hash FROM audit_hash WHERE audit_id < ? ORDER BY audit_id DESC LIMIT 1")) {
+                    ps.setLong(1, lo);
+                    try (ResultSet rs = ps.executeQuery()) { if (rs.next()) prev = rs.getBytes(1); }
+                }
+                rowsPs.setLong(1, lo);
+                rowsPs.setLong(2, hi);
+                hashPs.setLong(1, lo);
+                hashPs.setLong(2, hi);
+                MessageDigest md = sha256();
+                long checked = 0;
+                try (ResultSet rows = rowsPs.executeQuery(); ResultSet hashes = hashPs.executeQuery()) {
+                    long rowId = rows.next() ? rows.getLong(1) : Long.MAX_VALUE;
+                    while (hashes.next()) {
+                        long id = hashes.getLong(1);
+                        byte[] stored = hashes.getBytes(2);
+                        if (rowId < id) return new Result(checked, rowId, "audit row inside the sealed range has no hash");
+                        if (rowId > id) {
+                            if (!isArchived(id)) return new Result(checked, id, "sealed audit row is missing");
+                        } else {
+                            if (!MessageDigest.isEqual(link(md, prev, rows), stored)) {
+                                return new Result(checked, id, "audit row or its hash was altered");
+                            }
+                            rowId = rows.next() ? rows.getLong(1) : Long.MAX_VALUE;
+                        }
+                        prev = stored;
+                        checked++;
+                    }
+                    if (rowId != Long.MAX_VALUE) return new Result(checked, rowId, "audit row inside the sealed range has no hash");
+                }
+                return new Result(checked, -1, null);
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        private boolean isArchived(long id) {
+            for (long[] r : archived) {
+                if (id < r[0]) return false;
+                if (id <= r[1]) return true;
+            }
+            return false;
+        }
+    }
+
+    // ----- hashing -----
+
+    /** SHA-256(prev || id, ts, table, action, entity, old, new, ts_ms, delta) with length-prefixed fields. */
+    private static byte[] link(MessageDigest md, byte[] prev, ResultSet rs) throws SQLException {
+        md.reset();
+        md.update(prev);
+        putLong(md, rs.getLong(1));
+        for (int col = 2; col <= 7; col++) putBytes(md, rs.getBytes(col));   // TEXT comes back as its UTF-8 bytes
+        long tsMs = rs.getLong(8);
+        md.update((byte) (rs.wasNull() ? 0 : 1));
+        putLong(md, tsMs);
+        putLong(md, rs.getLong(9));
+        return md.digest();
+    }
+
+    private static void putBytes(MessageDigest md, byte[] b) {
+        if (b == null) { putLong(md, -1); return; }
+        putLong(md, b.length);
+        md.update(b);
+    }
+
+    private static void putLong(MessageDigest md, long v) {
+        for (int i = 56; i >= 0; i -= 8) md.update((byte) (v >>> i));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+import java.util.*;
+
+/**
+ * Minimal reader for the flat objects the audit triggers write with json_object(...):
+ * string/number/null/true/false values only, no nesting. Values come back as strings
+ * (JSON null as Java null) in column order. Not a general JSON parser.
+ */
+public final class AuditJson {
+    private final String s;
+    private int i;
+
+    private AuditJson(String s) { this.s = s; }
+
+    /** Empty map for null/blank input. */
+    public static LinkedHashMap<String, String> parseObject(String json) {
+        LinkedHashMap<String, String> out = new LinkedHashMap<>();
+        if (json == null || json.isBlank()) return out;
+        AuditJson p = new AuditJson(json);
+        p.skipWs();
+        p.expect('{');
+        p.skipWs();
+        if (p.peek() == '}') return out;
+        while (true) {
+            p.skipWs();
+            String key = p.string();
+            p.skipWs();
+            p.expect(':');
+            p.skipWs();
+            out.put(key, p.value());
+            p.skipWs();
+            char c = p.next();
+            if (c == '}') return out;
+            if (c != ',') throw p.error("expected , or }");
+        }
+    }
+
+    /**
+     * Like parseObject but each value is kept as its JSON literal (strings still quoted),
+     * so merging objects and writing them back preserves value types exactly.
+     */
+    public static LinkedHashMap<String, String> parseRaw(String json) {
+        LinkedHashMap<String, String> out = new LinkedHashMap<>();
+        if (json == null || json.isBlank()) return out;
+        AuditJson p = new AuditJson(json);
+        p.skipWs();
+        p.expect('{');
+        p.skipWs();
+        if (p.peek() == '}') return out;
+        while (true) {
+            p.skipWs();
+            String key = p.string();
+            p.skipWs();
+            p.expect(':');
+            p.skipWs();
+            int start = p.i;
+            if (p.peek() == '"') p.string(); else p.value();
+            out.put(key, p.s.substring(start, p.i));
+            p.skipWs();
+            char c = p.next();
+            if (c == '}') return out;
+            if (c != ',') throw p.error("expected , or }");
+        }
+    }
+
+    /** Inverse of parseRaw. */
+    public static String writeRaw(Map<String, String> raw) {
+        StringBuilder b = new StringBuilder("{");
+        for (Map.Entry<String, String> e : raw.entrySet()) {
+            if (b.length() > 1) b.append(',');
+            b.append(quote(e.getKey())).append(':').append(e.getValue());
+        }
+        return b.append('}').toString();
+    }
+
+    /** Columns whose value differs between the two objects: column → {old, new}. */
+    public static LinkedHashMap<String, String[]> diff(Map<String, String> before, Map<String, String> after) {
+        LinkedHashMap<String, String[]> out = new LinkedHashMap<>();
+        Set<String> keys = new LinkedHashSet<>(before.keySet());
+        keys.addAll(after.keySet());
+        for (String k : keys) {
+            String o = before.get(k), n = after.get(k);
+            if (!Objects.equals(o, n)) out.put(k, new String[] { o, n });
+        }
+        return out;
+    }
+
+    /** JSON string literal for {@code v}; the literal null when v is null. */
+    public static String quote(String v) {
+        if (v == null) return "null";
+        StringBuilder b = new StringBuilder(v.length() + 2).append('"');
+        for (int k = 0; k < v.length(); k++) {
+            char c = v.charAt(k);
+            switch (c) {
+                case '"':  b.append("\\\""); break;
+                case '\\': b.append("\\\\"); break;
+                case '\n': b.append("\\n"); break;
+                case '\r': b.append("\\r"); break;
+                case '\t': b.append("\\t"); break;
+                default:
+                    if (c < 0x20) b.append(String.format("\\u%04x", (int) c));
+                    else b.append(c);
+            }
+        }
+        return b.append('"').toString();
+    }
+
+    private String value() {
+        char c = peek();
+        if (c == '"') return string();
+        int start = i;
+        while (i < s.length() && ",}] \t\r\n".indexOf(s.charAt(i)) < 0) i++;
+        String lit = s.substring(start, i);
+        if (lit.isEmpty()) throw error("expected value");
+        return lit.equals("null") ? null : lit;
+    }
+
+    private String string() {
+        expect('"');
+        StringBuilder b = new StringBuilder();
+        while (true) {
+            char c = next();
+            if (c == '"') return b.toString();
+            if (c != '\\') { b.append(c); continue; }
+            char e = next();
+            switch (e) {
+                case 'n': b.append('\n'); break;
+                case 't': b.append('\t'); break;
+                case 'r': b.append('\r'); break;
+                case 'b': b.append('\b'); break;
+                case 'f': b.append('\f'); break;
+                case 'u':
+                    if (i + 4 > s.length()) throw error("bad \\u escape");
+                    b.append((char) Integer.parseInt(s.substring(i, i + 4), 16));
+                    i += 4;
+                    break;
+                default: b.append(e); // \" \\ \/
+            }
+        }
+    }
+
+    private void skipWs() { while (i < s.length() && Character.isWhitespace(s.charAt(i))) i++; }
+    private char peek() { if (i >= s.length()) throw error("unexpected end"); return s.charAt(i); }
+    private char next() { char c = peek(); i++; return c; }
+    private void expect(char c) { if (next() != c) throw error("expected " + c); }
+    private IllegalArgumentException error(String msg) {
+        return new IllegalArgumentException("audit json: " + msg + " at " + i);
+    }
+}
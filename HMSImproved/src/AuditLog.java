@@ -1,3 +1,5 @@
+import java.util.Map;
+
 public class AuditLog {
     private final long id;
     private final String ts;
@@ -6,9 +8,17 @@ public class AuditLog {
     private final String entityId;
     private final String oldValues; // JSON
     private final String newValues; // JSON
+    private final boolean headerOnly;
+    private final long tsMs;        // epoch millis of ts; -1 when not selected
+    private final boolean delta;    // UPDATE storing only changed columns
 
     public AuditLog(long id, String ts, String tableName, String action,
                     String entityId, String oldValues, String newValues) {
+        this(id, ts, tableName, action, entityId, oldValues, newValues, -1, false);
+    }
+
+    public AuditLog(long id, String ts, String tableName, String action, String entityId,
+                    String oldValues, String newValues, long tsMs, boolean delta) {
         this.id = id;
         this.ts = ts;
         this.tableName = tableName;
@@ -16,6 +26,27 @@ public class AuditLog {
         this.entityId = entityId;
         this.oldValues = oldValues;
         this.newValues = newValues;
+        this.headerOnly = false;
+        this.tsMs = tsMs;
+        this.delta = delta;
+    }
+
+    private AuditLog(long id, String ts, String tableName, String action, String entityId) {
+        this.id = id;
+        this.ts = ts;
+        this.tableName = tableName;
+        this.action = action;
+        this.entityId = entityId;
+        this.oldValues = null;
+        this.newValues = null;
+        this.headerOnly = true;
+        this.tsMs = -1;
+        this.delta = false;
+    }
+
+    /** A list row without the JSON payloads; fetch the full entry with findById when needed. */
+    public static AuditLog header(long id, String ts, String tableName, String action, String entityId) {
+        return new AuditLog(id, ts, tableName, action, entityId);
     }
 
     public long getId() { return id; }
@@ -25,4 +56,19 @@ public class AuditLog {
     public String getEntityId() { return entityId; }
     public String getOldValues() { return oldValues; }
     public String getNewValues() { return newValues; }
+    public boolean isHeaderOnly() { return headerOnly; }
+    public long getTsMs() { return tsMs; }
+
+    /** True for a delta UPDATE: old/new hold only the changed columns. */
+    public boolean isDelta() { return delta; }
+
+    /** This entry with full old/new rows, replayed from the entity's last checkpoint if it is a delta. */
+    public AuditLog reconstruct(AuditLogRepository repo) {
+        return delta ? repo.reconstruct(this) : this;
+    }
+
+    public Map<String, String> oldMap() { return AuditJson.parseObject(oldValues); }
+    public Map<String, String> newMap() { return AuditJson.parseObject(newValues); }
+    /** Changed columns → {old, new}; for INSERT/DELETE every column of the one side. */
+    public Map<String, String[]> diff() { return AuditJson.diff(oldMap(), newMap()); }
 }
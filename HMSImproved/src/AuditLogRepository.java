@@ -1,7 +1,51 @@
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 public interface AuditLogRepository {
     List<AuditLog> findRecent(int limit);
     List<AuditLog> findByTable(String tableName, int limit);
     List<AuditLog> findByEntity(String tableName, String entityId, int limit);
+
+    // Keyset paging over header columns only (no JSON payloads), newest first.
+    // tableName may be null for all tables.
+    List<AuditLog> findHeadersBefore(String tableName, long beforeId, int limit);
+    List<AuditLog> findHeadersAfter(String tableName, long afterId, int limit);
+    Optional<AuditLog> findById(long id);
+
+    /**
+     * Full old/new rows for a delta UPDATE, replayed from the entity's nearest earlier full
+     * row (INSERT or checkpoint); returns {@code entry} unchanged when it is not a delta.
+     */
+    AuditLog reconstruct(AuditLog entry);
+
+    /**
+     * The record as it stood at {@code at} (column → value), or empty if it did not exist then.
+     * Replays from the last full row (insert or checkpoint) before that moment, so the cost
+     * is bounded by the checkpoint spacing, not by the length of the entity's history.
+     */
+    Optional<Map<String, String>> asOf(String table, String entityId, Instant at);
+
+    /**
+     * Entries of {@code table} whose old or new value of {@code column} equals {@code value},
+     * newest first. Delta UPDATEs carry only the columns they changed, so an update that left
+     * the column alone is not returned. Index lookups for keys in Db.auditJsonKeys(); archived
+     * entries have no such index, so they are only searched (block by block) with {@code includeArchive}.
+     */
+    List<AuditLog> findByValue(String table, String column, String value, int limit, boolean includeArchive);
+
+    /**
+     * Entries where numeric {@code column} ended above {@code threshold} from at or below it (or from
+     * nothing), newest first; archived entries only with {@code includeArchive}, as for findByValue.
+     */
+    List<AuditLog> findRisesAbove(String table, String column, double threshold, int limit, boolean includeArchive);
+
+    int PAGE_SIZE = 200;
+
+    /**
+     * Entries with from <= ts < to in time order, PAGE_SIZE at a time.
+     * Pass null as pageKey for the first page, then the previous page's getNext().
+     */
+    AuditPage findBetween(Instant from, Instant to, AuditFilter filter, AuditPage.Key pageKey);
 }
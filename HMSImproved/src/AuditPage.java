@@ -0,0 +1,25 @@
+import java.util.List;
+
+/** One page of a time-ordered audit query plus the key to fetch the next one (null when done). */
+public final class AuditPage {
+    /** Keyset position: the (ts_ms, id) of the last row returned. */
+    public static final class Key {
+        private final long tsMs;
+        private final long id;
+        public Key(long tsMs, long id) { this.tsMs = tsMs; this.id = id; }
+        public long getTsMs() { return tsMs; }
+        public long getId() { return id; }
+    }
+
+    private final List<AuditLog> rows;
+    private final Key next;
+
+    public AuditPage(List<AuditLog> rows, Key next) {
+        this.rows = rows;
+        this.next = next;
+    }
+
+    public List<AuditLog> getRows() { return rows; }
+    public Key getNext() { return next; }
+    public boolean hasNext() { return next != null; }
+}
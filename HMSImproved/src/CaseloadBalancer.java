@@ -0,0 +1,213 @@
+import java.sql.*;
+import java.util.*;
+import javax.sql.DataSource;
+
+/**
+ * Suggests which doctor of a specialty should take the next admission.
+ *
+ * One indexed binary min-heap per specialist ordered by (admitted caseload, id):
+ * suggest() is a peek, and every admission/discharge/assignment is a single
+ * O(log n) sift of the doctor(s) involved. Fed by the assignment, patient and
+ * doctor repositories' listeners, and by the audit change feed for patient and doctor
+ * writes made by other instances; patient and doctor callbacks are idempotent, since
+ * the feed also replays this instance's own writes.
+ */
+public final class CaseloadBalancer implements AssignmentRepository.Listener {
+    private final AssignmentRepository assignments;
+    private final Map<String, LoadHeap> heaps = new HashMap<>();          // specialist key -> heap
+    private final Map<String, String> specialistByDoctor = new HashMap<>();
+    private final Map<String, Set<String>> admittedDoctorsByPatient = new HashMap<>();
+
+    private CaseloadBalancer(AssignmentRepository assignments) { this.assignments = assignments; }
+
+    public static CaseloadBalancer load(DataSource ds, AssignmentRepository assignments) {
+        CaseloadBalancer b = new CaseloadBalancer(assignments);
+        Map<String, Integer> loads = assignments.admittedCaseloads();
+        try (Connection c = ds.getConnection(); Statement s = c.createStatement()) {
+            try (ResultSet rs = s.executeQuery("SELECT id, specialist FROM doctor")) {
+                while (rs.next()) b.addDoctor(rs.getString(1), rs.getString(2), loads.getOrDefault(rs.getString(1), 0));
+            }
+            try (ResultSet rs = s.executeQuery("SELECT patient_id, doctor_id FROM patient_assignment WHERE admitted=1")) {
+                while (rs.next()) b.admittedDoctorsByPatient.computeIfAbsent(rs.getString(1), k -> new HashSet<>()).add(rs.getString(2));
+            }
+        } catch (SQLException e) { throw new RuntimeException(e); }
+        return b;
+    }
+
+    private static String key(String specialist) {
+        return specialist == null ? "" : specialist.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /** Least-loaded doctor of the specialty (ties: lowest id), empty if there is none. */
+    public synchronized Optional<String> suggest(String specialist) {
+        LoadHeap h = heaps.get(key(specialist));
+        return h == null || h.size == 0 ? Optional.empty() : Optional.of(h.ids[0]);
+    }
+
+    public synchronized int admittedLoad(String doctorId) {
+        LoadHeap h = heaps.get(specialistByDoctor.get(doctorId));
+        return h == null ? 0 : h.load(doctorId);
+    }
+
+    // ----- assignment writes -----
+
+    @Override public synchronized void onAssigned(String patientId, String doctorId, boolean admitted) {
+        if (!admitted) return;
+        if (admittedDoctorsByPatient.computeIfAbsent(patientId, k -> new HashSet<>()).add(doctorId)) adjust(doctorId, +1);
+    }
+
+    @Override public synchronized void onUnassigned(String patientId, String doctorId) {
+        Set<String> docs = admittedDoctorsByPatient.get(patientId);
+        if (docs != null && docs.remove(doctorId)) {
+            adjust(doctorId, -1);
+            if (docs.isEmpty()) admittedDoctorsByPatient.remove(patientId);
+        }
+    }
+
+    private void adjust(String doctorId, int delta) {
+        LoadHeap h = heaps.get(specialistByDoctor.get(doctorId));
+        if (h != null) h.add(doctorId, delta);
+    }
+
+    private void addDoctor(String id, String specialist, int load) {
+        String k = key(specialist);
+        specialistByDoctor.put(id, k);
+        heaps.computeIfAbsent(k, x -> new LoadHeap()).insert(id, load);
+    }
+
+    private void removeDoctor(String id) {
+        String k = specialistByDoctor.remove(id);
+        LoadHeap h = k == null ? null : heaps.get(k);
+        if (h == null) return;
+        h.remove(id);
+        if (h.size == 0) heaps.remove(k);
+    }
+
+    // ----- patient admit/discharge -----
+
+    public EntityListener<Patient> patientListener() {
+        return new EntityListener<>() {
+            @Override public void onInserted(Patient p) { } // no assignments yet
+            @Override public void onUpdated(Patient p) { admitChanged(p.getId(), p.isAdmitted()); }
+            @Override public void onDeleted(String id) { admitChanged(id, false); }
+        };
+    }
+
+    private void admitChanged(String patientId, boolean admitted) {
+        // the DB lookup only happens on an actual admission, outside the monitor
+        List<String> doctors = admitted && !isTracked(patientId) ? assignments.findDoctorIds(patientId) : List.of();
+        synchronized (this) {
+            Set<String> current = admittedDoctorsByPatient.get(patientId);
+            if (!admitted) {
+                if (current == null) return;
+                for (String d : current) adjust(d, -1);
+                admittedDoctorsByPatient.remove(patientId);
+            } else if (current == null && !doctors.isEmpty()) {
+                admittedDoctorsByPatient.put(patientId, new HashSet<>(doctors));
+                for (String d : doctors) adjust(d, +1);
+            }
+        }
+    }
+
+    private synchronized boolean isTracked(String patientId) { return admittedDoctorsByPatient.containsKey(patientId); }
+
+    // ----- doctor roster -----
+
+    public EntityListener<Doctor> doctorListener() {
+        return new EntityListener<>() {
+            @Override public void onInserted(Doctor d) { putDoctor(d); }
+            @Override public void onUpdated(Doctor d) { putDoctor(d); }
+            @Override public void onDeleted(String id) {
+                synchronized (CaseloadBalancer.this) {
+                    removeDoctor(id);
+                    // a patient left with no doctors is no longer tracked, so admitChanged reloads them
+                    admittedDoctorsByPatient.values().removeIf(docs -> docs.remove(id) && docs.isEmpty());
+                }
+            }
+        };
+    }
+
+    // insert or move to another specialist's heap; a doctor already in the right heap is left alone
+    private synchronized void putDoctor(Doctor d) {
+        if (key(d.getSpecialist()).equals(specialistByDoctor.get(d.getId()))) return;
+        int load = admittedLoad(d.getId());
+        removeDoctor(d.getId());
+        addDoctor(d.getId(), d.getSpecialist(), load);
+    }
+
+    /** Indexed binary min-heap of (load, id). */
+    private static final class LoadHeap {
+        String[] ids = new String[8];
+        int[] loads = new int[8];
+        int size;
+        final Map<String, Integer> pos = new HashMap<>();
+
+        int load(String id) {
+            Integer i = pos.get(id);
+            return i == null ? 0 : loads[i];
+        }
+
+        void insert(String id, int load) {
+            if (pos.containsKey(id)) return;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                loads = Arrays.copyOf(loads, size * 2);
+            }
+            ids[size] = id;
+            loads[size] = load;
+            pos.put(id, size);
+            siftUp(size++);
+        }
+
+        void add(String id, int delta) {
+            Integer i = pos.get(id);
+            if (i == null) return;
+            loads[i] = Math.max(0, loads[i] + delta);
+            if (delta < 0) siftUp(i); else siftDown(i);
+        }
+
+        void remove(String id) {
+            Integer i = pos.remove(id);
+            if (i == null) return;
+            size--;
+            if (i == size) { ids[size] = null; return; }
+            ids[i] = ids[size];
+            loads[i] = loads[size];
+            ids[size] = null;
+            pos.put(ids[i], i);
+            siftUp(i);
+            siftDown(pos.get(ids[i]));
+        }
+
+        private boolean less(int a, int b) {
+            return loads[a] != loads[b] ? loads[a] < loads[b] : ids[a].compareTo(ids[b]) < 0;
+        }
+
+        private void swap(int a, int b) {
+            String id = ids[a]; ids[a] = ids[b]; ids[b] = id;
+            int l = loads[a]; loads[a] = loads[b]; loads[b] = l;
+            pos.put(ids[a], a);
+            pos.put(ids[b], b);
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!less(i, parent)) return;
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int l = 2 * i + 1, r = l + 1, min = i;
+                if (l < size && less(l, min)) min = l;
+                if (r < size && less(r, min)) min = r;
+                if (min == i) return;
+                swap(i, min);
+                i = min;
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+import java.time.LocalDate;
+
+public class CensusDay {
+    private final LocalDate day;
+    private final int admissions;
+    private final int discharges;
+    private final int census;
+
+    public CensusDay(LocalDate day, int admissions, int discharges, int census) {
+        this.day = day;
+        this.admissions = admissions;
+        this.discharges = discharges;
+        this.census = census;
+    }
+
+    public LocalDate getDay() { return day; }
+    public int getAdmissions() { return admissions; }
+    public int getDischarges() { return discharges; }
+    /** Admitted patients at the end of the day. */
+    public int getCensus() { return census; }
+}
@@ -0,0 +1,10 @@
+import java.time.LocalDate;
+import java.util.*;
+
+public interface CensusRepository {
+    /** One entry per day in [from, to]; days without events carry the previous census forward. */
+    List<CensusDay> findRange(LocalDate from, LocalDate to);
+    int currentCensus();
+    /** Mean days between a discharge in [from, to] and that patient's preceding admission. */
+    OptionalDouble averageLengthOfStay(LocalDate from, LocalDate to);
+}
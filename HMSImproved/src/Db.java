@@ -1,5 +1,6 @@
 import java.nio.file.*;
 import java.sql.*;
+import java.util.*;
 import javax.sql.DataSource;
 import org.sqlite.SQLiteDataSource;
 
@@ -11,19 +12,40 @@ public final class Db {
     public static DataSource get() {
         if (ds != null) return ds;
         try {
-            Path dbDir = Paths.get(System.getProperty("user.home"), ".hms");
+            Path dbDir = dataDir();
             Files.createDirectories(dbDir);
             String url = "jdbc:sqlite:" + dbDir.resolve("hms.db").toString();
             ds = new SQLiteDataSource();
             ds.setUrl(url);
+            configure(ds);
             return ds;
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
 
+    /** ~/.hms: the database file and everything stored beside it (audit archive, ...). */
+    public static Path dataDir() {
+        return Paths.get(System.getProperty("user.home"), ".hms");
+    }
+
+    /** Per-connection settings every HMS connection should have. */
+    public static void configure(SQLiteDataSource target) {
+        target.setBusyTimeout(5000);       // wait for a concurrent writer instead of failing with SQLITE_BUSY
+        target.setSynchronous("NORMAL");   // safe with WAL; avoids an fsync per committed write
+    }
+
     public static void bootstrap() {
-        try (Connection c = get().getConnection(); Statement s = c.createStatement()) {
+        bootstrap(get());
+    }
+
+    /** Creates/migrates the schema on any SQLite DataSource (tools point this at scratch files). */
+    public static void bootstrap(DataSource target) {
+        try (Connection c = target.getConnection(); Statement s = c.createStatement()) {
+            // WAL: readers never block the writer, so many desks can book concurrently
+            s.execute("PRAGMA journal_mode=WAL");
+
+
             // existing tables (unchanged)
             s.execute("CREATE TABLE IF NOT EXISTS patient(" +
                       "id TEXT PRIMARY KEY," +
@@ -41,6 +63,15 @@ public final class Db {
                       "qualification TEXT NOT NULL," +
                       "room INTEGER NOT NULL)");
 
+            // === Doctor schedule: doctor.work_time parsed into per-day minute ranges ===
+            s.execute("CREATE TABLE IF NOT EXISTS doctor_schedule(" +
+                      "doctor_id TEXT NOT NULL," +
+                      "day_of_week INTEGER NOT NULL," +     // 1=Mon .. 7=Sun
+                      "start_min INTEGER NOT NULL," +       // minutes after midnight, inclusive
+                      "end_min INTEGER NOT NULL," +         // exclusive
+                      "PRIMARY KEY(doctor_id, day_of_week, start_min))");
+            s.execute("CREATE INDEX IF NOT EXISTS idx_doctor_schedule_day ON doctor_schedule(day_of_week, start_min, end_min)");
+
             s.execute("CREATE TABLE IF NOT EXISTS staff(" +
                       "id TEXT PRIMARY KEY," +
                       "name TEXT NOT NULL," +
@@ -55,7 +86,9 @@ public final class Db {
                       "manufacturer TEXT NOT NULL," +
                       "expiry_date TEXT NOT NULL," +
                       "cost INTEGER NOT NULL," +
-                      "count INTEGER NOT NULL)");
+                      "count INTEGER NOT NULL," +
+                      "reorder_point INTEGER NOT NULL DEFAULT " + Medical.DEFAULT_REORDER_POINT + "," +
+                      "safety_stock INTEGER NOT NULL DEFAULT 0)");
 
             // If an old "medical" already existed *without* id → migrate it once
             migrateAddIdTextPk(c, "medical",
@@ -69,6 +102,8 @@ public final class Db {
                 // copy rows; set id = name for the legacy data
                 "INSERT INTO medical_new(id,name,manufacturer,expiry_date,cost,count) " +
                 "SELECT name, name, manufacturer, expiry_date, cost, count FROM medical");
+            // expiry sweeps read a date range instead of scanning every medicine
+            s.execute("CREATE INDEX IF NOT EXISTS idx_medical_expiry ON medical(date(expiry_date))");
             
             // === Facility table (aligns with Medical-style PK id as TEXT; UI enforces numeric) ===
             s.execute("CREATE TABLE IF NOT EXISTS facility(" +
@@ -94,223 +129,645 @@ public final class Db {
               action TEXT NOT NULL,         -- INSERT | UPDATE | DELETE
               entity_id TEXT,               -- the row's PK value
               old_values TEXT,              -- JSON of OLD.* (for UPDATE/DELETE)
-              new_values TEXT               -- JSON of NEW.* (for INSERT/UPDATE)
+              new_values TEXT,              -- JSON of NEW.* (for INSERT/UPDATE)
+              ts_ms INTEGER,                -- ts as epoch millis, for indexed time-range queries
+              delta INTEGER NOT NULL DEFAULT 0   -- 1: UPDATE row holding only the changed columns
             )""");
 
+            // updates since the entity's last full audit row; drives checkpointing in the UPDATE triggers
+            s.execute("""
+            CREATE TABLE IF NOT EXISTS audit_entity_version(
+              table_name TEXT NOT NULL,
+              entity_id TEXT NOT NULL,
+              updates INTEGER NOT NULL,
+              PRIMARY KEY(table_name, entity_id)
+            ) WITHOUT ROWID""");
+
             s.execute("CREATE INDEX IF NOT EXISTS idx_audit_table ON audit_log(table_name)");
             s.execute("CREATE INDEX IF NOT EXISTS idx_audit_entity ON audit_log(table_name, entity_id)");
 
-            // ---------------- Patient triggers ----------------
+            // === Stock movements: append-only ledger of count changes on medical (drives StockForecast) ===
+            // created ahead of migrate(), whose step 5 backfills it
             s.execute("""
-            CREATE TRIGGER IF NOT EXISTS trg_patient_ai
-            AFTER INSERT ON patient
-            BEGIN
-              INSERT INTO audit_log(table_name, action, entity_id, old_values, new_values)
-              VALUES ('patient','INSERT', NEW.id, NULL,
-                json_object('id',NEW.id,'name',NEW.name,'disease',NEW.disease,'sex',NEW.sex,'admit_status',NEW.admit_status,'age',NEW.age)
-              );
-            END;""");
+            CREATE TABLE IF NOT EXISTS stock_movement(
+              id INTEGER PRIMARY KEY AUTOINCREMENT,
+              medical_id TEXT NOT NULL,
+              day INTEGER NOT NULL,          -- UTC epoch day
+              delta INTEGER NOT NULL         -- NEW.count - OLD.count; negative = consumed
+            )""");
+            // covering: the forecast reads a day range straight off the index
+            s.execute("CREATE INDEX IF NOT EXISTS idx_stock_movement_day ON stock_movement(day, medical_id, delta)");
 
+            migrate(c);
+
+            // only the handful of medicines at or below their own reorder point are indexed;
+            // the view repeats the index predicate verbatim so the planner can use it
+            s.execute("CREATE INDEX IF NOT EXISTS idx_medical_below_reorder ON medical(count) WHERE count <= reorder_point");
+            s.execute("CREATE VIEW IF NOT EXISTS medical_below_reorder AS " +
+                      "SELECT id, name, manufacturer, expiry_date, cost, count, reorder_point, safety_stock " +
+                      "FROM medical WHERE count <= reorder_point");
+
+            s.execute("CREATE INDEX IF NOT EXISTS idx_audit_ts ON audit_log(ts_ms)");
+            s.execute("CREATE INDEX IF NOT EXISTS idx_audit_table_ts ON audit_log(table_name, ts_ms)");
+            s.execute("CREATE INDEX IF NOT EXISTS idx_audit_entity_ts ON audit_log(table_name, entity_id, ts_ms)");
+            auditJsonIndexes(c);
+
+            // === Audit archive catalog: immutable gzip JSONL segments under dataDir()/audit-archive ===
+            s.execute("""
+            CREATE TABLE IF NOT EXISTS audit_segment(
+              id INTEGER PRIMARY KEY AUTOINCREMENT,
+              file TEXT NOT NULL UNIQUE,     -- name inside the archive directory
+              first_id INTEGER NOT NULL,
+              last_id INTEGER NOT NULL,
+              min_ts_ms INTEGER NOT NULL,
+              max_ts_ms INTEGER NOT NULL,
+              cutoff_ms INTEGER NOT NULL,    -- rows in [first_id, last_id] with ts_ms < cutoff_ms are in the file
+              row_count INTEGER NOT NULL,
+              bytes INTEGER NOT NULL,
+              created_at TEXT NOT NULL DEFAULT (strftime('%Y-%m-%dT%H:%M:%fZ','now'))
+            )""");
+            // sparse index: one row per gzip member (block) of a segment
+            s.execute("""
+            CREATE TABLE IF NOT EXISTS audit_segment_block(
+              segment_id INTEGER NOT NULL REFERENCES audit_segment(id),
+              block_no INTEGER NOT NULL,
+              first_id INTEGER NOT NULL,
+              last_id INTEGER NOT NULL,
+              min_ts_ms INTEGER NOT NULL,
+              max_ts_ms INTEGER NOT NULL,
+              tables TEXT NOT NULL,          -- ',patient,staff,' : lets table-filtered reads skip blocks
+              offset INTEGER NOT NULL,
+              length INTEGER NOT NULL,
+              PRIMARY KEY(segment_id, block_no)
+            ) WITHOUT ROWID""");
+            s.execute("CREATE INDEX IF NOT EXISTS idx_audit_block_id ON audit_segment_block(last_id)");
+            s.execute("CREATE INDEX IF NOT EXISTS idx_audit_block_ts ON audit_segment_block(min_ts_ms)");
+
+            // === Audit hash chain: hash = SHA-256(previous hash || row), sealed in batches by AuditHashChain ===
             s.execute("""
-            CREATE TRIGGER IF NOT EXISTS trg_patient_au
-            AFTER UPDATE ON patient
+            CREATE TABLE IF NOT EXISTS audit_hash(
+              audit_id INTEGER PRIMARY KEY,  -- audit_log.id; kept after the row is archived
+              hash BLOB NOT NULL
+            )""");
+
+            // ---------------- Audit triggers (insert/update/delete on every entity table) ----------------
+            auditTriggers(s, "patient",  "id", "name", "disease", "sex", "admit_status", "age");
+            auditTriggers(s, "doctor",   "id", "name", "specialist", "work_time", "qualification", "room");
+            auditTriggers(s, "staff",    "id", "name", "designation", "sex", "salary");
+            auditTriggers(s, "medical",  "id", "name", "manufacturer", "expiry_date", "cost", "count", "reorder_point", "safety_stock");
+            auditTriggers(s, "facility", "id", "name", "description", "status", "capacity");
+            auditTriggers(s, "lab",      "id", "name", "status", "result");
+            
+            s.execute("CREATE TABLE IF NOT EXISTS notification(" +
+                    "id INTEGER PRIMARY KEY AUTOINCREMENT," +
+                    "created_at TEXT NOT NULL DEFAULT (datetime('now'))," +
+                    "severity TEXT NOT NULL," +
+                    "title TEXT NOT NULL," +
+                    "detail TEXT," +
+                    "seen INTEGER NOT NULL DEFAULT 0," +
+                    "kind TEXT NOT NULL DEFAULT 'GENERAL'," +   // alert type, e.g. LOW_STOCK
+                    "dedupe_key TEXT)");                         // kind:entity; NULL = never de-duplicated
+            // at most one unseen notification per key: INSERT OR IGNORE is the whole de-dupe, one index probe
+            s.execute("CREATE UNIQUE INDEX IF NOT EXISTS idx_notification_dedupe ON notification(dedupe_key) " +
+                      "WHERE seen = 0 AND dedupe_key IS NOT NULL");
+            // unseen-first reads in time order, and bulk acknowledge by kind
+            s.execute("CREATE INDEX IF NOT EXISTS idx_notification_seen_created ON notification(seen, created_at, id)");
+            s.execute("CREATE INDEX IF NOT EXISTS idx_notification_unseen_kind ON notification(kind) WHERE seen = 0");
+            // seen notifications past their TTL; same columns, no indexes beyond the key
+            s.execute("CREATE TABLE IF NOT EXISTS notification_archive(" +
+                    "id INTEGER PRIMARY KEY," +
+                    "created_at TEXT NOT NULL," +
+                    "severity TEXT NOT NULL," +
+                    "kind TEXT NOT NULL," +
+                    "title TEXT NOT NULL," +
+                    "detail TEXT," +
+                    "archived_at TEXT NOT NULL DEFAULT (datetime('now')))");
+
+            // === Appointments: one row per booked slot; the partial unique indexes make
+            // double-booking a doctor (or a patient) impossible even across processes ===
+            s.execute("""
+            CREATE TABLE IF NOT EXISTS appointment(
+              id INTEGER PRIMARY KEY AUTOINCREMENT,
+              patient_id TEXT NOT NULL,
+              doctor_id TEXT NOT NULL,
+              room INTEGER NOT NULL,         -- copied from doctor.room at booking time
+              slot_start TEXT NOT NULL,      -- local time 'YYYY-MM-DDTHH:MM'
+              slot_end TEXT NOT NULL,
+              status TEXT NOT NULL DEFAULT 'BOOKED',   -- BOOKED | CANCELLED
+              created_at TEXT NOT NULL DEFAULT (strftime('%Y-%m-%dT%H:%M:%fZ','now'))
+            )""");
+            s.execute("CREATE UNIQUE INDEX IF NOT EXISTS ux_appointment_doctor_slot ON appointment(doctor_id, slot_start) WHERE status='BOOKED'");
+            s.execute("CREATE UNIQUE INDEX IF NOT EXISTS ux_appointment_patient_slot ON appointment(patient_id, slot_start) WHERE status='BOOKED'");
+            s.execute("CREATE INDEX IF NOT EXISTS idx_appointment_day ON appointment(slot_start) WHERE status='BOOKED'");
+
+            // === Patient ↔ doctor assignments ===
+            // WITHOUT ROWID: the PK (patient_id, doctor_id) is the table, so doctors-by-patient is
+            // index-only; idx_assignment_doctor covers caseload-by-doctor including the admitted flag.
+            s.execute("""
+            CREATE TABLE IF NOT EXISTS patient_assignment(
+              patient_id TEXT NOT NULL,
+              doctor_id TEXT NOT NULL,
+              admitted INTEGER NOT NULL DEFAULT 0,   -- mirror of patient.admit_status, kept by trigger
+              assigned_at TEXT NOT NULL DEFAULT (strftime('%Y-%m-%dT%H:%M:%fZ','now')),
+              PRIMARY KEY(patient_id, doctor_id)
+            ) WITHOUT ROWID""");
+            s.execute("CREATE INDEX IF NOT EXISTS idx_assignment_doctor ON patient_assignment(doctor_id, admitted, patient_id)");
+
+            s.execute("""
+            CREATE TRIGGER IF NOT EXISTS trg_assignment_patient_au
+            AFTER UPDATE OF admit_status ON patient
             BEGIN
-              INSERT INTO audit_log(table_name, action, entity_id, old_values, new_values)
-              VALUES ('patient','UPDATE', NEW.id,
-                json_object('id',OLD.id,'name',OLD.name,'disease',OLD.disease,'sex',OLD.sex,'admit_status',OLD.admit_status,'age',OLD.age),
-                json_object('id',NEW.id,'name',NEW.name,'disease',NEW.disease,'sex',NEW.sex,'admit_status',NEW.admit_status,'age',NEW.age)
-              );
+              UPDATE patient_assignment
+                 SET admitted = (lower(trim(NEW.admit_status)) = 'admitted')
+               WHERE patient_id = NEW.id;
             END;""");
 
             s.execute("""
-            CREATE TRIGGER IF NOT EXISTS trg_patient_ad
+            CREATE TRIGGER IF NOT EXISTS trg_assignment_patient_ad
             AFTER DELETE ON patient
             BEGIN
-              INSERT INTO audit_log(table_name, action, entity_id, old_values, new_values)
-              VALUES ('patient','DELETE', OLD.id,
-                json_object('id',OLD.id,'name',OLD.name,'disease',OLD.disease,'sex',OLD.sex,'admit_status',OLD.admit_status,'age',OLD.age),
-                NULL
-              );
+              DELETE FROM patient_assignment WHERE patient_id = OLD.id;
             END;""");
 
-            // ---------------- Doctor triggers ----------------
             s.execute("""
-            CREATE TRIGGER IF NOT EXISTS trg_doctor_ai
-            AFTER INSERT ON doctor
+            CREATE TRIGGER IF NOT EXISTS trg_assignment_doctor_ad
+            AFTER DELETE ON doctor
             BEGIN
-              INSERT INTO audit_log(table_name, action, entity_id, old_values, new_values)
-              VALUES ('doctor','INSERT', NEW.id, NULL,
-                json_object('id',NEW.id,'name',NEW.name,'specialist',NEW.specialist,'work_time',NEW.work_time,'qualification',NEW.qualification,'room',NEW.room)
-              );
+              DELETE FROM patient_assignment WHERE doctor_id = OLD.id;
             END;""");
 
+            // === Admission/discharge events (append-only) + daily census rollup ===
             s.execute("""
-            CREATE TRIGGER IF NOT EXISTS trg_doctor_au
-            AFTER UPDATE ON doctor
-            BEGIN
-              INSERT INTO audit_log(table_name, action, entity_id, old_values, new_values)
-              VALUES ('doctor','UPDATE', NEW.id,
-                json_object('id',OLD.id,'name',OLD.name,'specialist',OLD.specialist,'work_time',OLD.work_time,'qualification',OLD.qualification,'room',OLD.room),
-                json_object('id',NEW.id,'name',NEW.name,'specialist',NEW.specialist,'work_time',NEW.work_time,'qualification',NEW.qualification,'room',NEW.room)
-              );
-            END;""");
+            CREATE TABLE IF NOT EXISTS admission_event(
+              id INTEGER PRIMARY KEY AUTOINCREMENT,
+              patient_id TEXT NOT NULL,
+              event TEXT NOT NULL,           -- ADMIT | DISCHARGE
+              ts TEXT NOT NULL DEFAULT (strftime('%Y-%m-%dT%H:%M:%fZ','now')),
+              day TEXT NOT NULL DEFAULT (date('now','localtime'))
+            )""");
+            s.execute("CREATE INDEX IF NOT EXISTS idx_admission_event_patient ON admission_event(patient_id, id)");
+            s.execute("CREATE INDEX IF NOT EXISTS idx_admission_event_day ON admission_event(day, event)");
 
             s.execute("""
-            CREATE TRIGGER IF NOT EXISTS trg_doctor_ad
-            AFTER DELETE ON doctor
+            CREATE TABLE IF NOT EXISTS census_daily(
+              day TEXT PRIMARY KEY,          -- local date YYYY-MM-DD
+              admissions INTEGER NOT NULL DEFAULT 0,
+              discharges INTEGER NOT NULL DEFAULT 0,
+              census INTEGER NOT NULL DEFAULT 0   -- admitted patients at end of day
+            ) WITHOUT ROWID""");
+
+            // first run: baseline today's census from the current patient table
+            s.execute("INSERT INTO census_daily(day, census) " +
+                      "SELECT date('now','localtime'), (SELECT COUNT(*) FROM patient WHERE lower(trim(admit_status))='admitted') " +
+                      "WHERE NOT EXISTS (SELECT 1 FROM census_daily)");
+
+            s.execute("""
+            CREATE TRIGGER IF NOT EXISTS trg_admission_patient_ai
+            AFTER INSERT ON patient
+            WHEN lower(trim(NEW.admit_status)) = 'admitted'
             BEGIN
-              INSERT INTO audit_log(table_name, action, entity_id, old_values, new_values)
-              VALUES ('doctor','DELETE', OLD.id,
-                json_object('id',OLD.id,'name',OLD.name,'specialist',OLD.specialist,'work_time',OLD.work_time,'qualification',OLD.qualification,'room',OLD.room),
-                NULL
-              );
+              INSERT INTO admission_event(patient_id, event) VALUES (NEW.id, 'ADMIT');
             END;""");
 
-            // ---------------- Staff triggers ----------------
             s.execute("""
-            CREATE TRIGGER IF NOT EXISTS trg_staff_ai
-            AFTER INSERT ON staff
+            CREATE TRIGGER IF NOT EXISTS trg_admission_patient_au
+            AFTER UPDATE OF admit_status ON patient
+            WHEN (lower(trim(OLD.admit_status)) = 'admitted') <> (lower(trim(NEW.admit_status)) = 'admitted')
             BEGIN
-              INSERT INTO audit_log(table_name, action, entity_id, old_values, new_values)
-              VALUES ('staff','INSERT', NEW.id, NULL,
-                json_object('id',NEW.id,'name',NEW.name,'designation',NEW.designation,'sex',NEW.sex,'salary',NEW.salary)
-              );
+              INSERT INTO admission_event(patient_id, event)
+              VALUES (NEW.id, CASE WHEN lower(trim(NEW.admit_status)) = 'admitted' THEN 'ADMIT' ELSE 'DISCHARGE' END);
             END;""");
 
             s.execute("""
-            CREATE TRIGGER IF NOT EXISTS trg_staff_au
-            AFTER UPDATE ON staff
+            CREATE TRIGGER IF NOT EXISTS trg_admission_patient_ad
+            AFTER DELETE ON patient
+            WHEN lower(trim(OLD.admit_status)) = 'admitted'
             BEGIN
-              INSERT INTO audit_log(table_name, action, entity_id, old_values, new_values)
-              VALUES ('staff','UPDATE', NEW.id,
-                json_object('id',OLD.id,'name',OLD.name,'designation',OLD.designation,'sex',OLD.sex,'salary',OLD.salary),
-                json_object('id',NEW.id,'name',NEW.name,'designation',NEW.designation,'sex',NEW.sex,'salary',NEW.salary)
-              );
+              INSERT INTO admission_event(patient_id, event) VALUES (OLD.id, 'DISCHARGE');
             END;""");
 
+            // each event bumps its day's rollup; a new day starts from the last known census
             s.execute("""
-            CREATE TRIGGER IF NOT EXISTS trg_staff_ad
-            AFTER DELETE ON staff
+            CREATE TRIGGER IF NOT EXISTS trg_census_event_ai
+            AFTER INSERT ON admission_event
             BEGIN
-              INSERT INTO audit_log(table_name, action, entity_id, old_values, new_values)
-              VALUES ('staff','DELETE', OLD.id,
-                json_object('id',OLD.id,'name',OLD.name,'designation',OLD.designation,'sex',OLD.sex,'salary',OLD.salary),
-                NULL
-              );
+              INSERT OR IGNORE INTO census_daily(day, census)
+              VALUES (NEW.day, COALESCE((SELECT census FROM census_daily WHERE day < NEW.day ORDER BY day DESC LIMIT 1), 0));
+              UPDATE census_daily
+                 SET admissions = admissions + (NEW.event = 'ADMIT'),
+                     discharges = discharges + (NEW.event = 'DISCHARGE'),
+                     census     = census + CASE NEW.event WHEN 'ADMIT' THEN 1 ELSE -1 END
+               WHERE day = NEW.day;
             END;""");
 
-            // ---------------- Medical triggers ----------------
             s.execute("""
-            CREATE TRIGGER IF NOT EXISTS trg_medical_ai
-            AFTER INSERT ON medical
+            CREATE TRIGGER IF NOT EXISTS trg_admission_event_bu
+            BEFORE UPDATE ON admission_event
             BEGIN
-              INSERT INTO audit_log(table_name, action, entity_id, old_values, new_values)
-              VALUES ('medical','INSERT', NEW.id, NULL,
-                json_object('id',NEW.id,'name',NEW.name,'manufacturer',NEW.manufacturer,'expiry_date',NEW.expiry_date,'cost',NEW.cost,'count',NEW.count)
-              );
+              SELECT RAISE(ABORT, 'admission_event is append-only');
             END;""");
 
             s.execute("""
-            CREATE TRIGGER IF NOT EXISTS trg_medical_au
-            AFTER UPDATE ON medical
+            CREATE TRIGGER IF NOT EXISTS trg_admission_event_bd
+            BEFORE DELETE ON admission_event
             BEGIN
-              INSERT INTO audit_log(table_name, action, entity_id, old_values, new_values)
-              VALUES ('medical','UPDATE', NEW.id,
-                json_object('id',OLD.id,'name',OLD.name,'manufacturer',OLD.manufacturer,'expiry_date',OLD.expiry_date,'cost',OLD.cost,'count',OLD.count),
-                json_object('id',NEW.id,'name',NEW.name,'manufacturer',NEW.manufacturer,'expiry_date',NEW.expiry_date,'cost',NEW.cost,'count',NEW.count)
-              );
+              SELECT RAISE(ABORT, 'admission_event is append-only');
             END;""");
 
+            // === Payroll summary per designation, kept current by staff triggers ===
+            s.execute("CREATE INDEX IF NOT EXISTS idx_staff_designation_salary ON staff(designation, salary)");
+            s.execute("""
+            CREATE TABLE IF NOT EXISTS payroll_summary(
+              designation TEXT PRIMARY KEY,
+              headcount INTEGER NOT NULL,
+              total_salary INTEGER NOT NULL,
+              min_salary INTEGER NOT NULL,
+              max_salary INTEGER NOT NULL
+            ) WITHOUT ROWID""");
+            s.execute("INSERT INTO payroll_summary(designation, headcount, total_salary, min_salary, max_salary) " +
+                      "SELECT designation, COUNT(*), SUM(salary), MIN(salary), MAX(salary) FROM staff " +
+                      "WHERE NOT EXISTS (SELECT 1 FROM payroll_summary) GROUP BY designation");
+
             s.execute("""
-            CREATE TRIGGER IF NOT EXISTS trg_medical_ad
-            AFTER DELETE ON medical
+            CREATE TRIGGER IF NOT EXISTS trg_payroll_staff_ai
+            AFTER INSERT ON staff
             BEGIN
-              INSERT INTO audit_log(table_name, action, entity_id, old_values, new_values)
-              VALUES ('medical','DELETE', OLD.id,
-                json_object('id',OLD.id,'name',OLD.name,'manufacturer',OLD.manufacturer,'expiry_date',OLD.expiry_date,'cost',OLD.cost,'count',OLD.count),
-                NULL
-              );
+              INSERT OR IGNORE INTO payroll_summary(designation, headcount, total_salary, min_salary, max_salary)
+              VALUES (NEW.designation, 0, 0, NEW.salary, NEW.salary);
+              UPDATE payroll_summary
+                 SET headcount = headcount + 1,
+                     total_salary = total_salary + NEW.salary,
+                     min_salary = MIN(min_salary, NEW.salary),
+                     max_salary = MAX(max_salary, NEW.salary)
+               WHERE designation = NEW.designation;
             END;""");
 
-            // ---------------- Facility triggers ----------------
+            // min/max only need a fresh look when the removed salary was the extreme;
+            // idx_staff_designation_salary makes that a single index seek
             s.execute("""
-            CREATE TRIGGER IF NOT EXISTS trg_facility_ai
-            AFTER INSERT ON facility
+            CREATE TRIGGER IF NOT EXISTS trg_payroll_staff_ad
+            AFTER DELETE ON staff
             BEGIN
-              INSERT INTO audit_log(table_name, action, entity_id, old_values, new_values)
-              VALUES ('facility','INSERT', NEW.id, NULL,
-                json_object('id',NEW.id,'name',NEW.name,'description',NEW.description,'status',NEW.status,'capacity',NEW.capacity)
-              );
+              UPDATE payroll_summary
+                 SET headcount = headcount - 1,
+                     total_salary = total_salary - OLD.salary,
+                     min_salary = CASE WHEN OLD.salary <= min_salary
+                                  THEN COALESCE((SELECT MIN(salary) FROM staff WHERE designation = OLD.designation), 0)
+                                  ELSE min_salary END,
+                     max_salary = CASE WHEN OLD.salary >= max_salary
+                                  THEN COALESCE((SELECT MAX(salary) FROM staff WHERE designation = OLD.designation), 0)
+                                  ELSE max_salary END
+               WHERE designation = OLD.designation;
+              DELETE FROM payroll_summary WHERE designation = OLD.designation AND headcount <= 0;
             END;""");
 
             s.execute("""
-            CREATE TRIGGER IF NOT EXISTS trg_facility_au
-            AFTER UPDATE ON facility
+            CREATE TRIGGER IF NOT EXISTS trg_payroll_staff_au
+            AFTER UPDATE OF designation, salary ON staff
+            WHEN OLD.designation IS NOT NEW.designation OR OLD.salary IS NOT NEW.salary
             BEGIN
-              INSERT INTO audit_log(table_name, action, entity_id, old_values, new_values)
-              VALUES ('facility','UPDATE', NEW.id,
-                json_object('id',OLD.id,'name',OLD.name,'description',OLD.description,'status',OLD.status,'capacity',OLD.capacity),
-                json_object('id',NEW.id,'name',NEW.name,'description',NEW.description,'status',NEW.status,'capacity',NEW.capacity)
-              );
+              UPDATE payroll_summary
+                 SET headcount = headcount - 1,
+                     total_salary = total_salary - OLD.salary,
+                     min_salary = CASE WHEN OLD.salary <= min_salary
+                                  THEN COALESCE((SELECT MIN(salary) FROM staff WHERE designation = OLD.designation), 0)
+                                  ELSE min_salary END,
+                     max_salary = CASE WHEN OLD.salary >= max_salary
+                                  THEN COALESCE((SELECT MAX(salary) FROM staff WHERE designation = OLD.designation), 0)
+                                  ELSE max_salary END
+               WHERE designation = OLD.designation;
+              DELETE FROM payroll_summary WHERE designation = OLD.designation AND headcount <= 0;
+              INSERT OR IGNORE INTO payroll_summary(designation, headcount, total_salary, min_salary, max_salary)
+              VALUES (NEW.designation, 0, 0, NEW.salary, NEW.salary);
+              UPDATE payroll_summary
+                 SET headcount = headcount + 1,
+                     total_salary = total_salary + NEW.salary,
+                     min_salary = MIN(min_salary, NEW.salary),
+                     max_salary = MAX(max_salary, NEW.salary)
+               WHERE designation = NEW.designation;
             END;""");
 
+            // === Inventory valuation (cost * count) by manufacturer and by expiry month ===
+            s.execute("""
+            CREATE TABLE IF NOT EXISTS stock_value_manufacturer(
+              manufacturer TEXT PRIMARY KEY,
+              items INTEGER NOT NULL,
+              units INTEGER NOT NULL,
+              value INTEGER NOT NULL
+            ) WITHOUT ROWID""");
+            s.execute("""
+            CREATE TABLE IF NOT EXISTS stock_value_expiry_month(
+              month TEXT PRIMARY KEY,        -- YYYY-MM, or 'unknown' when expiry_date does not parse
+              items INTEGER NOT NULL,
+              units INTEGER NOT NULL,
+              value INTEGER NOT NULL
+            ) WITHOUT ROWID""");
+            valuationRollup(s, "stock_value_manufacturer", "manufacturer", "%s.manufacturer");
+            valuationRollup(s, "stock_value_expiry_month", "month", "COALESCE(strftime('%%Y-%%m', %s.expiry_date), 'unknown')");
+
+            // === Stock movements: triggers (the table is created ahead of migrate(), which backfills it) ===
             s.execute("""
-            CREATE TRIGGER IF NOT EXISTS trg_facility_ad
-            AFTER DELETE ON facility
+            CREATE TRIGGER IF NOT EXISTS trg_stock_movement_medical_ai
+            AFTER INSERT ON medical
+            WHEN NEW.count <> 0
             BEGIN
-              INSERT INTO audit_log(table_name, action, entity_id, old_values, new_values)
-              VALUES ('facility','DELETE', OLD.id,
-                json_object('id',OLD.id,'name',OLD.name,'description',OLD.description,'status',OLD.status,'capacity',OLD.capacity),
-                NULL
-              );
+              INSERT INTO stock_movement(medical_id, day, delta)
+              VALUES (NEW.id, CAST(julianday('now') - 2440587.5 AS INTEGER), NEW.count);
             END;""");
-
-            // ---------------- Lab triggers ----------------
             s.execute("""
-            CREATE TRIGGER IF NOT EXISTS trg_lab_ai
-            AFTER INSERT ON lab
+            CREATE TRIGGER IF NOT EXISTS trg_stock_movement_medical_au
+            AFTER UPDATE OF count ON medical
+            WHEN NEW.count IS NOT OLD.count
             BEGIN
-              INSERT INTO audit_log(table_name, action, entity_id, old_values, new_values)
-              VALUES ('lab','INSERT', NEW.id, NULL,
-                json_object('id',NEW.id,'name',NEW.name,'status',NEW.status,'result',NEW.result)
-              );
+              INSERT INTO stock_movement(medical_id, day, delta)
+              VALUES (NEW.id, CAST(julianday('now') - 2440587.5 AS INTEGER), NEW.count - OLD.count);
             END;""");
 
             s.execute("""
-            CREATE TRIGGER IF NOT EXISTS trg_lab_au
-            AFTER UPDATE ON lab
+            CREATE TRIGGER IF NOT EXISTS trg_stock_movement_bu
+            BEFORE UPDATE ON stock_movement
             BEGIN
-              INSERT INTO audit_log(table_name, action, entity_id, old_values, new_values)
-              VALUES ('lab','UPDATE', NEW.id,
-                json_object('id',OLD.id,'name',OLD.name,'status',OLD.status,'result',OLD.result),
-                json_object('id',NEW.id,'name',NEW.name,'status',NEW.status,'result',NEW.result)
-              );
+              SELECT RAISE(ABORT, 'stock_movement is append-only');
             END;""");
 
             s.execute("""
-            CREATE TRIGGER IF NOT EXISTS trg_lab_ad
-            AFTER DELETE ON lab
+            CREATE TRIGGER IF NOT EXISTS trg_stock_movement_bd
+            BEFORE DELETE ON stock_movement
             BEGIN
-              INSERT INTO audit_log(table_name, action, entity_id, old_values, new_values)
-              VALUES ('lab','DELETE', OLD.id,
-                json_object('id',OLD.id,'name',OLD.name,'status',OLD.status,'result',OLD.result),
-                NULL
-              );
+              SELECT RAISE(ABORT, 'stock_movement is append-only');
             END;""");
-            
-            s.execute("CREATE TABLE IF NOT EXISTS notification(" +
-                    "id INTEGER PRIMARY KEY AUTOINCREMENT," +
-                    "created_at TEXT NOT NULL DEFAULT (datetime('now'))," +
-                    "severity TEXT NOT NULL," +
-                    "title TEXT NOT NULL," +
-                    "detail TEXT," +
-                    "seen INTEGER NOT NULL DEFAULT 0)");
+
+            // === Background jobs: last run per job (JobScheduler) ===
+            s.execute("""
+            CREATE TABLE IF NOT EXISTS job_run(
+              name TEXT PRIMARY KEY,
+              last_start_ms INTEGER NOT NULL,  -- epoch millis
+              last_ms INTEGER NOT NULL,        -- duration of the last run
+              last_error TEXT,                 -- NULL when the last run succeeded
+              runs INTEGER NOT NULL,
+              failures INTEGER NOT NULL
+            ) WITHOUT ROWID""");
+
+            backfillDoctorSchedules(c);
             
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
     }
 
+    /** SQL for the current time in epoch millis; same instant as audit_log.ts's default. */
+    static final String NOW_MS = "CAST(ROUND((julianday('now') - 2440587.5) * 86400000) AS INTEGER)";
+
+    /** Schema version stored in PRAGMA user_version; each step in migrate() raises it by one. */
+    static final int SCHEMA_VERSION = 5;
+
+    /** Every N-th audited UPDATE of an entity stores full old/new rows; the ones between are deltas. */
+    public static final int AUDIT_CHECKPOINT_EVERY = 16;
+
+    /** JSON keys of old_values/new_values searchable through an index; -Dhms.audit.jsonKeys=a,b adds more. */
+    static final List<String> AUDIT_JSON_KEYS = List.of("name", "salary", "disease", "admit_status", "status", "count");
+
+    public static List<String> auditJsonKeys() {
+        Set<String> keys = new LinkedHashSet<>(AUDIT_JSON_KEYS);
+        for (String k : System.getProperty("hms.audit.jsonKeys", "").split(",")) {
+            if (!k.isBlank()) keys.add(k.trim());
+        }
+        return List.copyOf(keys);
+    }
+
+    /**
+     * Generated column over audit_log for one JSON key ("jo_name" = old_values.name,
+     * "jn_name" = new_values.name), or null when the key is not configured and has no index.
+     */
+    public static String auditJsonColumn(String key, boolean newValues) {
+        if (!key.matches("[A-Za-z_][A-Za-z0-9_]*")) throw new IllegalArgumentException("not a column name: " + key);
+        return auditJsonKeys().contains(key) ? (newValues ? "jn_" : "jo_") + key : null;
+    }
+
+    // VIRTUAL columns cost nothing to store; each gets a partial index over the rows that carry the key.
+    // Indexes for keys dropped from the configuration are removed so audit writes stop paying for them.
+    private static void auditJsonIndexes(Connection c) throws SQLException {
+        List<String> keys = auditJsonKeys();
+        try (Statement s = c.createStatement()) {
+            for (String key : keys) {
+                for (boolean side : new boolean[] { false, true }) {
+                    String col = auditJsonColumn(key, side);
+                    if (!hasColumn(c, "audit_log", col)) {
+                        s.execute("ALTER TABLE audit_log ADD COLUMN " + col + " GENERATED ALWAYS AS (json_extract(" +
+                                  (side ? "new_values" : "old_values") + ", '$." + key + "')) VIRTUAL");
+                    }
+                    s.execute("CREATE INDEX IF NOT EXISTS idx_audit_" + col + " ON audit_log(table_name, " + col + ") " +
+                              "WHERE " + col + " IS NOT NULL");
+                }
+            }
+            List<String> stale = new ArrayList<>();
+            try (ResultSet rs = s.executeQuery("SELECT name FROM sqlite_master WHERE type='index' AND tbl_name='audit_log' " +
+                                               "AND (name LIKE 'idx_audit_jo_%' OR name LIKE 'idx_audit_jn_%')")) {
+                while (rs.next()) {
+                    String name = rs.getString(1);
+                    if (!keys.contains(name.substring("idx_audit_jo_".length()))) stale.add(name);
+                }
+            }
+            for (String name : stale) s.execute("DROP INDEX IF EXISTS " + name);
+        }
+    }
+
+    /** One-off data migrations for databases created by older builds, gated by PRAGMA user_version. */
+    private static void migrate(Connection c) throws SQLException {
+        int version = userVersion(c);
+        if (version > SCHEMA_VERSION) {
+            throw new IllegalStateException("database schema v" + version + " is newer than this build (v" + SCHEMA_VERSION + ")");
+        }
+        if (version < 1) {
+            // 1: audit_log.ts_ms — add the column, then backfill from ts in id batches so a
+            // large log never holds one long write transaction
+            if (!hasColumn(c, "audit_log", "ts_ms")) {
+                try (Statement s = c.createStatement()) { s.execute("ALTER TABLE audit_log ADD COLUMN ts_ms INTEGER"); }
+            }
+            long maxId;
+            try (Statement s = c.createStatement(); ResultSet rs = s.executeQuery("SELECT COALESCE(MAX(id),0) FROM audit_log")) {
+                maxId = rs.next() ? rs.getLong(1) : 0;
+            }
+            try (PreparedStatement ps = c.prepareStatement(
+                    "UPDATE audit_log SET ts_ms = CAST(ROUND((julianday(ts) - 2440587.5) * 86400000) AS INTEGER) " +
+                    "WHERE id > ? AND id <= ? AND ts_ms IS NULL")) {
+                for (long lo = 0; lo < maxId; lo += 50_000) {
+                    ps.setLong(1, lo);
+                    ps.setLong(2, lo + 50_000);
+                    ps.executeUpdate();
+                }
+            }
+            setUserVersion(c, 1);
+        }
+        if (version < 2) {
+            // 2: audit_log.delta — existing rows are all full copies, so the default 0 is right
+            if (!hasColumn(c, "audit_log", "delta")) {
+                try (Statement s = c.createStatement()) {
+                    s.execute("ALTER TABLE audit_log ADD COLUMN delta INTEGER NOT NULL DEFAULT 0");
+                }
+            }
+            setUserVersion(c, 2);
+        }
+        if (version < 3 && tableExists(c, "notification")) {
+            // 3: notification.kind / dedupe_key — keys rebuilt from the old "Low stock: ..." and
+            // "Expiring soon: ..." titles ("ID <id>, ..." details); duplicate unseen rows are marked
+            // seen so the partial unique index can be built
+            try (Statement s = c.createStatement()) {
+                if (!hasColumn(c, "notification", "kind")) {
+                    s.execute("ALTER TABLE notification ADD COLUMN kind TEXT NOT NULL DEFAULT 'GENERAL'");
+                }
+                if (!hasColumn(c, "notification", "dedupe_key")) {
+                    s.execute("ALTER TABLE notification ADD COLUMN dedupe_key TEXT");
+                }
+                s.execute("UPDATE notification SET kind = CASE " +
+                          "WHEN title LIKE 'Low stock:%' THEN '" + StockAlerts.KIND_LOW_STOCK + "' " +
+                          "WHEN title LIKE 'Expiring soon:%' THEN '" + StockAlerts.KIND_EXPIRING + "' ELSE kind END");
+                s.execute("UPDATE notification SET dedupe_key = kind || ':' || substr(detail, 4, instr(detail, ',') - 4) " +
+                          "WHERE kind <> 'GENERAL' AND detail LIKE 'ID %,%'");
+                s.execute("UPDATE notification SET seen = 1 WHERE seen = 0 AND dedupe_key IS NOT NULL AND id NOT IN (" +
+                          "SELECT MIN(id) FROM notification WHERE seen = 0 AND dedupe_key IS NOT NULL GROUP BY dedupe_key)");
+            }
+        }
+        if (version < 3) setUserVersion(c, 3);
+        if (version < 4) {
+            // 4: per-medicine reorder thresholds; the default keeps the old global "count <= 10" rule
+            if (!hasColumn(c, "medical", "reorder_point")) {
+                try (Statement s = c.createStatement()) {
+                    s.execute("ALTER TABLE medical ADD COLUMN reorder_point INTEGER NOT NULL DEFAULT " + Medical.DEFAULT_REORDER_POINT);
+                    s.execute("ALTER TABLE medical ADD COLUMN safety_stock INTEGER NOT NULL DEFAULT 0");
+                }
+            }
+            setUserVersion(c, 4);
+        }
+        if (version < 5) {
+            // 5: stock_movement history rebuilt from the count changes still held in the audit trail;
+            // a ledger filled by an older build's bootstrap is left as it is
+            try (Statement s = c.createStatement()) {
+                s.execute("INSERT INTO stock_movement(medical_id, day, delta) " +
+                          "SELECT entity_id, ts_ms / 86400000, " +
+                          "       json_extract(new_values, '$.count') - json_extract(old_values, '$.count') FROM audit_log " +
+                          "WHERE table_name = 'medical' AND action = 'UPDATE' AND ts_ms IS NOT NULL " +
+                          "  AND json_extract(new_values, '$.count') IS NOT json_extract(old_values, '$.count') " +
+                          "  AND json_extract(old_values, '$.count') IS NOT NULL AND json_extract(new_values, '$.count') IS NOT NULL " +
+                          "  AND NOT EXISTS (SELECT 1 FROM stock_movement) " +
+                          "ORDER BY id");
+            }
+            setUserVersion(c, 5);
+        }
+        if (userVersion(c) != SCHEMA_VERSION) {
+            throw new IllegalStateException("migrate() stopped at v" + userVersion(c) + ", expected v" + SCHEMA_VERSION);
+        }
+    }
+
+    private static int userVersion(Connection c) throws SQLException {
+        try (Statement s = c.createStatement(); ResultSet rs = s.executeQuery("PRAGMA user_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private static void setUserVersion(Connection c, int version) throws SQLException {
+        try (Statement s = c.createStatement()) { s.execute("PRAGMA user_version = " + version); }
+    }
+
+    /**
+     * (Re)creates trg_{table}_ai/_au/_ad, which copy each write on {@code table} into audit_log
+     * as json_object(...) of the given columns. Dropped first so databases created by older
+     * builds pick up the current trigger bodies.
+     *
+     * UPDATEs that change nothing are not logged. Other UPDATEs store only the changed
+     * columns (delta = 1), except every AUDIT_CHECKPOINT_EVERY-th update of an entity, and
+     * the first one seen for an entity with no tracked history, which store full rows.
+     * INSERT rows are always full, so replay always has a base.
+     */
+    private static void auditTriggers(Statement s, String table, String... cols) throws SQLException {
+        String version = "FROM audit_entity_version v WHERE v.table_name = '" + table + "' AND v.entity_id = NEW.id";
+        String checkpoint = "v.updates % " + AUDIT_CHECKPOINT_EVERY + " = 0";
+
+        StringBuilder changed = new StringBuilder();
+        for (String col : cols) {
+            if (changed.length() > 0) changed.append(" OR ");
+            changed.append("OLD.").append(col).append(" IS NOT NEW.").append(col);
+        }
+
+        s.execute("DROP TRIGGER IF EXISTS trg_" + table + "_ai");
+        s.execute("CREATE TRIGGER trg_" + table + "_ai AFTER INSERT ON " + table + "\n" +
+                  "BEGIN\n" +
+                  "  INSERT OR REPLACE INTO audit_entity_version(table_name, entity_id, updates) VALUES ('" + table + "', NEW.id, 0);\n" +
+                  "  INSERT INTO audit_log(table_name, action, entity_id, old_values, new_values, ts_ms)\n" +
+                  "  VALUES ('" + table + "','INSERT', NEW.id, NULL, " + json(cols, "NEW") + ", " + NOW_MS + ");\n" +
+                  "END;");
+
+        s.execute("DROP TRIGGER IF EXISTS trg_" + table + "_au");
+        s.execute("CREATE TRIGGER trg_" + table + "_au AFTER UPDATE ON " + table + "\n" +
+                  "WHEN " + changed + "\n" +
+                  "BEGIN\n" +
+                  // untracked entity starts at -1 so its first logged update lands on a checkpoint
+                  "  INSERT OR IGNORE INTO audit_entity_version(table_name, entity_id, updates) VALUES ('" + table + "', NEW.id, -1);\n" +
+                  "  UPDATE audit_entity_version SET updates = updates + 1 WHERE table_name = '" + table + "' AND entity_id = NEW.id;\n" +
+                  "  INSERT INTO audit_log(table_name, action, entity_id, old_values, new_values, ts_ms, delta)\n" +
+                  "  SELECT '" + table + "','UPDATE', NEW.id,\n" +
+                  "    CASE WHEN " + checkpoint + " THEN " + json(cols, "OLD") + " ELSE " + changedOnly(cols, "OLD") + " END,\n" +
+                  "    CASE WHEN " + checkpoint + " THEN " + json(cols, "NEW") + " ELSE " + changedOnly(cols, "NEW") + " END,\n" +
+                  "    " + NOW_MS + ", NOT (" + checkpoint + ")\n" +
+                  "  " + version + ";\n" +
+                  "END;");
+
+        s.execute("DROP TRIGGER IF EXISTS trg_" + table + "_ad");
+        s.execute("CREATE TRIGGER trg_" + table + "_ad AFTER DELETE ON " + table + "\n" +
+                  "BEGIN\n" +
+                  "  DELETE FROM audit_entity_version WHERE table_name = '" + table + "' AND entity_id = OLD.id;\n" +
+                  "  INSERT INTO audit_log(table_name, action, entity_id, old_values, new_values, ts_ms)\n" +
+                  "  VALUES ('" + table + "','DELETE', OLD.id, " + json(cols, "OLD") + ", NULL, " + NOW_MS + ");\n" +
+                  "END;");
+    }
+
+    // json_object of every column minus the unchanged ones ('$._' is a no-op path)
+    private static String changedOnly(String[] cols, String alias) {
+        StringBuilder b = new StringBuilder("json_remove(").append(json(cols, alias));
+        for (String col : cols) {
+            b.append(", CASE WHEN OLD.").append(col).append(" IS NEW.").append(col)
+             .append(" THEN '$.").append(col).append("' ELSE '$._' END");
+        }
+        return b.append(')').toString();
+    }
+
+    private static String json(String[] cols, String alias) {
+        StringBuilder b = new StringBuilder("json_object(");
+        for (int i = 0; i < cols.length; i++) {
+            if (i > 0) b.append(',');
+            b.append('\'').append(cols[i]).append("',").append(alias).append('.').append(cols[i]);
+        }
+        return b.append(')').toString();
+    }
+
+    /**
+     * Seeds {@code table} from medical on first run and installs the insert/update/delete
+     * triggers that move each row's items/units/value between buckets.
+     * {@code keyExpr} is a format with one %s for the NEW/OLD row alias.
+     */
+    private static void valuationRollup(Statement s, String table, String keyCol, String keyExpr) throws SQLException {
+        String fromMedical = String.format(keyExpr, "medical");
+        s.execute("INSERT INTO " + table + "(" + keyCol + ", items, units, value) " +
+                  "SELECT " + fromMedical + ", COUNT(*), SUM(count), SUM(cost * count) FROM medical " +
+                  "WHERE NOT EXISTS (SELECT 1 FROM " + table + ") GROUP BY " + fromMedical);
+
+        String add = String.format("""
+              INSERT OR IGNORE INTO %1$s(%2$s, items, units, value) VALUES (%3$s, 0, 0, 0);
+              UPDATE %1$s SET items = items + 1, units = units + NEW.count, value = value + NEW.cost * NEW.count
+               WHERE %2$s = %3$s;
+            """, table, keyCol, String.format(keyExpr, "NEW"));
+        String remove = String.format("""
+              UPDATE %1$s SET items = items - 1, units = units - OLD.count, value = value - OLD.cost * OLD.count
+               WHERE %2$s = %3$s;
+              DELETE FROM %1$s WHERE %2$s = %3$s AND items <= 0;
+            """, table, keyCol, String.format(keyExpr, "OLD"));
+
+        s.execute("CREATE TRIGGER IF NOT EXISTS trg_" + table + "_ai AFTER INSERT ON medical BEGIN\n" + add + "END;");
+        s.execute("CREATE TRIGGER IF NOT EXISTS trg_" + table + "_ad AFTER DELETE ON medical BEGIN\n" + remove + "END;");
+        s.execute("CREATE TRIGGER IF NOT EXISTS trg_" + table + "_au " +
+                  "AFTER UPDATE OF manufacturer, expiry_date, cost, count ON medical BEGIN\n" + remove + add + "END;");
+    }
+
     private static void migrateAddIdTextPk(Connection c, String table,
                                            String createNewSql, String copySql) throws SQLException {
         if (!tableExists(c, table)) return;      // brand-new install: nothing to migrate
@@ -325,6 +782,27 @@ public final class Db {
         }
     }
 
+    // Databases created before doctor_schedule existed: parse every work_time once.
+    private static void backfillDoctorSchedules(Connection c) throws SQLException {
+        try (Statement s = c.createStatement();
+             ResultSet rs = s.executeQuery("SELECT EXISTS(SELECT 1 FROM doctor_schedule)")) {
+            if (rs.next() && rs.getInt(1) == 1) return;
+        }
+        c.setAutoCommit(false);
+        try (Statement s = c.createStatement();
+             ResultSet rs = s.executeQuery("SELECT id, work_time FROM doctor")) {
+            while (rs.next()) {
+                SqlDoctorRepository.writeSchedule(c, rs.getString(1), WorkSchedule.parse(rs.getString(2)));
+            }
+            c.commit();
+        } catch (SQLException e) {
+            c.rollback();
+            throw e;
+        } finally {
+            c.setAutoCommit(true);
+        }
+    }
+
     private static boolean tableExists(Connection c, String table) throws SQLException {
         try (ResultSet rs = c.getMetaData().getTables(null, null, table, null)) {
             return rs.next();
@@ -333,7 +811,7 @@ public final class Db {
 
     private static boolean hasColumn(Connection c, String table, String col) throws SQLException {
         try (Statement s = c.createStatement();
-             ResultSet rs = s.executeQuery("PRAGMA table_info(" + table + ")")) {
+             ResultSet rs = s.executeQuery("PRAGMA table_xinfo(" + table + ")")) {   // xinfo: generated columns too
             while (rs.next()) if (col.equalsIgnoreCase(rs.getString("name"))) return true;
             return false;
         }
@@ -0,0 +1,156 @@
+import java.sql.*;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import javax.sql.DataSource;
+
+/**
+ * In-memory availability index over the parsed doctor_schedule rows.
+ *
+ * One interval tree per specialist (plus one over everybody) keyed by minute-of-week,
+ * so "which cardiologists are on shift Tuesday 14:30" never touches other doctors.
+ * Kept current through {@link EntityListener} callbacks from SqlDoctorRepository and,
+ * for writes made by other instances, the audit change feed; a doctor whose specialist
+ * and shifts did not change is skipped, so a replayed write costs nothing, and only the
+ * trees of the specialists involved in a change are rebuilt.
+ */
+public final class DoctorAvailability implements EntityListener<Doctor> {
+    private static final String ANY = "";
+
+    private final Map<String, List<WorkSchedule.Interval>> shiftsByDoctor = new HashMap<>();
+    private final Map<String, String> specialistByDoctor = new HashMap<>();
+    private final Map<String, Set<String>> doctorsBySpecialist = new HashMap<>();
+    private final Map<String, IntervalTree<String>> treeBySpecialist = new HashMap<>();
+
+    public static DoctorAvailability load(DataSource ds) {
+        DoctorAvailability a = new DoctorAvailability();
+        String sql = "SELECT d.id, d.specialist, s.day_of_week, s.start_min, s.end_min " +
+                     "FROM doctor d LEFT JOIN doctor_schedule s ON s.doctor_id = d.id";
+        try (Connection c = ds.getConnection(); PreparedStatement ps = c.prepareStatement(sql); ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                String id = rs.getString(1);
+                a.specialistByDoctor.put(id, key(rs.getString(2)));
+                List<WorkSchedule.Interval> shifts = a.shiftsByDoctor.computeIfAbsent(id, k -> new ArrayList<>());
+                if (rs.getObject(3) != null) {
+                    shifts.add(new WorkSchedule.Interval(DayOfWeek.of(rs.getInt(3)), rs.getInt(4), rs.getInt(5)));
+                }
+            }
+        } catch (SQLException e) { throw new RuntimeException(e); }
+
+        for (Map.Entry<String, String> e : a.specialistByDoctor.entrySet()) {
+            a.shiftsByDoctor.get(e.getKey()).sort(Comparator.comparingInt(WorkSchedule.Interval::weekStart));
+            a.doctorsBySpecialist.computeIfAbsent(e.getValue(), k -> new HashSet<>()).add(e.getKey());
+            a.doctorsBySpecialist.computeIfAbsent(ANY, k -> new HashSet<>()).add(e.getKey());
+        }
+        for (String spec : a.doctorsBySpecialist.keySet()) a.rebuild(spec);
+        return a;
+    }
+
+    private static String key(String specialist) {
+        return specialist == null ? ANY : specialist.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static int minuteOfWeek(DayOfWeek day, LocalTime time) {
+        return (day.getValue() - 1) * WorkSchedule.MINUTES_PER_DAY + time.getHour() * 60 + time.getMinute();
+    }
+
+    /** Doctor ids on shift at the given moment; a blank specialist means any. */
+    public synchronized List<String> availableAt(String specialist, DayOfWeek day, LocalTime time) {
+        IntervalTree<String> tree = treeBySpecialist.get(key(specialist));
+        if (tree == null) return List.of();
+        List<String> ids = tree.stab(minuteOfWeek(day, time));
+        Collections.sort(ids);
+        return ids;
+    }
+
+    public synchronized boolean isOnShift(String doctorId, LocalDateTime at) {
+        int m = minuteOfWeek(at.getDayOfWeek(), at.toLocalTime());
+        for (WorkSchedule.Interval i : shiftsByDoctor.getOrDefault(doctorId, List.of())) {
+            if (i.weekStart() <= m && m < i.weekEnd()) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Start of the doctor's next on-shift minute at or after {@code from}
+     * (i.e. {@code from} itself when already on shift); empty if the doctor has no schedule.
+     */
+    public synchronized Optional<LocalDateTime> nextFreeSlot(String doctorId, LocalDateTime from) {
+        List<WorkSchedule.Interval> shifts = shiftsByDoctor.get(doctorId);
+        if (shifts == null || shifts.isEmpty()) return Optional.empty();
+
+        LocalDateTime base = from.truncatedTo(ChronoUnit.MINUTES);
+        int m = minuteOfWeek(base.getDayOfWeek(), base.toLocalTime());
+        // shifts are sorted by weekStart: binary-search the first one that ends after m
+        int lo = 0, hi = shifts.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (shifts.get(mid).weekEnd() <= m) lo = mid + 1; else hi = mid;
+        }
+        int target;
+        long plusMinutes;
+        if (lo < shifts.size()) {
+            target = Math.max(m, shifts.get(lo).weekStart());
+            plusMinutes = target - m;
+        } else {
+            // wrap to next week's first shift
+            target = shifts.get(0).weekStart();
+            plusMinutes = WorkSchedule.MINUTES_PER_WEEK - m + target;
+        }
+        return Optional.of(base.plusMinutes(plusMinutes));
+    }
+
+    public synchronized List<WorkSchedule.Interval> shiftsOf(String doctorId) {
+        return List.copyOf(shiftsByDoctor.getOrDefault(doctorId, List.of()));
+    }
+
+    // ----- EntityListener -----
+
+    @Override public void onInserted(Doctor d) { put(d); }
+    @Override public void onUpdated(Doctor d) { put(d); }
+
+    @Override public synchronized void onDeleted(String id) {
+        String spec = specialistByDoctor.remove(id);
+        shiftsByDoctor.remove(id);
+        if (spec == null) return;
+        doctorsBySpecialist.getOrDefault(spec, new HashSet<>()).remove(id);
+        doctorsBySpecialist.getOrDefault(ANY, new HashSet<>()).remove(id);
+        rebuild(spec);
+        rebuild(ANY);
+    }
+
+    private synchronized void put(Doctor d) {
+        String spec = key(d.getSpecialist());
+        List<WorkSchedule.Interval> shifts = WorkSchedule.parse(d.getWorkTime());
+        String oldSpec = specialistByDoctor.put(d.getId(), spec);
+        List<WorkSchedule.Interval> oldShifts = shiftsByDoctor.put(d.getId(), shifts);
+        if (spec.equals(oldSpec) && shifts.equals(oldShifts)) return; // name/room edits: nothing to do
+
+        if (oldSpec != null && !oldSpec.equals(spec)) {
+            doctorsBySpecialist.getOrDefault(oldSpec, new HashSet<>()).remove(d.getId());
+            rebuild(oldSpec);
+        }
+        doctorsBySpecialist.computeIfAbsent(spec, k -> new HashSet<>()).add(d.getId());
+        doctorsBySpecialist.computeIfAbsent(ANY, k -> new HashSet<>()).add(d.getId());
+        rebuild(spec);
+        rebuild(ANY);
+    }
+
+    private void rebuild(String spec) {
+        Set<String> ids = doctorsBySpecialist.get(spec);
+        if (ids == null || ids.isEmpty()) {
+            treeBySpecialist.remove(spec);
+            doctorsBySpecialist.remove(spec);
+            return;
+        }
+        IntervalTree.Builder<String> b = IntervalTree.builder();
+        for (String id : ids) {
+            for (WorkSchedule.Interval i : shiftsByDoctor.getOrDefault(id, List.of())) {
+                b.add(i.weekStart(), i.weekEnd(), id);
+            }
+        }
+        treeBySpecialist.put(spec, b.build());
+    }
+}
@@ -3,6 +3,8 @@ import java.util.*;
 public interface DoctorRepository {
     Optional<Doctor> findById(String id);
     List<Doctor> findAll();
+    /** Doctors with the given ids, in no particular order; unknown ids are skipped. */
+    List<Doctor> findByIds(Collection<String> ids);
     boolean insert(Doctor d);
     boolean update(Doctor d);
     boolean delete(String id);
@@ -0,0 +1,10 @@
+/**
+ * Callback used by the Sql*Repository classes so in-memory views
+ * (availability index, caseload heap, cubes...) stay in sync with writes
+ * without re-reading whole tables.
+ */
+public interface EntityListener<T> {
+    void onInserted(T entity);
+    void onUpdated(T entity);
+    void onDeleted(String id);
+}
@@ -7,6 +7,9 @@ import java.util.List;
 import javax.sql.DataSource;
 import javafx.application.Application;
 import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Node;
@@ -14,6 +17,9 @@ import javafx.scene.Scene;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.ListView;
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
 import javafx.scene.control.TextField;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Alert.AlertType;
@@ -65,6 +71,19 @@ public class HospitalManagement extends Application {
 	private SqlLabRepository labRepo;
 	private SqlFacilityRepository facilityRepo;
 	private AuditLogRepository auditRepo;
+	private DoctorAvailability doctorAvailability;
+	private SqlAppointmentRepository appointmentRepo;
+	private SqlAssignmentRepository assignmentRepo;
+	private CensusRepository censusRepo;
+	private PatientCube patientCube;
+	private PayrollRepository payrollRepo;
+	private ValuationRepository valuationRepo;
+	private AuditChangeFeed changeFeed;
+	private AuditHashChain auditChain;
+	private StockAlerts stockAlerts;
+	private StockForecast stockForecast;
+	private NotificationRepository notificationRepo;
+	private CaseloadBalancer caseloadBalancer;
 	
 	// ===== Consistent colors by entity (shared across charts) =====
 	private static final java.util.Map<String, String> ENTITY_COLORS = java.util.Map.of(
@@ -80,39 +99,36 @@ public class HospitalManagement extends Application {
 	// --- Toast/alerts infra ---
 	private StackPane mainRoot;              // main menu root so we can overlay toasts
 	private VBox toastArea;                  // bottom-right toast stack
-	private final java.util.ArrayDeque<Runnable> toastQueue = new java.util.ArrayDeque<>();
-	// serialize lightweightChecks so it never runs concurrently
-	private final java.util.concurrent.locks.ReentrantLock checkLock = new java.util.concurrent.locks.ReentrantLock();
+	private final java.util.ArrayDeque<ToastGroup> toastQueue = new java.util.ArrayDeque<>();  // groups waiting for a slot
+	private final java.util.Map<String, ToastGroup> toastGroups = new java.util.HashMap<>();      // kind -> queued or visible group
+	private final TokenBucket toastLimiter = new TokenBucket(TOAST_BURST, TOAST_PER_SECOND);
+	private javafx.animation.PauseTransition toastRetry;   // pending pump while the limiter is empty
+	private long lastQueuedAlertId;          // newest notification already queued as a toast
 	private boolean goToMedicalListAfterOpen = false;  // navigation flag after opening Medical UI
 
-	// A tiny DTO for notifications we fetch from DB
-	private static final class NotificationRow {
-	    final int id; final String severity; final String title; final String detail;
-	    NotificationRow(int id, String sev, String t, String d) { this.id = id; this.severity = sev; this.title = t; this.detail = d; }
-	}
 	
 	// Patient section state (IDs selected from ListView etc.)
-	private ListView<String> patientListView;
+	private TableView<Patient> patientTable;
 	private String selectedPatientId;
 
 	// Staff section
-	private ListView<String> staffListView;
+	private TableView<Staff> staffTable;
 	private String selectedStaffId;
 
 	// Doctor section
-	private ListView<String> doctorListView;
+	private TableView<Doctor> doctorTable;
 	private String selectedDoctorId;
 
 	// Medical section
-	private ListView<String> medicalListView;
+	private TableView<Medical> medicalTable;
 	private String selectedMedicalId;
 
 	// Lab section
-	private ListView<String> labListView;
+	private TableView<Lab> labTable;
 	private String selectedLabId;
 
 	// Facility section
-	private ListView<String> facilityListView;
+	private TableView<Facility> facilityTable;
 	private String selectedFacilityId;
 
 	// Keep original "Add" handlers so we can restore after "Update" flow swaps
@@ -168,8 +184,8 @@ public class HospitalManagement extends Application {
 	    return LocalDateTime.now().format(dtf);
 	}
 
-	private ListView<String> makeBWListView() {
-	    ListView<String> lv = new ListView<>();
+	private <T> ListView<T> makeBWListView() {
+	    ListView<T> lv = new ListView<>();
 	    lv.setStyle(
 	        "-fx-control-inner-background: " + GREY_BG + ";" +
 	        "-fx-font-family: 'Courier New', monospace;" +
@@ -180,6 +196,130 @@ public class HospitalManagement extends Application {
 	    return lv;
 	}
 
+	private static final String EDITS_KEY = "hms.edits";
+
+	// one worker shared by every screen's refresh, so repeated clicks queue instead of each starting a thread
+	private final java.util.concurrent.ExecutorService refreshExec = java.util.concurrent.Executors.newSingleThreadExecutor(r -> {
+	    Thread t = new Thread(r, "list-refresh");
+	    t.setDaemon(true);
+	    return t;
+	});
+
+	// on-demand heavy work (reorder simulation, audit chain verification); its own worker so
+	// a long run never holds up list refreshes, and the buttons stay disabled while queued
+	private final java.util.concurrent.ExecutorService computeExec = java.util.concurrent.Executors.newSingleThreadExecutor(r -> {
+	    Thread t = new Thread(r, "hms-compute");
+	    t.setDaemon(true);
+	    return t;
+	});
+
+	// Entity screens: virtualised, sortable and resizable; rows are the domain objects themselves
+	private <T> TableView<T> makeBWTableView(List<TableColumn<T, ?>> columns) {
+	    TableView<T> tv = new TableView<>();
+	    tv.getColumns().addAll(columns);
+	    tv.setColumnResizePolicy(TableView.UNCONSTRAINED_RESIZE_POLICY);
+	    tv.setPlaceholder(new Label("No records"));
+	    long[] edits = new long[1];   // bumped on every change to the rows; see refreshRows
+	    tv.getItems().addListener((ListChangeListener<T>) c -> edits[0]++);
+	    tv.getProperties().put(EDITS_KEY, edits);
+	    // rows are kept in id order whenever no column sort is active (patchRow binary-searches
+	    // them), so clearing the last sort puts that order back; the first column is the id column
+	    TableColumn<T, ?> idCol = columns.get(0);
+	    tv.getSortOrder().addListener((ListChangeListener<TableColumn<T, ?>>) c -> {
+	        if (tv.getSortOrder().isEmpty()) {
+	            FXCollections.sort(tv.getItems(), (a, b) -> cmpId(String.valueOf(idCol.getCellData(a)), String.valueOf(idCol.getCellData(b))));
+	        }
+	    });
+	    tv.setStyle(
+	        "-fx-control-inner-background: " + GREY_BG + ";" +
+	        "-fx-font-family: " + FONT_FAMILY + ";" +
+	        "-fx-font-size: 13px;" +
+	        "-fx-border-color: " + FG_BLACK + ";" +
+	        "-fx-border-width: 1px;"
+	    );
+	    return tv;
+	}
+
+	// Boxed values sort by type (ints numerically); nulls render blank
+	private static <T, V> TableColumn<T, V> column(String title, double width, java.util.function.Function<T, V> value) {
+	    TableColumn<T, V> col = new TableColumn<>(title);
+	    col.setPrefWidth(width);
+	    col.setCellValueFactory(c -> new ReadOnlyObjectWrapper<>(value.apply(c.getValue())));
+	    return col;
+	}
+
+	private <T> TableColumn<T, String> idColumn(java.util.function.Function<T, String> idOf) {
+	    TableColumn<T, String> col = column("ID", 90, idOf);
+	    col.setComparator(this::cmpId);
+	    return col;
+	}
+
+	// Full load in id order; a column sort the user picked is re-applied on top
+	private <T> void setRows(TableView<T> tv, List<T> rows, java.util.function.Function<T, String> idOf) {
+	    List<T> sorted = new ArrayList<>(rows);
+	    sorted.sort((a, b) -> cmpId(idOf.apply(a), idOf.apply(b)));
+	    tv.getItems().setAll(sorted);
+	    if (!tv.getSortOrder().isEmpty()) tv.sort();
+	}
+
+	// Reload that keeps scroll position and selection: the snapshot is taken here, the load
+	// and keyed diff run on a worker, and only changed rows are touched back on the FX
+	// thread. If the rows moved in the meantime (feed patch, column sort, another refresh)
+	// the diff no longer lines up and the fresh rows are loaded in full instead.
+	private <T> void refreshRows(TableView<T> tv, java.util.function.Supplier<List<T>> load,
+	                             java.util.function.Function<T, String> idOf) {
+	    List<T> before = new ArrayList<>(tv.getItems());
+	    List<TableColumn<T, ?>> cols = new ArrayList<>(tv.getColumns());
+	    long stamp = edits(tv);
+	    refreshExec.execute(() -> {
+	        List<T> after;
+	        ListDiff<T> diff;
+	        try {
+	            after = new ArrayList<>(load.get());
+	            after.sort((a, b) -> cmpId(idOf.apply(a), idOf.apply(b)));
+	            diff = ListDiff.between(before, after, idOf, (a, b) -> sameCells(cols, a, b));
+	        } catch (RuntimeException ex) {
+	            Platform.runLater(() -> showInfo("Refresh", "Could not load records: " + ex.getMessage()));
+	            return;
+	        }
+	        Platform.runLater(() -> {
+	            T selected = tv.getSelectionModel().getSelectedItem();
+	            boolean sorted = !tv.getSortOrder().isEmpty();
+	            if (edits(tv) != stamp) {
+	                setRows(tv, after, idOf);
+	            } else if (!diff.isEmpty()) {
+	                diff.applyTo(tv.getItems(), sorted ? null : (a, b) -> cmpId(idOf.apply(a), idOf.apply(b)));
+	                if (sorted) tv.sort();
+	            }
+	            // a replaced row drops out of the selection; find its replacement by id
+	            if (selected != null && tv.getSelectionModel().isEmpty()) {
+	                String id = idOf.apply(selected);
+	                List<T> items = tv.getItems();
+	                for (int i = 0; i < items.size(); i++) {
+	                    if (id.equals(idOf.apply(items.get(i)))) {
+	                        tv.getSelectionModel().select(i);
+	                        break;
+	                    }
+	                }
+	            }
+	        });
+	    });
+	}
+
+	private static long edits(TableView<?> tv) {
+	    return ((long[]) tv.getProperties().get(EDITS_KEY))[0];
+	}
+
+	// A row counts as changed when any column would show something different
+	private static <T> boolean sameCells(List<TableColumn<T, ?>> cols, T a, T b) {
+	    for (TableColumn<T, ?> col : cols) {
+	        if (!java.util.Objects.equals(col.getCellObservableValue(a).getValue(), col.getCellObservableValue(b).getValue())) {
+	            return false;
+	        }
+	    }
+	    return true;
+	}
+
 	private boolean confirm(String title, String message) {
 	    // If you already have a shared confirm(...) for Medical, reuse that and delete this.
 	    javafx.scene.control.Alert a = new javafx.scene.control.Alert(javafx.scene.control.Alert.AlertType.CONFIRMATION);
@@ -190,42 +330,631 @@ public class HospitalManagement extends Application {
 	    return res.isPresent() && res.get() == javafx.scene.control.ButtonType.OK;
 	}
 	
+	// Audit viewer: header rows are paged by id keyset in both directions as the list
+	// scrolls (at most AUDIT_WINDOW rows held), fetched on the refresh worker so the
+	// scroll bar never waits on SQLite; JSON payloads are loaded only for the selected row.
+	private static final int AUDIT_PAGE = 100;
+	private static final int AUDIT_WINDOW = 500;
+	private static final int MAX_TOASTS = 3;            // toast nodes on screen at once
+	private static final int TOAST_BURST = 3;           // limiter: toasts allowed back to back...
+	private static final double TOAST_PER_SECOND = 0.5; // ...then one every 2 s
+	private static final int TOAST_DETAIL_ROWS = 50;    // rows listed when a summary toast is expanded
+
 	private void showAuditLogPopup() {
-	    // small, read-only window with recent log lines
-	    ListView<String> lv = makeBWListView();
+	    ListView<AuditLog> lv = makeBWListView();
 	    lv.setMinHeight(260);
-	    lv.setStyle(lv.getStyle() + "-fx-font-size: 12px;"); // compact
-
-	    Label header = new Label("TIMESTAMP                                             TABLE              ACTION           ENTITY");
-	    header.setStyle("-fx-text-fill: #000000; -fx-font-weight: bold;");
-	    BorderPane.setMargin(header, new Insets(8));
-
-	    lv.getItems().clear();
-	    if (auditRepo != null) {
-	        var logs = auditRepo.findRecent(120); // last 120 entries
-	        for (AuditLog a : logs) {
+	    lv.setStyle(lv.getStyle() + "-fx-font-size: 12px; -fx-font-family: 'Courier New', monospace;");
+	    lv.setCellFactory(v -> new javafx.scene.control.ListCell<>() {
+	        @Override protected void updateItem(AuditLog a, boolean empty) {
+	            super.updateItem(a, empty);
+	            if (empty || a == null) { setText(null); return; }
 	            String ts = ns(a.getTs());
 	            if (ts.length() > 23) ts = ts.substring(0, 23);
-	            String row = String.format("%-30s %-10s %-10s %-10s",
-	                    ts,
-	                    ns(a.getTableName()),
-	                    ns(a.getAction()),
-	                    ns(a.getEntityId()));
-	            lv.getItems().add(row);
+	            setText(String.format("%-10d %-23s %-10s %-7s %s", a.getId(), ts, ns(a.getTableName()), ns(a.getAction()), ns(a.getEntityId())));
 	        }
-	    }
+	    });
 
+	    Label header = new Label(String.format("%-10s %-23s %-10s %-7s %s", "ID", "TIMESTAMP", "TABLE", "ACTION", "ENTITY"));
+	    header.setStyle("-fx-text-fill: #000000; -fx-font-weight: bold; -fx-font-family: 'Courier New', monospace;");
+
+	    TextField tableTf = textField("Table filter (blank = all, Enter to apply)");
+	    Button latestBtn = menuButton("Latest");
+	    Button verifyBtn = menuButton("Verify Chain");
+	    Button searchBtn = menuButton("Search Values");
+	    javafx.scene.control.TextArea detail = new javafx.scene.control.TextArea();
+	    detail.setEditable(false);
+	    detail.setPrefRowCount(7);
+	    detail.setStyle("-fx-font-family: 'Courier New', monospace; -fx-font-size: 12px;");
+
+	    java.util.function.Supplier<String> table = () -> tableTf.getText().isBlank() ? null : tableTf.getText().trim();
+	    java.util.function.Supplier<Integer> firstVisible = () -> {
+	        Node flow = lv.lookup(".virtual-flow");
+	        if (flow instanceof javafx.scene.control.skin.VirtualFlow<?> vf && vf.getFirstVisibleCell() != null) {
+	            return vf.getFirstVisibleCell().getIndex();
+	        }
+	        return 0;
+	    };
+	    boolean[] loading = { false };   // a page is in flight; scrolling does not ask for another
+	    long[] generation = { 0 };        // bumped by loadLatest so pages for an older filter are dropped
+
+	    // runs the query on the refresh worker, then hands the page to `apply` on the FX thread
+	    java.util.function.BiConsumer<java.util.function.Supplier<List<AuditLog>>, java.util.function.Consumer<List<AuditLog>>> fetch =
+	        (query, apply) -> {
+	            long gen = generation[0];
+	            loading[0] = true;
+	            refreshExec.execute(() -> {
+	                List<AuditLog> page;
+	                String error = null;
+	                try {
+	                    page = query.get();
+	                } catch (RuntimeException ex) {
+	                    page = List.of();
+	                    error = ex.getMessage();
+	                }
+	                List<AuditLog> rows = page;
+	                String failed = error;
+	                Platform.runLater(() -> {
+	                    if (gen != generation[0]) return;   // superseded; the newer load clears `loading`
+	                    loading[0] = false;
+	                    if (failed != null) detail.setText("Could not load audit rows: " + failed);
+	                    else apply.accept(rows);
+	                });
+	            });
+	        };
+
+	    Runnable loadLatest = () -> {
+	        generation[0]++;
+	        String t = table.get();
+	        fetch.accept(() -> auditRepo.findHeadersBefore(t, Long.MAX_VALUE, AUDIT_PAGE), page -> {
+	            lv.getItems().setAll(page);
+	            detail.clear();
+	            lv.scrollTo(0);
+	        });
+	    };
+
+	    Runnable loadOlder = () -> {
+	        var items = lv.getItems();
+	        if (items.isEmpty()) return;
+	        long before = items.get(items.size() - 1).getId();
+	        String t = table.get();
+	        fetch.accept(() -> auditRepo.findHeadersBefore(t, before, AUDIT_PAGE), page -> {
+	            if (page.isEmpty()) return;
+	            int top = firstVisible.get();
+	            items.addAll(page);
+	            int drop = Math.max(0, items.size() - AUDIT_WINDOW);
+	            if (drop > 0) {
+	                items.remove(0, drop);
+	                lv.scrollTo(Math.max(0, top - drop));
+	            }
+	        });
+	    };
+
+	    Runnable loadNewer = () -> {
+	        var items = lv.getItems();
+	        if (items.isEmpty()) return;
+	        long after = items.get(0).getId();
+	        String t = table.get();
+	        fetch.accept(() -> auditRepo.findHeadersAfter(t, after, AUDIT_PAGE), page -> {
+	            if (page.isEmpty()) return;
+	            int top = firstVisible.get();
+	            items.addAll(0, page);
+	            int drop = Math.max(0, items.size() - AUDIT_WINDOW);
+	            if (drop > 0) items.remove(items.size() - drop, items.size());
+	            lv.scrollTo(top + page.size());
+	        });
+	    };
+
+	    // expand: fetch and decode the payload of the selected row only
+	    lv.getSelectionModel().selectedItemProperty().addListener((obs, o, row) -> {
+	        if (row == null) { detail.clear(); return; }
+	        var entry = auditRepo.findById(row.getId());
+	        if (entry.isEmpty()) { detail.setText("(entry no longer available)"); return; }
+	        StringBuilder b = new StringBuilder();
+	        try {
+	            for (var e : entry.get().diff().entrySet()) {
+	                b.append(String.format("%-14s %s  ->  %s%n", e.getKey(), ns(e.getValue()[0]), ns(e.getValue()[1])));
+	            }
+	        } catch (IllegalArgumentException ex) {
+	            b.append("old: ").append(ns(entry.get().getOldValues())).append('\n')
+	             .append("new: ").append(ns(entry.get().getNewValues()));
+	        }
+	        detail.setText(b.length() == 0 ? "(no column changes)" : b.toString());
+	    });
+
+	    tableTf.setOnAction(e -> loadLatest.run());
+	    latestBtn.setOnAction(e -> loadLatest.run());
+	    verifyBtn.setOnAction(e -> {
+	        verifyBtn.setDisable(true);
+	        computeExec.execute(() -> {
+	            String msg;
+	            try {
+	                auditChain.sealPending();
+	                AuditHashChain.Result r = auditChain.verify();
+	                msg = "Audit chain " + r + auditChain.head().map(h -> "\nHead: #" + h.getKey() + " " + h.getValue()).orElse("");
+	            } catch (RuntimeException ex) {
+	                msg = "Verification failed: " + ex.getMessage();
+	            }
+	            String text = msg;
+	            Platform.runLater(() -> { verifyBtn.setDisable(false); showInfo("Audit Chain", text); });
+	        });
+	    });
+
+	    searchBtn.setOnAction(e -> showAuditSearchPopup());
+
+	    VBox top = new VBox(SPACING, new HBox(SPACING, tableTf, latestBtn, verifyBtn, searchBtn), header);
+	    top.setPadding(new Insets(8));
 	    BorderPane pane = new BorderPane();
 	    pane.setStyle("-fx-background-color: #FFFFFF;");
-	    pane.setTop(header);
+	    pane.setTop(top);
 	    pane.setCenter(lv);
+	    pane.setBottom(detail);
 
 	    Stage s = new Stage();
 	    s.initOwner(primaryStage);
 	    s.initModality(Modality.NONE);
-	    s.setResizable(false);
 	    s.setTitle("Audit Log");
-	    s.setScene(new Scene(pane, 520, 320));
+	    s.setScene(new Scene(pane, 720, 560));
+	    if (auditRepo != null) loadLatest.run();
+	    s.show();
+
+	    // page on scroll: the vertical scroll bar only exists once the skin is shown
+	    for (Node n : lv.lookupAll(".scroll-bar")) {
+	        if (n instanceof javafx.scene.control.ScrollBar sb && sb.getOrientation() == javafx.geometry.Orientation.VERTICAL) {
+	            sb.valueProperty().addListener((obs, o, v) -> {
+	                if (loading[0]) return;
+	                if (v.doubleValue() >= sb.getMax()) loadOlder.run();
+	                else if (v.doubleValue() <= sb.getMin() && o.doubleValue() > sb.getMin()) loadNewer.run();
+	            });
+	        }
+	    }
+	}
+
+	// Forensic lookups over audit values (e.g. medical name = Insulin, staff salary rose above 5000)
+	private void showAuditSearchPopup() {
+	    TextField tableTf  = textField("Table (e.g. medical)");
+	    TextField columnTf = textField("Column (e.g. name, salary)");
+	    TextField valueTf  = textField("Value / threshold");
+	    Button equalsBtn = menuButton("Was Value");
+	    Button aboveBtn  = menuButton("Rose Above");
+	    // archived entries are not indexed: searching them reads every archive block of the table
+	    javafx.scene.control.CheckBox archivedCb = new javafx.scene.control.CheckBox("Include archive (slow)");
+	    archivedCb.setStyle("-fx-text-fill: " + FG_BLACK + ";");
+	    Label status = new Label();
+	    ListView<String> lv = makeBWListView();
+	    lv.setMinHeight(240);
+	    lv.setStyle(lv.getStyle() + "-fx-font-size: 12px; -fx-font-family: 'Courier New', monospace;");
+	    javafx.scene.control.TextArea detail = new javafx.scene.control.TextArea();
+	    detail.setEditable(false);
+	    detail.setPrefRowCount(6);
+	    detail.setStyle("-fx-font-family: 'Courier New', monospace; -fx-font-size: 12px;");
+	    List<AuditLog> results = new ArrayList<>();
+
+	    java.util.function.Consumer<List<AuditLog>> show = found -> {
+	        results.clear();
+	        results.addAll(found);
+	        lv.getItems().clear();
+	        detail.clear();
+	        for (AuditLog a : found) {
+	            String ts = ns(a.getTs());
+	            if (ts.length() > 23) ts = ts.substring(0, 23);
+	            lv.getItems().add(String.format("%-10d %-23s %-7s %s", a.getId(), ts, ns(a.getAction()), ns(a.getEntityId())));
+	        }
+	        status.setText(found.size() + " entr" + (found.size() == 1 ? "y" : "ies") + (found.size() == AUDIT_WINDOW ? " (first " + AUDIT_WINDOW + ")" : ""));
+	    };
+	    java.util.function.Supplier<Boolean> valid = () -> {
+	        if (tableTf.getText().isBlank() || columnTf.getText().isBlank() || valueTf.getText().isBlank()) {
+	            status.setText("Table, column and value are required.");
+	            return false;
+	        }
+	        return true;
+	    };
+	    equalsBtn.setOnAction(e -> {
+	        if (!valid.get()) return;
+	        try {
+	            show.accept(auditRepo.findByValue(tableTf.getText().trim(), columnTf.getText().trim(), valueTf.getText().trim(), AUDIT_WINDOW,
+	                                             archivedCb.isSelected()));
+	        } catch (IllegalArgumentException ex) { status.setText(ex.getMessage()); }
+	    });
+	    aboveBtn.setOnAction(e -> {
+	        if (!valid.get()) return;
+	        try {
+	            double threshold = Double.parseDouble(valueTf.getText().trim());
+	            show.accept(auditRepo.findRisesAbove(tableTf.getText().trim(), columnTf.getText().trim(), threshold, AUDIT_WINDOW,
+	                                                archivedCb.isSelected()));
+	        } catch (NumberFormatException ex) {
+	            status.setText("Threshold must be a number.");
+	        } catch (IllegalArgumentException ex) { status.setText(ex.getMessage()); }
+	    });
+	    lv.getSelectionModel().selectedIndexProperty().addListener((obs, o, idx) -> {
+	        int i = idx.intValue();
+	        if (i < 0 || i >= results.size()) return;
+	        StringBuilder b = new StringBuilder();
+	        try {
+	            for (var d : results.get(i).diff().entrySet()) {
+	                b.append(String.format("%-14s %s  ->  %s%n", d.getKey(), ns(d.getValue()[0]), ns(d.getValue()[1])));
+	            }
+	        } catch (IllegalArgumentException ex) {
+	            b.append("old: ").append(ns(results.get(i).getOldValues())).append('\n')
+	             .append("new: ").append(ns(results.get(i).getNewValues()));
+	        }
+	        detail.setText(b.length() == 0 ? "(no column changes)" : b.toString());
+	    });
+
+	    VBox pane = new VBox(SPACING, titleLabel("Search Audit Values"),
+	                         new HBox(SPACING, tableTf, columnTf, valueTf),
+	                         new HBox(SPACING, equalsBtn, aboveBtn, archivedCb, status), lv, detail);
+	    pane.setPadding(PAD);
+	    pane.setStyle("-fx-background-color: " + BG_WHITE + ";");
+
+	    Stage st = new Stage();
+	    st.initOwner(primaryStage);
+	    st.initModality(Modality.NONE);
+	    st.setTitle("Search Audit Values");
+	    st.setScene(new Scene(pane, 760, 560));
+	    st.show();
+	}
+
+	// Reorder policy comparison (dashboard → Reorder Simulator); runs off the FX thread
+	private void showReorderSimulator() {
+	    TextField scenariosTf = textField("Scenarios (default 1000)");
+	    TextField horizonTf   = textField("Horizon days (default 30)");
+	    TextField leadTf      = textField("Lead time days (default 3)");
+	    Button runBtn = menuButton("Run");
+	    Label status = new Label();
+
+	    CategoryAxis policyAxis = new CategoryAxis();
+	    NumberAxis probAxis = new NumberAxis(0, 100, 10);
+	    BarChart<String, Number> chart = new BarChart<>(policyAxis, probAxis);
+	    chart.setTitle("Stock-out probability per SKU (%)");
+	    chart.setLegendVisible(false);
+	    chart.setMinHeight(260);
+	    ListView<String> lv = makeBWListView();
+	    lv.setMinHeight(180);
+	    lv.setStyle(lv.getStyle() + "-fx-font-size: 12px; -fx-font-family: 'Courier New', monospace;");
+
+	    runBtn.setOnAction(e -> {
+	        ReorderSimulator.Config cfg = new ReorderSimulator.Config();
+	        try {
+	            if (!scenariosTf.getText().isBlank()) cfg.scenarios = Integer.parseInt(scenariosTf.getText().trim());
+	            if (!horizonTf.getText().isBlank()) cfg.horizonDays = Integer.parseInt(horizonTf.getText().trim());
+	            if (!leadTf.getText().isBlank()) cfg.leadTimeDays = Integer.parseInt(leadTf.getText().trim());
+	        } catch (NumberFormatException ex) {
+	            status.setText("Scenarios, horizon and lead time must be integers.");
+	            return;
+	        }
+	        if (!stockForecast.isReady()) {
+	            status.setText("Consumption forecast is still being computed; try again shortly.");
+	            return;
+	        }
+	        runBtn.setDisable(true);
+	        status.setText("Running " + cfg.scenarios + " scenarios…");
+	        computeExec.execute(() -> {
+	            long t0 = System.nanoTime();
+	            String msg;
+	            List<ReorderSimulator.Result> results = List.of();
+	            try {
+	                ReorderSimulator sim = ReorderSimulator.load(Db.get(), stockForecast);
+	                results = sim.run(cfg);
+	                msg = sim.skuCount() + " SKUs with demand, " + cfg.scenarios + " scenarios in "
+	                      + (System.nanoTime() - t0) / 1_000_000 + " ms";
+	            } catch (RuntimeException ex) {
+	                msg = "Simulation failed: " + ex.getMessage();
+	            }
+	            String text = msg;
+	            List<ReorderSimulator.Result> shown = results;
+	            Platform.runLater(() -> {
+	                runBtn.setDisable(false);
+	                status.setText(text);
+	                chart.getData().clear();
+	                lv.getItems().clear();
+	                XYChart.Series<String, Number> series = new XYChart.Series<>();
+	                lv.getItems().add(String.format("%-32s %8s %12s %8s  %s", "POLICY", "P(OUT)", "HOLDING", "ORDERS", "RISKIEST"));
+	                for (ReorderSimulator.Result r : shown) {
+	                    series.getData().add(new XYChart.Data<>(r.getPolicy(), 100 * r.getStockOutProbability()));
+	                    lv.getItems().add(String.format("%-32s %7.1f%% %12.2f %8.1f  %s", r.getPolicy(),
+	                        100 * r.getStockOutProbability(), r.getHoldingCost(), r.getOrdersPerScenario(),
+	                        String.join(", ", r.getRiskiest())));
+	                }
+	                chart.getData().add(series);
+	                for (XYChart.Data<String, Number> d : series.getData()) {
+	                    if (d.getNode() != null) d.getNode().setStyle("-fx-bar-fill: " + ENTITY_COLORS.get("Medical") + ";");
+	                }
+	            });
+	        });
+	    });
+
+	    Label note = new Label("Demand: nightly consumption forecast. Holding cost: 25%/year of cost on stock held over the horizon.");
+	    note.setStyle("-fx-text-fill:#000000; -fx-font-size:12px;");
+	    VBox pane = new VBox(SPACING, titleLabel("Reorder Simulator"),
+	                         new HBox(SPACING, scenariosTf, horizonTf, leadTf, runBtn), status, chart, lv, note);
+	    pane.setPadding(PAD);
+	    pane.setStyle("-fx-background-color: " + BG_WHITE + ";");
+
+	    Stage st = new Stage();
+	    st.initOwner(primaryStage);
+	    st.initModality(Modality.NONE);
+	    st.setTitle("Reorder Simulator");
+	    st.setScene(new Scene(pane, 900, 640));
+	    st.show();
+	}
+
+	// History button on each entity screen: same id resolution as the Delete buttons
+	private <T> void showHistoryFor(String table, String selectedId, TableView<T> tv,
+	                                java.util.function.Function<T, String> idOf) {
+	    String id = selectedId;
+	    if ((id == null || id.isBlank()) && tv != null) {
+	        T row = tv.getSelectionModel().getSelectedItem();
+	        if (row != null) id = idOf.apply(row);
+	    }
+	    if (id == null || id.isBlank()) {
+	        showInfo("History", "Please select a " + table + " record first.");
+	        return;
+	    }
+	    showHistoryPopup(table, id);
+	}
+
+	// Change list for one record; selecting a change shows the full record after it,
+	// and "As of" rebuilds the record at any local date/time from the audit checkpoints.
+	private void showHistoryPopup(String table, String entityId) {
+	    ListView<String> lv = makeBWListView();
+	    lv.setMinHeight(200);
+	    lv.setStyle(lv.getStyle() + "-fx-font-size: 12px; -fx-font-family: 'Courier New', monospace;");
+	    javafx.scene.control.TextArea state = new javafx.scene.control.TextArea();
+	    state.setEditable(false);
+	    state.setPrefRowCount(8);
+	    state.setStyle("-fx-font-family: 'Courier New', monospace; -fx-font-size: 12px;");
+	    TextField asOfTf = textField("As of YYYY-MM-DD HH:mm[:ss] (local time)");
+	    Button asOfBtn = menuButton("As of");
+
+	    java.util.function.Function<java.util.Map<String, String>, String> render = m -> {
+	        StringBuilder b = new StringBuilder();
+	        m.forEach((k, v) -> b.append(String.format("%-14s %s%n", k, v == null ? "(null)" : v)));
+	        return b.toString();
+	    };
+
+	    List<AuditLog> entries = auditRepo.findByEntity(table, entityId, 500);
+	    for (AuditLog a : entries) {
+	        String ts = ns(a.getTs());
+	        if (ts.length() > 23) ts = ts.substring(0, 23);
+	        String cols = "UPDATE".equals(a.getAction()) ? String.join(",", a.diff().keySet()) : "";
+	        lv.getItems().add(String.format("%-10d %-23s %-7s %s", a.getId(), ts, ns(a.getAction()), cols));
+	    }
+	    if (entries.isEmpty()) state.setText("No audit history for " + table + " " + entityId + ".");
+
+	    lv.getSelectionModel().selectedIndexProperty().addListener((obs, o, idx) -> {
+	        int i = idx.intValue();
+	        if (i < 0 || i >= entries.size()) return;
+	        AuditLog full = entries.get(i).reconstruct(auditRepo);
+	        state.setText("DELETE".equals(full.getAction())
+	            ? "Deleted. Last state:\n" + render.apply(full.oldMap())
+	            : render.apply(full.newMap()));
+	    });
+
+	    asOfBtn.setOnAction(e -> {
+	        java.time.LocalDateTime at;
+	        try {
+	            String t = asOfTf.getText().trim().replace('T', ' ');
+	            at = java.time.LocalDateTime.parse(t.length() == 16 ? t + ":00" : t,
+	                    DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+	        } catch (java.time.format.DateTimeParseException ex) {
+	            state.setText("Use YYYY-MM-DD HH:mm or YYYY-MM-DD HH:mm:ss");
+	            return;
+	        }
+	        var snapshot = auditRepo.asOf(table, entityId, at.atZone(java.time.ZoneId.systemDefault()).toInstant());
+	        state.setText(snapshot.isPresent()
+	            ? "As of " + at + ":\n" + render.apply(snapshot.get())
+	            : table + " " + entityId + " did not exist at " + at);
+	    });
+
+	    VBox pane = new VBox(SPACING, titleLabel("History: " + table + " " + entityId),
+	                         new HBox(SPACING, asOfTf, asOfBtn), lv, state);
+	    pane.setPadding(PAD);
+	    pane.setStyle("-fx-background-color: " + BG_WHITE + ";");
+
+	    Stage s = new Stage();
+	    s.initOwner(primaryStage);
+	    s.initModality(Modality.NONE);
+	    s.setTitle("History");
+	    s.setScene(new Scene(pane, 640, 560));
+	    s.show();
+	}
+
+	// Open list screens follow audit_log instead of reloading after every write; this also
+	// picks up edits made by another HMS instance on the same database file.
+	private void startChangeFeed() {
+	    changeFeed = new AuditChangeFeed(Db.get(), 250);
+	    followTable("staff",    () -> staffTable,    staffRepo::findById,    Staff::getId);
+	    followTable("doctor",   () -> doctorTable,   doctorRepo::findById,   Doctor::getId);
+	    followTable("patient",  () -> patientTable,  patientRepo::findById,  Patient::getId);
+	    followTable("medical",  () -> medicalTable,  medicalRepo::findById,  Medical::getId);
+	    followTable("lab",      () -> labTable,      labRepo::findById,      Lab::getId);
+	    followTable("facility", () -> facilityTable, facilityRepo::findById, Facility::getId);
+	    // cube, availability and caseload updates are idempotent, so replaying our own writes
+	    // through the feed is harmless; writes made by another instance reach them only this way
+	    EntityListener<Patient> caseloadPatients = caseloadBalancer.patientListener();
+	    EntityListener<Doctor> caseloadDoctors = caseloadBalancer.doctorListener();
+	    changeFeed.subscribe("patient", ch -> {
+	        if (ch.getKind() == AuditChangeFeed.Kind.DELETE) {
+	            patientCube.onDeleted(ch.getEntityId());
+	            caseloadPatients.onDeleted(ch.getEntityId());
+	        } else {
+	            patientRepo.findById(ch.getEntityId()).ifPresent(p -> {
+	                patientCube.onUpdated(p);
+	                caseloadPatients.onUpdated(p);
+	            });
+	        }
+	    });
+	    changeFeed.subscribe("doctor", ch -> {
+	        if (ch.getKind() == AuditChangeFeed.Kind.DELETE) {
+	            doctorAvailability.onDeleted(ch.getEntityId());
+	            caseloadDoctors.onDeleted(ch.getEntityId());
+	        } else {
+	            doctorRepo.findById(ch.getEntityId()).ifPresent(d -> {
+	                doctorAvailability.onUpdated(d);
+	                caseloadDoctors.onUpdated(d);
+	            });
+	        }
+	    });
+	    // stock alerts: re-check just the medicine that was written
+	    changeFeed.subscribe("medical", ch -> {
+	        if (ch.getKind() == AuditChangeFeed.Kind.DELETE) return;
+	        if (stockAlerts.evaluate(ch.getEntityId()) > 0) Platform.runLater(this::showUnseenAlerts);
+	        medicalRepo.findById(ch.getEntityId()).ifPresent(m -> stockForecast.onStock(m.getId(), m.getCount()));
+	    });
+	    changeFeed.start();
+	}
+
+	// Row lookup runs on the feed thread, the table patch on the FX thread
+	private <T> void followTable(String table, java.util.function.Supplier<TableView<T>> view,
+	                             java.util.function.Function<String, java.util.Optional<T>> find,
+	                             java.util.function.Function<T, String> idOf) {
+	    changeFeed.subscribe(table, ch -> {
+	        T row = ch.getKind() == AuditChangeFeed.Kind.DELETE ? null : find.apply(ch.getEntityId()).orElse(null);
+	        Platform.runLater(() -> patchRow(view.get(), ch.getEntityId(), row, idOf));
+	    });
+	}
+
+	// Replaces, inserts (in id order) or removes (row == null) one row, then re-applies any
+	// column sort; the lookup is a binary search unless such a sort is active. Tables that
+	// are not on screen are skipped because their Show button reloads them anyway.
+	private <T> void patchRow(TableView<T> tv, String id, T row, java.util.function.Function<T, String> idOf) {
+	    if (tv == null || tv.getScene() == null) return;
+	    List<T> items = tv.getItems();
+	    boolean sorted = !tv.getSortOrder().isEmpty();
+	    int at = -1, insertAt = items.size();
+	    if (!sorted) {
+	        // id order: binary search for the row or its insertion point
+	        int lo = 0, hi = items.size();
+	        while (lo < hi) {
+	            int mid = (lo + hi) >>> 1;
+	            int c = cmpId(idOf.apply(items.get(mid)), id);
+	            if (c == 0) { lo = mid; at = mid; break; }
+	            if (c < 0) lo = mid + 1; else hi = mid;
+	        }
+	        insertAt = lo;
+	    } else {
+	        for (int i = 0; i < items.size(); i++) {
+	            if (cmpId(idOf.apply(items.get(i)), id) == 0) { at = i; break; }
+	        }
+	    }
+	    if (row == null) {
+	        if (at >= 0) items.remove(at);
+	        return;
+	    }
+	    if (at >= 0) {
+	        boolean selected = tv.getSelectionModel().getSelectedIndex() == at;
+	        items.set(at, row);
+	        if (selected) tv.getSelectionModel().select(at);
+	    } else {
+	        items.add(insertAt, row);
+	    }
+	    if (sorted) tv.sort();
+	}
+
+	// Book / cancel appointments and browse a day (optionally one doctor's day)
+	private void showAppointmentsPopup() {
+	    TextField patientTf = textField("Patient ID");
+	    TextField doctorTf  = textField("Doctor ID (blank = all doctors in day view)");
+	    TextField dateTf    = textField("Date YYYY-MM-DD (blank = today)");
+	    TextField timeTf    = textField("Time HH:mm (blank = next open slot)");
+	    Button bookBtn   = menuButton("Book");
+	    Button dayBtn    = menuButton("Day View");
+	    Button cancelBtn = menuButton("Cancel Selected");
+	    Label status = new Label();
+	    status.setStyle("-fx-text-fill: " + FG_BLACK + ";");
+
+	    Label header = new Label("ID        SLOT              DOCTOR    PATIENT   ROOM  STATUS");
+	    header.setStyle("-fx-text-fill: #000000; -fx-font-weight: bold; -fx-font-family: 'Courier New', monospace;");
+	    ListView<Appointment> lv = makeBWListView();
+	    lv.setMinHeight(240);
+	    lv.setCellFactory(v -> new javafx.scene.control.ListCell<>() {
+	        @Override protected void updateItem(Appointment a, boolean empty) {
+	            super.updateItem(a, empty);
+	            setText(empty || a == null ? null : String.format("%-10d%-18s%-10s%-10s%-6d%-10s",
+	                a.getId(), AppointmentRepository.slotLabel(a.getSlotStart()), ns(a.getDoctorId()),
+	                ns(a.getPatientId()), a.getRoom(), ns(a.getStatus())));
+	        }
+	    });
+
+	    java.util.function.Supplier<java.time.LocalDate> day = () -> {
+	        String t = dateTf.getText().trim();
+	        return t.isEmpty() ? java.time.LocalDate.now() : java.time.LocalDate.parse(t);
+	    };
+
+	    Runnable refreshDay = () -> {
+	        lv.getItems().clear();
+	        try {
+	            String doctor = doctorTf.getText().trim();
+	            var rows = doctor.isEmpty() ? appointmentRepo.findDay(day.get()) : appointmentRepo.findDoctorDay(doctor, day.get());
+	            lv.getItems().setAll(rows);
+	        } catch (java.time.format.DateTimeParseException ex) {
+	            status.setText("Date must be YYYY-MM-DD");
+	        }
+	    };
+
+	    bookBtn.setOnAction(e -> {
+	        String patient = patientTf.getText().trim();
+	        String doctor = doctorTf.getText().trim();
+	        if (patient.isEmpty() || doctor.isEmpty()) { status.setText("Patient ID and Doctor ID are required."); return; }
+	        LocalDateTime slot;
+	        try {
+	            java.time.LocalDate d = day.get();
+	            if (timeTf.getText().isBlank()) {
+	                LocalDateTime from = d.equals(java.time.LocalDate.now()) ? LocalDateTime.now() : d.atStartOfDay();
+	                var open = appointmentRepo.nextOpenSlot(doctor, from, doctorAvailability);
+	                if (open.isEmpty()) { status.setText("No open slot for " + doctor + " in the next 7 days."); return; }
+	                slot = open.get();
+	            } else {
+	                slot = d.atTime(java.time.LocalTime.parse(timeTf.getText().trim()));
+	            }
+	        } catch (java.time.format.DateTimeParseException ex) {
+	            status.setText("Date must be YYYY-MM-DD and time HH:mm");
+	            return;
+	        }
+	        if (slot.getMinute() % AppointmentRepository.SLOT_MINUTES != 0) {
+	            status.setText("Slots start every " + AppointmentRepository.SLOT_MINUTES + " minutes.");
+	            return;
+	        }
+	        if (!doctorAvailability.isOnShift(doctor, slot)) {
+	            status.setText("Doctor " + doctor + " is not on shift at " + AppointmentRepository.slotLabel(slot));
+	            return;
+	        }
+	        java.util.Optional<Appointment> booked;
+	        try {
+	            booked = appointmentRepo.book(patient, doctor, slot);
+	        } catch (RuntimeException ex) {
+	            status.setText("Could not book " + AppointmentRepository.slotLabel(slot) + ": database error (" + ex.getMessage() + ")");
+	            return;
+	        }
+	        status.setText(booked.isPresent()
+	            ? "Booked #" + booked.get().getId() + " at " + AppointmentRepository.slotLabel(slot) + ", room " + booked.get().getRoom()
+	            : "Could not book " + AppointmentRepository.slotLabel(slot) + " (slot taken or unknown patient/doctor).");
+	        dateTf.setText(slot.toLocalDate().toString());
+	        refreshDay.run();
+	    });
+
+	    dayBtn.setOnAction(e -> refreshDay.run());
+
+	    cancelBtn.setOnAction(e -> {
+	        Appointment row = lv.getSelectionModel().getSelectedItem();
+	        if (row == null) { status.setText("Select an appointment first."); return; }
+	        long id = row.getId();
+	        if (!confirm("Cancel Appointment", "Cancel appointment #" + id + "?")) return;
+	        status.setText(appointmentRepo.cancel(id) ? "Cancelled #" + id : "Failed to cancel #" + id);
+	        refreshDay.run();
+	    });
+
+	    VBox form = new VBox(SPACING, patientTf, doctorTf, dateTf, timeTf, new HBox(SPACING, bookBtn, dayBtn, cancelBtn), status);
+	    VBox pane = new VBox(SPACING, titleLabel("Appointments"), form, header, lv);
+	    pane.setPadding(PAD);
+	    pane.setStyle("-fx-background-color: " + BG_WHITE + ";");
+
+	    Stage s = new Stage();
+	    s.initOwner(primaryStage);
+	    s.initModality(Modality.NONE);
+	    s.setTitle("Appointments");
+	    s.setScene(new Scene(pane, 640, 620));
+	    refreshDay.run();
 	    s.show();
 	}
 
@@ -246,94 +975,83 @@ public class HospitalManagement extends Application {
 		launch(args);
 	}
 	
-	// ---- Simple HMS scheduler ----
-	private final java.util.concurrent.ScheduledExecutorService exec =
-	    java.util.concurrent.Executors.newSingleThreadScheduledExecutor(r -> {
-	        Thread t = new Thread(r, "hms-scheduler");
-	        t.setDaemon(true);
-	        return t;
-	    });
-
-	private void startJobs() {
-	    // Every 60s: run low-stock and expiring-med checks
-	    exec.scheduleAtFixedRate(this::lightweightChecks, 30, 60, java.util.concurrent.TimeUnit.SECONDS);
+	// ---- Background jobs (JobScheduler; last runs persisted in job_run) ----
+	private JobScheduler jobs;
+
+	private void startJobs(java.nio.file.Path auditArchiveDir) {
+	    var utc = java.time.LocalTime.of(0, 1);   // just after midnight UTC (SQLite's 'now')
+	    jobs = new JobScheduler(Db.get(), 2)
+	        // extend the audit hash chain over new rows (kept out of the triggers on purpose)
+	        .register(new JobScheduler.Job("audit-seal", JobScheduler.every(java.time.Duration.ofSeconds(5)), auditChain::sealPending))
+	        // consumption forecast lives in memory, so it also runs on every start
+	        .register(new JobScheduler.Job("stock-forecast", JobScheduler.dailyUtc(utc), stockForecast::recompute)
+	            .runAtStartup().jitter(java.time.Duration.ofSeconds(30)))
+	        // audit rows older than hms.audit.retentionDays (default 365) move to the archive; only sealed rows qualify
+	        .register(JobScheduler.Job.reporting("audit-retention", JobScheduler.dailyUtc(java.time.LocalTime.of(2, 0)), () -> {
+	            auditChain.sealPending();
+	            int days = Integer.getInteger("hms.audit.retentionDays", 365);
+	            int moved = new AuditArchiver(Db.get(), auditArchiveDir).applyRetention(days);
+	            return "archived " + moved + " audit rows older than " + days + " days";
+	        }).jitter(java.time.Duration.ofMinutes(5)))
+	        // medicines entering the expiry window; stock changes are handled through the change feed
+	        .register(new JobScheduler.Job("expiry-sweep", JobScheduler.dailyUtc(utc), () -> {
+	            if (stockAlerts.sweepExpiry() > 0) Platform.runLater(this::showUnseenAlerts);
+	        }).jitter(java.time.Duration.ofSeconds(30)))
+	        // seen notifications older than hms.notification.ttlDays (default 30) leave the live table
+	        .register(JobScheduler.Job.reporting("notification-archive", JobScheduler.every(java.time.Duration.ofDays(1)), () -> {
+	            int moved = notificationRepo.archiveSeenOlderThan(Integer.getInteger("hms.notification.ttlDays", 30));
+	            return "archived " + moved + " seen notifications";
+	        }).jitter(java.time.Duration.ofMinutes(5)))
+	        // repairs: recompute the trigger-kept rollups from their base tables in case they drifted
+	        .register(new JobScheduler.Job("payroll-rebuild", JobScheduler.every(java.time.Duration.ofDays(7)), payrollRepo::rebuild)
+	            .jitter(java.time.Duration.ofMinutes(30)))
+	        .register(new JobScheduler.Job("valuation-rebuild", JobScheduler.every(java.time.Duration.ofDays(7)), valuationRepo::rebuild)
+	            .jitter(java.time.Duration.ofMinutes(30)));
+	    jobs.start();
 	}
 
-	private void lightweightChecks() {
-	    if (!checkLock.tryLock()) {
-	        // a previous run is still in progress; skip this tick
-	        return;
-	    }
-	    try (var c = Db.get().getConnection()) {
-	        // avoid immediate SQLITE_BUSY
-	        try (var st = c.createStatement()) {
-	            st.execute("PRAGMA busy_timeout = 3000"); // 3s
+	// Dashboard → Jobs: per-job counters and latencies from the scheduler
+	private void showJobsPopup() {
+	    ListView<String> lv = makeBWListView();
+	    lv.setMinHeight(260);
+	    lv.setStyle(lv.getStyle() + "-fx-font-size: 12px; -fx-font-family: 'Courier New', monospace;");
+	    Button refreshBtn = menuButton("Refresh");
+	    java.time.format.DateTimeFormatter hhmm = java.time.format.DateTimeFormatter.ofPattern("MM-dd HH:mm:ss")
+	        .withZone(java.time.ZoneId.systemDefault());
+	    Runnable refresh = () -> {
+	        lv.getItems().clear();
+	        lv.getItems().add(String.format("%-20s %5s %5s %5s %8s %8s %8s  %-14s %-14s %s",
+	            "JOB", "RUNS", "FAIL", "BUSY", "LAST ms", "MEAN ms", "MAX ms", "LAST START", "NEXT RUN", "LAST RESULT"));
+	        for (JobScheduler.Stats st : jobs.stats()) {
+	            lv.getItems().add(String.format("%-20s %5d %5d %5d %8s %8.1f %8d  %-14s %-14s %s",
+	                st.getName(), st.getRuns(), st.getFailures(), st.getBusyRetries(),
+	                st.getLastMs() < 0 ? "-" : String.valueOf(st.getLastMs()), st.getMeanMs(), st.getMaxMs(),
+	                st.getLastStart() == null ? "-" : hhmm.format(st.getLastStart()),
+	                st.getNextRun() == null ? "-" : hhmm.format(st.getNextRun()),
+	                st.getLastError() != null ? st.getLastError() : ns(st.getLastOutcome())));
 	        }
+	    };
+	    refreshBtn.setOnAction(e -> refresh.run());
+	    refresh.run();
+
+	    VBox pane = new VBox(SPACING, titleLabel("Background Jobs"), refreshBtn, lv);
+	    pane.setPadding(PAD);
+	    pane.setStyle("-fx-background-color: " + BG_WHITE + ";");
+
+	    Stage st = new Stage();
+	    st.initOwner(primaryStage);
+	    st.initModality(Modality.NONE);
+	    st.setTitle("Background Jobs");
+	    st.setScene(new Scene(pane, 1000, 360));
+	    st.show();
+	}
 
-	        c.setAutoCommit(false);
-	        try (
-	            var sLow = c.createStatement();
-	            var sExp = c.createStatement();
-	            var psIns = c.prepareStatement(
-	                "INSERT INTO notification(severity,title,detail) " +
-	                "SELECT ?, ?, ? WHERE NOT EXISTS (" +
-	                "  SELECT 1 FROM notification WHERE severity=? AND title=? AND detail=? AND seen=0" +
-	                ")"
-	            )
-	        ) {
-	            // Low stock
-	            try (var rs = sLow.executeQuery("SELECT id,name,count FROM medical WHERE count <= 10")) {
-	                while (rs.next()) {
-	                    String id = rs.getString("id");
-	                    String name = rs.getString("name");
-	                    int count = rs.getInt("count");
-	                    String title  = "Low stock: " + name;
-	                    String detail = "ID " + id + ", count=" + count;
-
-	                    psIns.setString(1, "WARN");
-	                    psIns.setString(2, title);
-	                    psIns.setString(3, detail);
-	                    // de-dupe same unseen notification
-	                    psIns.setString(4, "WARN");
-	                    psIns.setString(5, title);
-	                    psIns.setString(6, detail);
-	                    psIns.addBatch();
-	                }
-	            }
-
-	            // Expiring within 30 days
-	            try (var rs = sExp.executeQuery(
-	                "SELECT id,name,expiry_date FROM medical " +
-	                "WHERE date(expiry_date) <= date('now','+30 day')"
-	            )) {
-	                while (rs.next()) {
-	                    String id = rs.getString("id");
-	                    String name = rs.getString("name");
-	                    String expiry = rs.getString("expiry_date");
-	                    String title  = "Expiring soon: " + name;
-	                    String detail = "ID " + id + ", expires " + expiry;
-
-	                    psIns.setString(1, "INFO");
-	                    psIns.setString(2, title);
-	                    psIns.setString(3, detail);
-	                    psIns.setString(4, "INFO");
-	                    psIns.setString(5, title);
-	                    psIns.setString(6, detail);
-	                    psIns.addBatch();
-	                }
-	            }
-
-	            psIns.executeBatch();
-	            c.commit();
-	        } catch (Exception e) {
-	            try { c.rollback(); } catch (Exception ignore) {}
-	            throw e;
-	        }
-	    } catch (Exception ex) {
-	        ex.printStackTrace();
-	    } finally {
-	        checkLock.unlock();
-	    }
+	@Override
+	public void stop() {
+	    if (changeFeed != null) changeFeed.close();
+	    if (jobs != null) jobs.close();
+	    refreshExec.shutdownNow();
+	    computeExec.shutdownNow();
 	}
 
 	@Override
@@ -348,7 +1066,26 @@ public class HospitalManagement extends Application {
 	    medicalRepo  = new SqlMedicalRepository(Db.get());
 	    labRepo      = new SqlLabRepository(Db.get());
 	    facilityRepo = new SqlFacilityRepository(Db.get());
-	    this.auditRepo = new SqlAuditLogRepository(Db.get());
+	    java.nio.file.Path auditArchiveDir = Db.dataDir().resolve("audit-archive");
+	    this.auditRepo = new SqlAuditLogRepository(Db.get(), new AuditArchive(Db.get(), auditArchiveDir));
+	    auditChain = new AuditHashChain(Db.get());
+	    doctorAvailability = DoctorAvailability.load(Db.get());
+	    doctorRepo.addListener(doctorAvailability);
+	    appointmentRepo = new SqlAppointmentRepository(Db.get());
+	    assignmentRepo = new SqlAssignmentRepository(Db.get());
+	    caseloadBalancer = CaseloadBalancer.load(Db.get(), assignmentRepo);
+	    assignmentRepo.addListener(caseloadBalancer);
+	    patientRepo.addListener(caseloadBalancer.patientListener());
+	    doctorRepo.addListener(caseloadBalancer.doctorListener());
+	    censusRepo = new SqlCensusRepository(Db.get());
+	    patientCube = PatientCube.load(Db.get());
+	    patientRepo.addListener(patientCube);
+	    payrollRepo = new SqlPayrollRepository(Db.get());
+	    valuationRepo = new SqlValuationRepository(Db.get());
+	    notificationRepo = new SqlNotificationRepository(Db.get());
+	    stockAlerts = new StockAlerts(Db.get(), notificationRepo);
+	    stockForecast = new StockForecast(Db.get());
+	    startChangeFeed();
 
 		// ----------------------------------------------------------------------------------
 		// MAIN MENU (modern, minimal, larger)
@@ -495,6 +1232,17 @@ public class HospitalManagement extends Application {
 		root.getChildren().add(dashboardBtn);
 		StackPane.setAlignment(dashboardBtn, Pos.BOTTOM_LEFT);
 		StackPane.setMargin(dashboardBtn, new Insets(0, 0, 12, 12));
+
+		// ---- Appointments button in the bottom-center (same style) ----
+		Button appointmentsBtn = new Button("Appointments");
+		appointmentsBtn.setMinWidth(100);
+		appointmentsBtn.setMinHeight(32);
+		appointmentsBtn.setStyle(auditBtn.getStyle());
+		appointmentsBtn.setOnAction(e -> showAppointmentsPopup());
+
+		root.getChildren().add(appointmentsBtn);
+		StackPane.setAlignment(appointmentsBtn, Pos.BOTTOM_CENTER);
+		StackPane.setMargin(appointmentsBtn, new Insets(0, 0, 12, 0));
 		
 		// --- toast overlay mount (bottom-right queue) ---
 		this.mainRoot = root;
@@ -526,11 +1274,11 @@ public class HospitalManagement extends Application {
 		primaryStage.setTitle("Hospital Management System");
 		primaryStage.show();
 		
-		startJobs();
-		// Run checks once immediately on startup
-		lightweightChecks();
+		startJobs(auditArchiveDir);
+		// One full check on startup covers whatever changed while the app was closed
+		stockAlerts.scanAll();
 		// Try to show any unseen notifications on app open
-		showAlertsOnStartup();
+		showUnseenAlerts();
 	}
 
 	// ----------------------------------------------------------------------------------
@@ -555,6 +1303,10 @@ public class HospitalManagement extends Application {
 		deleteStaff.setPrefWidth(100);
 		updateStaff.setMinHeight(50);
 		deleteStaff.setMinHeight(50);
+		Button historyStaff = new Button("History");
+		historyStaff.setPrefWidth(100);
+		historyStaff.setMinHeight(50);
+		historyStaff.setStyle("-fx-border-color: #000000; -fx-background-color: #FFFFFF;");
 
 		Button addStaffTo = new Button("Add");
 		addStaffTo.setPrefWidth(100);
@@ -585,7 +1337,7 @@ public class HospitalManagement extends Application {
 		VBox staffV1 = new VBox();
 		VBox staffV2 = new VBox();
 		
-		staffV1.getChildren().addAll(addStaff, showStaff, returnTo1, updateStaff, deleteStaff);
+		staffV1.getChildren().addAll(addStaff, showStaff, returnTo1, updateStaff, deleteStaff, historyStaff);
 		staffV1.setAlignment(Pos.BASELINE_CENTER);
 		staffV1.setSpacing(30);
 		staffV1.setBackground(new Background(new BackgroundFill(Color.WHITE, new CornerRadii(0), Insets.EMPTY)));
@@ -642,13 +1394,13 @@ public class HospitalManagement extends Application {
 		staffV3.setPrefSize(400, 600);
 		staffV3.setPadding(new Insets(20));
 
-		// ListView (read)
-		staffListView = makeBWListView();
-		staffListView.getSelectionModel().setSelectionMode(SelectionMode.SINGLE);
-		staffListView.setMinHeight(470);
-		staffListView.setOnMouseClicked(ev -> {
-		    String row = staffListView.getSelectionModel().getSelectedItem();
-		    selectedStaffId = leading(row, 10); // assuming id width 10 in formatted row
+		// TableView (read)
+		staffTable = staffTableView();
+		staffTable.getSelectionModel().setSelectionMode(SelectionMode.SINGLE);
+		staffTable.setMinHeight(470);
+		staffTable.setOnMouseClicked(ev -> {
+		    Staff row = staffTable.getSelectionModel().getSelectedItem();
+		    selectedStaffId = row == null ? null : row.getId();
 		    staffTf6.setText("Selected Staff ID: " + ns(selectedStaffId));
 		});
 		
@@ -697,14 +1449,9 @@ public class HospitalManagement extends Application {
 		showStaff.setOnAction(e -> {
 			staffV2.getChildren().clear();
 
-			Label staffHeader = new Label("   ID             NAME                   DESIGNATION         SEX      SALARY");
-			staffHeader.setFont(Font.font("Poppins", FontWeight.BOLD, FontPosture.REGULAR, 15));
-			staffHeader.setStyle("-fx-text-fill: #000000;");
-
 			refreshStaffList();
-			staffListView.getSelectionModel().clearSelection();
 
-			staffV2.getChildren().addAll(staffHeader, staffListView);
+			staffV2.getChildren().add(staffTable);
 		});
 		
 		updateStaff.setOnAction(e -> {
@@ -712,10 +1459,10 @@ public class HospitalManagement extends Application {
 
 		    // 1) ensure a row is selected
 		    String id = selectedStaffId;
-		    if ((id == null || id.isBlank()) && staffListView != null) {
-		        String row = staffListView.getSelectionModel().getSelectedItem();
+		    if ((id == null || id.isBlank()) && staffTable != null) {
+		        Staff row = staffTable.getSelectionModel().getSelectedItem();
 		        if (row != null) {
-		            id = leading(row, 10);
+		            id = row.getId();
 		        }
 		    }
 		    if (id == null || id.isBlank()) {
@@ -727,17 +1474,6 @@ public class HospitalManagement extends Application {
 		    var opt = staffRepo.findById(id);
 		    if (opt.isEmpty()) {
 		        staffTf6.setText("Selected staff no longer exists.");
-		        // refresh list to reflect current db
-		        if (staffListView != null) {
-		            staffListView.getItems().clear();
-		            List<Staff> all = new ArrayList<>(staffRepo.findAll());
-		            all.sort((a,b) -> cmpId(a.getId(), b.getId()));
-		            for (Staff ss : all) {
-		                String row = String.format("%-10s%-20s%-22s%-8s%-10s",
-		                    ns(ss.getId()), ns(ss.getName()), ns(ss.getDesignation()), ss.getSex(), ss.getSalary());
-		                staffListView.getItems().add(row);
-		            }
-		        }
 		        return;
 		    }
 		    Staff s = opt.get();
@@ -784,26 +1520,16 @@ public class HospitalManagement extends Application {
 		        staffTf1.setEditable(true);
 		        addStaffTo.setText("Add");
 		        if (originalAddStaffHandler != null) addStaffTo.setOnAction(originalAddStaffHandler);
-
-		        // Optionally refresh list if currently showing it
-		        if (staffListView != null && !staffListView.getItems().isEmpty()) {
-		            staffListView.getItems().clear();
-		            List<Staff> all = new ArrayList<>(staffRepo.findAll());
-		            all.sort((a,b) -> cmpId(a.getId(), b.getId()));
-		            for (Staff ss : all) {
-		                String row = String.format("%-10s%-20s%-22s%-8s%-10s",
-		                    ns(ss.getId()), ns(ss.getName()), ns(ss.getDesignation()), ss.getSex(), ss.getSalary());
-		                staffListView.getItems().add(row);
-		            }
-		        }
 		    });
 		});
 		
+		historyStaff.setOnAction(e -> showHistoryFor("staff", selectedStaffId, staffTable, Staff::getId));
+
 		deleteStaff.setOnAction(e -> {
 		    String id = selectedStaffId;
-		    if ((id == null || id.isBlank()) && staffListView != null) {
-		        String row = staffListView.getSelectionModel().getSelectedItem();
-		        if (row != null) id = leading(row, 10);
+		    if ((id == null || id.isBlank()) && staffTable != null) {
+		        Staff row = staffTable.getSelectionModel().getSelectedItem();
+		        if (row != null) id = row.getId();
 		    }
 		    if (id == null || id.isBlank()) {
 		        showInfo("Delete Staff", "Please select a staff to delete.");
@@ -813,18 +1539,7 @@ public class HospitalManagement extends Application {
 
 		    boolean ok = staffRepo.delete(id);  // <-- changed from deleteById(id) to delete(id)
 		    showInfo("Delete Staff", ok ? "Deleted staff " + id : "Failed to delete staff " + id);
-
-		    // refresh list
-		    if (staffListView != null) {
-		        staffListView.getItems().clear();
-		        List<Staff> all = new ArrayList<>(staffRepo.findAll());
-		        all.sort((a,b) -> cmpId(a.getId(), b.getId()));
-		        for (Staff ss : all) {
-		            String row = String.format("%-10s%-20s%-22s%-8s%-10s",
-		                ns(ss.getId()), ns(ss.getName()), ns(ss.getDesignation()), ss.getSex(), ss.getSalary());
-		            staffListView.getItems().add(row);
-		        }
-		    }
+		    // the change feed drops the row from the list
 		});
 
 		Scene sc1 = new Scene(main3, 900, 650);
@@ -843,6 +1558,7 @@ public class HospitalManagement extends Application {
 		Button returnTo2 = new Button("Return");
 		Button updateDoctor = new Button("Update");
 		Button deleteDoctor = new Button("Delete");
+		Button availableDoctor = new Button("Available");
 		
 		addDoctor.setPrefWidth(100);
 		showDoctor.setPrefWidth(100);
@@ -854,6 +1570,12 @@ public class HospitalManagement extends Application {
 		updateDoctor.setMinHeight(50);
 		deleteDoctor.setPrefWidth(100);
 		deleteDoctor.setMinHeight(50);
+		Button historyDoctor = new Button("History");
+		historyDoctor.setPrefWidth(100);
+		historyDoctor.setMinHeight(50);
+		historyDoctor.setStyle("-fx-border-color: #000000; -fx-background-color: #FFFFFF;");
+		availableDoctor.setPrefWidth(100);
+		availableDoctor.setMinHeight(50);
 
 		Button addDoctorTo = new Button("Add");
 		addDoctorTo.setPrefWidth(100);
@@ -884,7 +1606,7 @@ public class HospitalManagement extends Application {
 		VBox doctorV1 = new VBox();
 		VBox doctorV2 = new VBox();
 		
-		doctorV1.getChildren().addAll(addDoctor, showDoctor, returnTo2, updateDoctor, deleteDoctor);
+		doctorV1.getChildren().addAll(addDoctor, showDoctor, returnTo2, updateDoctor, deleteDoctor, availableDoctor, historyDoctor);
 		doctorV1.setAlignment(Pos.BASELINE_CENTER);
 		doctorV1.setSpacing(30);
 		doctorV1.setBackground(new Background(new BackgroundFill(Color.WHITE, new CornerRadii(0), Insets.EMPTY)));
@@ -932,6 +1654,7 @@ public class HospitalManagement extends Application {
 		addDoctorTo.setStyle("-fx-border-color: #000000; -fx-background-color: #FFFFFF;");
 		updateDoctor.setStyle("-fx-border-color: #000000; -fx-background-color: #FFFFFF;");
 		deleteDoctor.setStyle("-fx-border-color: #000000; -fx-background-color: #FFFFFF;");
+		availableDoctor.setStyle("-fx-border-color: #000000; -fx-background-color: #FFFFFF;");
 
 		VBox doctorV3 = new VBox();
 		doctorV3.getChildren().addAll(doctorTf1, doctorTf2, doctorTf3, doctorTf4, doctorTf5, addDoctorTo, doctorTf6);
@@ -940,14 +1663,16 @@ public class HospitalManagement extends Application {
 		doctorV3.setPrefSize(400, 600);
 		doctorV3.setPadding(new Insets(20));
 
-		// ListView (read)
-		doctorListView = makeBWListView();
-		doctorListView.getSelectionModel().setSelectionMode(SelectionMode.SINGLE);
-		doctorListView.setMinHeight(470);
-		doctorListView.setOnMouseClicked(ev -> {
-		    String row = doctorListView.getSelectionModel().getSelectedItem();
-		    selectedDoctorId = leading(row, 10);
-		    doctorTf6.setText("Selected Doctor ID: " + ns(selectedDoctorId));
+		// TableView (read)
+		doctorTable = doctorTableView();
+		doctorTable.getSelectionModel().setSelectionMode(SelectionMode.SINGLE);
+		doctorTable.setMinHeight(470);
+		doctorTable.setOnMouseClicked(ev -> {
+		    Doctor row = doctorTable.getSelectionModel().getSelectedItem();
+		    selectedDoctorId = row == null ? null : row.getId();
+		    var next = doctorAvailability.nextFreeSlot(selectedDoctorId, LocalDateTime.now());
+		    doctorTf6.setText("Selected Doctor ID: " + ns(selectedDoctorId)
+		        + next.map(t -> "  (next on shift " + t.format(DateTimeFormatter.ofPattern("EEE HH:mm")) + ")").orElse(""));
 		});
 
 		// BorderPane layout
@@ -988,15 +1713,10 @@ public class HospitalManagement extends Application {
 
 		showDoctor.setOnAction(e -> {
 			doctorV2.getChildren().clear();
-			
-			Label doctorHeader = new Label("   ID                 NAME                SPECIALIST           WORKTIME      QUALIFICATION");
-			doctorHeader.setFont(Font.font("Poppins", FontWeight.BOLD, FontPosture.REGULAR, 15));
-			doctorHeader.setStyle("-fx-text-fill: #000000;");
 
 			refreshDoctorList();
-			doctorListView.getSelectionModel().clearSelection();
 
-			doctorV2.getChildren().addAll(doctorHeader, doctorListView);
+			doctorV2.getChildren().add(doctorTable);
 		});
 
 		returnTo2.setOnAction(e -> {
@@ -1007,9 +1727,9 @@ public class HospitalManagement extends Application {
 		    doctorTf6.setText("");
 
 		    String id = selectedDoctorId;
-		    if ((id == null || id.isBlank()) && doctorListView != null) {
-		        String row = doctorListView.getSelectionModel().getSelectedItem();
-		        if (row != null) id = leading(row, 10);
+		    if ((id == null || id.isBlank()) && doctorTable != null) {
+		        Doctor row = doctorTable.getSelectionModel().getSelectedItem();
+		        if (row != null) id = row.getId();
 		    }
 		    if (id == null || id.isBlank()) {
 		        doctorTf6.setText("Please select a doctor from the list first.");
@@ -1019,7 +1739,6 @@ public class HospitalManagement extends Application {
 		    var opt = doctorRepo.findById(id);
 		    if (opt.isEmpty()) {
 		        doctorTf6.setText("Selected doctor no longer exists.");
-		        refreshDoctorList();
 		        return;
 		    }
 
@@ -1058,15 +1777,64 @@ public class HospitalManagement extends Application {
 		        doctorTf1.setEditable(true);
 		        addDoctorTo.setText("Add");
 		        if (originalAddDoctorHandler != null) addDoctorTo.setOnAction(originalAddDoctorHandler);
-		        refreshDoctorList();
 		    });
 		});
 
+		// Availability lookup: answered from the in-memory schedule index, not by scanning doctors
+		availableDoctor.setOnAction(e -> {
+		    doctorV2.getChildren().clear();
+
+		    TextField specTf = new TextField();
+		    TextField dayTf = new TextField();
+		    TextField timeTf = new TextField();
+		    specTf.setPromptText("Specialist (blank = any)");
+		    dayTf.setPromptText("Day e.g. Tue (blank = today)");
+		    timeTf.setPromptText("Time HH:mm (blank = now)");
+		    for (TextField tf : List.of(specTf, dayTf, timeTf)) {
+		        tf.setMinSize(300, 30);
+		        tf.setFont(Font.font("Poppins", FontWeight.NORMAL, FontPosture.REGULAR, 15));
+		        tf.setStyle("-fx-border-color: #000000; -fx-border-width: 1px;");
+		    }
+		    Button search = new Button("Search");
+		    search.setPrefWidth(100);
+		    search.setMinHeight(30);
+		    search.setStyle("-fx-border-color: #000000; -fx-background-color: #FFFFFF;");
+
+		    Label info = new Label();
+		    ListView<String> results = makeBWListView();
+		    results.setMinHeight(330);
+
+		    search.setOnAction(ev -> {
+		        results.getItems().clear();
+		        info.setText("");
+		        LocalDateTime now = LocalDateTime.now();
+		        java.time.DayOfWeek day = dayTf.getText().isBlank() ? now.getDayOfWeek() : WorkSchedule.parseDay(dayTf.getText());
+		        if (day == null) { info.setText("Unknown day: " + dayTf.getText()); return; }
+		        java.time.LocalTime time;
+		        try {
+		            time = timeTf.getText().isBlank() ? now.toLocalTime() : java.time.LocalTime.parse(timeTf.getText().trim());
+		        } catch (Exception ex) { info.setText("Time must be HH:mm"); return; }
+
+		        // ids come from the in-memory index; their rows are loaded in one query
+		        List<Doctor> onShift = new ArrayList<>(doctorRepo.findByIds(doctorAvailability.availableAt(specTf.getText(), day, time)));
+		        onShift.sort((a, b) -> cmpId(a.getId(), b.getId()));
+		        for (Doctor d : onShift) {
+		            results.getItems().add(String.format("%-10s%-20s%-15s%-15s",
+		                ns(d.getId()), ns(d.getName()), ns(d.getSpecialist()), ns(d.getWorkTime())));
+		        }
+		        if (results.getItems().isEmpty()) results.getItems().add("No doctor on shift at that time.");
+		    });
+
+		    doctorV2.getChildren().addAll(specTf, dayTf, timeTf, search, info, results);
+		});
+
+		historyDoctor.setOnAction(e -> showHistoryFor("doctor", selectedDoctorId, doctorTable, Doctor::getId));
+
 		deleteDoctor.setOnAction(e -> {
 		    String id = selectedDoctorId;
-		    if ((id == null || id.isBlank()) && doctorListView != null) {
-		        String row = doctorListView.getSelectionModel().getSelectedItem();
-		        if (row != null) id = leading(row, 10);
+		    if ((id == null || id.isBlank()) && doctorTable != null) {
+		        Doctor row = doctorTable.getSelectionModel().getSelectedItem();
+		        if (row != null) id = row.getId();
 		    }
 		    if (id == null || id.isBlank()) {
 		        showInfo("Delete Doctor", "Please select a doctor to delete.");
@@ -1076,7 +1844,6 @@ public class HospitalManagement extends Application {
 
 		    boolean ok = doctorRepo.delete(id);  // <-- changed from deleteById(id)
 		    showInfo("Delete Doctor", ok ? "Deleted doctor " + id : "Failed to delete doctor " + id);
-		    refreshDoctorList();
 		});
 
 		Scene sc2 = new Scene(main4, 900, 650);
@@ -1085,15 +1852,8 @@ public class HospitalManagement extends Application {
 	}
 
 	private void refreshDoctorList() {
-	    if (doctorListView == null) return;
-	    doctorListView.getItems().clear();
-	    java.util.List<Doctor> all = new java.util.ArrayList<>(doctorRepo.findAll());
-	    all.sort((d1, d2) -> cmpId(d1.getId(), d2.getId()));
-	    for (Doctor dd : all) {
-	        String row = String.format("%-10s%-20s%-15s%-15s%-15s",
-	            ns(dd.getId()), ns(dd.getName()), ns(dd.getSpecialist()), ns(dd.getWorkTime()), dd.getQualification());
-	        doctorListView.getItems().add(row);
-	    }
+	    if (doctorTable == null) return;
+	    refreshRows(doctorTable, doctorRepo::findAll, Doctor::getId);
 	}
 
 	// ----------------------------------------------------------------------------------
@@ -1107,6 +1867,7 @@ public class HospitalManagement extends Application {
 		Button returnTo3 = new Button("Return");
 		Button updatePatient = new Button("Update");
 		Button deletePatient = new Button("Delete");
+		Button assignPatient = new Button("Assign");
 
 		addPatient.setPrefWidth(100);
 		showPatient.setPrefWidth(100);
@@ -1118,6 +1879,12 @@ public class HospitalManagement extends Application {
 		updatePatient.setMinHeight(50);
 		deletePatient.setPrefWidth(100);
 		deletePatient.setMinHeight(50);
+		Button historyPatient = new Button("History");
+		historyPatient.setPrefWidth(100);
+		historyPatient.setMinHeight(50);
+		historyPatient.setStyle("-fx-border-color: #000000; -fx-background-color: #FFFFFF;");
+		assignPatient.setPrefWidth(100);
+		assignPatient.setMinHeight(50);
 
 		Button addPatientTo = new Button("Add");
 		addPatientTo.setPrefWidth(100);
@@ -1150,7 +1917,7 @@ public class HospitalManagement extends Application {
 		VBox patientV1 = new VBox();
 		VBox patientV2 = new VBox();
 		
-		patientV1.getChildren().addAll(addPatient, showPatient, returnTo3, updatePatient, deletePatient);
+		patientV1.getChildren().addAll(addPatient, showPatient, returnTo3, updatePatient, deletePatient, assignPatient, historyPatient);
 		patientV1.setAlignment(Pos.BASELINE_CENTER);
 		patientV1.setSpacing(30);
 		patientV1.setBackground(new Background(new BackgroundFill(Color.WHITE, new CornerRadii(0), Insets.EMPTY)));
@@ -1202,6 +1969,7 @@ public class HospitalManagement extends Application {
 		addPatientTo.setStyle("-fx-border-color: #000000; -fx-background-color: #FFFFFF;");
 		updatePatient.setStyle("-fx-border-color: #000000; -fx-background-color: #FFFFFF;");
 		deletePatient.setStyle("-fx-border-color: #000000; -fx-background-color: #FFFFFF;");
+		assignPatient.setStyle("-fx-border-color: #000000; -fx-background-color: #FFFFFF;");
 
 		VBox patientV3 = new VBox();
 		patientV3.getChildren().addAll(patientTf1, patientTf2, patientTf3, patientTf4, patientTf5, patientTf6, addPatientTo, patientTf7);
@@ -1210,13 +1978,13 @@ public class HospitalManagement extends Application {
 		patientV3.setPrefSize(400, 600);
 		patientV3.setPadding(new Insets(20));
 
-		// ListView (read)
-		patientListView = makeBWListView();
-		patientListView.getSelectionModel().setSelectionMode(SelectionMode.SINGLE);
-		patientListView.setMinHeight(470);
-		patientListView.setOnMouseClicked(ev -> {
-		    String row = patientListView.getSelectionModel().getSelectedItem();
-		    selectedPatientId = leading(row, 10); // uses fixed column layout
+		// TableView (read)
+		patientTable = patientTableView();
+		patientTable.getSelectionModel().setSelectionMode(SelectionMode.SINGLE);
+		patientTable.setMinHeight(470);
+		patientTable.setOnMouseClicked(ev -> {
+		    Patient row = patientTable.getSelectionModel().getSelectedItem();
+		    selectedPatientId = row == null ? null : row.getId();
 		    patientTf7.setText("Selected Patient ID: " + ns(selectedPatientId));
 		});
 
@@ -1265,16 +2033,9 @@ public class HospitalManagement extends Application {
 		showPatient.setOnAction(e -> {
 		    patientV2.getChildren().clear();   // clear the center
 
-		    Label patientHeader = new Label(
-		        "   ID               NAME                       DISEASE                        SEX      ADMIT STATUS       AGE"
-		    );
-		    patientHeader.setFont(Font.font("Poppins", FontWeight.BOLD, FontPosture.REGULAR, 15));
-		    patientHeader.setStyle("-fx-text-fill: #000000;");
-
 		    refreshPatientList();
-		    patientListView.getSelectionModel().clearSelection();
 
-		    patientV2.getChildren().addAll(patientHeader, patientListView);  // show the list in the center
+		    patientV2.getChildren().add(patientTable);  // show the list in the center
 		});
 		
 		updatePatient.setOnAction(e -> {
@@ -1282,9 +2043,9 @@ public class HospitalManagement extends Application {
 
 		    // 1) make sure a row is selected
 		    String id = selectedPatientId;
-		    if ((id == null || id.isBlank()) && patientListView != null) {
-		        String row = patientListView.getSelectionModel().getSelectedItem();
-		        if (row != null) id = leading(row, 10);
+		    if ((id == null || id.isBlank()) && patientTable != null) {
+		        Patient row = patientTable.getSelectionModel().getSelectedItem();
+		        if (row != null) id = row.getId();
 		    }
 		    if (id == null || id.isBlank()) {
 		        patientTf7.setText("Please select a patient from the list first.");
@@ -1295,7 +2056,6 @@ public class HospitalManagement extends Application {
 		    var opt = patientRepo.findById(id);
 		    if (opt.isEmpty()) {
 		        patientTf7.setText("Selected patient no longer exists.");
-		        refreshPatientList();
 		        return;
 		    }
 
@@ -1344,18 +2104,95 @@ public class HospitalManagement extends Application {
 		            patientTf1.setEditable(true);
 		            addPatientTo.setText("Add");
 		            if (originalAddPatientHandler != null) addPatientTo.setOnAction(originalAddPatientHandler);
-
-		            // 6) refresh list if visible
-		            refreshPatientList();
 		        });
 		    });
 		});
 		
+		// Link the selected patient to doctors; "Suggest" asks the caseload heap for the least-loaded specialist
+		assignPatient.setOnAction(e -> {
+		    String id = selectedPatientId;
+		    if ((id == null || id.isBlank()) && patientTable != null) {
+		        Patient row = patientTable.getSelectionModel().getSelectedItem();
+		        if (row != null) id = row.getId();
+		    }
+		    if (id == null || id.isBlank()) {
+		        showInfo("Assign Patient", "Please select a patient from the list first.");
+		        return;
+		    }
+		    final String patientId = id;
+		    patientV2.getChildren().clear();
+
+		    Label who = new Label("Patient " + patientId);
+		    who.setFont(Font.font("Poppins", FontWeight.BOLD, FontPosture.REGULAR, 15));
+		    TextField specTf = new TextField();
+		    TextField doctorTf = new TextField();
+		    specTf.setPromptText("Specialist (for Suggest)");
+		    doctorTf.setPromptText("Doctor ID");
+		    for (TextField tf : List.of(specTf, doctorTf)) {
+		        tf.setMinSize(300, 30);
+		        tf.setFont(Font.font("Poppins", FontWeight.NORMAL, FontPosture.REGULAR, 15));
+		        tf.setStyle("-fx-border-color: #000000; -fx-border-width: 1px;");
+		    }
+		    Button suggest = new Button("Suggest");
+		    Button assign = new Button("Assign");
+		    Button unassign = new Button("Unassign");
+		    for (Button b : List.of(suggest, assign, unassign)) {
+		        b.setPrefWidth(100);
+		        b.setMinHeight(30);
+		        b.setStyle("-fx-border-color: #000000; -fx-background-color: #FFFFFF;");
+		    }
+		    Label info = new Label();
+		    ListView<Doctor> doctors = makeBWListView();
+		    doctors.setMinHeight(300);
+		    java.util.Map<String, Integer> caseloads = new java.util.HashMap<>();   // filled by refresh, read by the cells
+		    doctors.setCellFactory(v -> new javafx.scene.control.ListCell<>() {
+		        @Override protected void updateItem(Doctor d, boolean empty) {
+		            super.updateItem(d, empty);
+		            setText(empty || d == null ? null : String.format("%-10s %-20s%-15s admitted caseload=%d",
+		                d.getId(), ns(d.getName()), ns(d.getSpecialist()), caseloads.getOrDefault(d.getId(), 0)));
+		        }
+		    });
+
+		    Runnable refresh = () -> {
+		        List<Doctor> rows = new ArrayList<>(doctorRepo.findByIds(assignmentRepo.findDoctorIds(patientId)));
+		        rows.sort((a, b) -> cmpId(a.getId(), b.getId()));
+		        caseloads.clear();
+		        for (Doctor d : rows) caseloads.put(d.getId(), assignmentRepo.caseload(d.getId(), true));
+		        doctors.getItems().setAll(rows);
+		    };
+		    doctors.setOnMouseClicked(ev -> {
+		        Doctor row = doctors.getSelectionModel().getSelectedItem();
+		        if (row != null) doctorTf.setText(row.getId());
+		    });
+
+		    suggest.setOnAction(ev -> {
+		        var pick = caseloadBalancer.suggest(specTf.getText());
+		        if (pick.isEmpty()) { info.setText("No doctor with specialist '" + specTf.getText().trim() + "'."); return; }
+		        doctorTf.setText(pick.get());
+		        info.setText("Least loaded: " + pick.get() + " (" + caseloadBalancer.admittedLoad(pick.get()) + " admitted)");
+		    });
+		    assign.setOnAction(ev -> {
+		        String doc = doctorTf.getText().trim();
+		        info.setText(assignmentRepo.assign(patientId, doc) ? "Assigned to " + doc : "Could not assign " + doc);
+		        refresh.run();
+		    });
+		    unassign.setOnAction(ev -> {
+		        String doc = doctorTf.getText().trim();
+		        info.setText(assignmentRepo.unassign(patientId, doc) ? "Unassigned " + doc : "Not assigned to " + doc);
+		        refresh.run();
+		    });
+
+		    refresh.run();
+		    patientV2.getChildren().addAll(who, specTf, doctorTf, new HBox(10, suggest, assign, unassign), info, doctors);
+		});
+
+		historyPatient.setOnAction(e -> showHistoryFor("patient", selectedPatientId, patientTable, Patient::getId));
+
 		deletePatient.setOnAction(e -> {
 		    String id = selectedPatientId;
-		    if ((id == null || id.isBlank()) && patientListView != null) {
-		        String row = patientListView.getSelectionModel().getSelectedItem();
-		        if (row != null) id = leading(row, 10);
+		    if ((id == null || id.isBlank()) && patientTable != null) {
+		        Patient row = patientTable.getSelectionModel().getSelectedItem();
+		        if (row != null) id = row.getId();
 		    }
 		    if (id == null || id.isBlank()) {
 		        showInfo("Delete Patient", "Please select a patient to delete.");
@@ -1364,7 +2201,6 @@ public class HospitalManagement extends Application {
 		    if (!confirm("Delete Patient", "Are you sure you want to delete patient " + id + "?")) return;
 		    boolean ok = patientRepo.delete(id);
 		    showInfo("Delete Patient", ok ? "Deleted patient " + id : "Failed to delete patient " + id);
-		    refreshPatientList();
 		});
 
 		Scene sc3 = new Scene(main5, 900, 650);
@@ -1373,29 +2209,78 @@ public class HospitalManagement extends Application {
 	}
 
 	private void refreshPatientList() {
-	    if (patientListView == null) return;
-	    patientListView.getItems().clear();
-	    java.util.List<Patient> all = new java.util.ArrayList<>(patientRepo.findAll());
-	    all.sort((p1, p2) -> cmpId(p1.getId(), p2.getId()));
-	    for (Patient p : all) {
-	        String row = String.format("%-10s%-20s%-22s%-8s%-18s%5d",
-	            ns(p.getId()), ns(p.getName()), ns(p.getDisease()),
-	            ns(p.getSex()), ns(p.getAdmitStatus()), p.getAge());
-	        patientListView.getItems().add(row);
-	    }
+	    if (patientTable == null) return;
+	    refreshRows(patientTable, patientRepo::findAll, Patient::getId);
 	}
 	
 	private void refreshStaffList() {
-	    if (staffListView == null) return;
-	    staffListView.getItems().clear();
-	    java.util.List<Staff> all = new java.util.ArrayList<>(staffRepo.findAll());
-	    all.sort((p1, p2) -> cmpId(p1.getId(), p2.getId()));
-	    for (Staff s : all) {
-	        String row = String.format("%-10s%-20s%-15s%-10s%-15s",
-	            ns(s.getId()), ns(s.getName()), ns(s.getDesignation()),
-	            ns(s.getSex()), ns(String.valueOf(s.getSalary())));
-	        staffListView.getItems().add(row);
-	    }
+	    if (staffTable == null) return;
+	    refreshRows(staffTable, staffRepo::findAll, Staff::getId);
+	}
+
+	// One column set per entity screen; cells render the domain objects the change feed patches in
+	private TableView<Staff> staffTableView() {
+	    return makeBWTableView(List.of(
+	        idColumn(Staff::getId),
+	        column("Name", 170, Staff::getName),
+	        column("Designation", 150, Staff::getDesignation),
+	        column("Sex", 70, Staff::getSex),
+	        column("Salary", 90, Staff::getSalary)));
+	}
+
+	private TableView<Doctor> doctorTableView() {
+	    return makeBWTableView(List.of(
+	        idColumn(Doctor::getId),
+	        column("Name", 170, Doctor::getName),
+	        column("Specialist", 140, Doctor::getSpecialist),
+	        column("Work Time", 110, Doctor::getWorkTime),
+	        column("Qualification", 130, Doctor::getQualification)));
+	}
+
+	private TableView<Patient> patientTableView() {
+	    return makeBWTableView(List.of(
+	        idColumn(Patient::getId),
+	        column("Name", 160, Patient::getName),
+	        column("Disease", 150, Patient::getDisease),
+	        column("Sex", 60, Patient::getSex),
+	        column("Admit Status", 110, Patient::getAdmitStatus),
+	        column("Age", 60, Patient::getAge)));
+	}
+
+	private TableView<Medical> medicalTableView() {
+	    TableColumn<Medical, Boolean> low = column("Low", 60, Medical::isBelowReorderPoint);
+	    low.setCellFactory(c -> new TableCell<>() {
+	        @Override protected void updateItem(Boolean below, boolean empty) {
+	            super.updateItem(below, empty);
+	            setText(!empty && Boolean.TRUE.equals(below) ? "LOW" : "");
+	        }
+	    });
+	    return makeBWTableView(List.of(
+	        idColumn(Medical::getId),
+	        column("Name", 140, Medical::getName),
+	        column("Manufacturer", 130, Medical::getManufacturer),
+	        column("Expiry", 100, Medical::getExpiryDate),
+	        column("Cost", 60, Medical::getCost),
+	        column("Count", 60, Medical::getCount),
+	        column("Reorder", 70, Medical::getReorderPoint),
+	        low));
+	}
+
+	private TableView<Lab> labTableView() {
+	    return makeBWTableView(List.of(
+	        idColumn(Lab::getId),
+	        column("Name", 170, Lab::getName),
+	        column("Status", 140, Lab::getStatus),
+	        column("Result", 200, Lab::getResult)));
+	}
+
+	private TableView<Facility> facilityTableView() {
+	    return makeBWTableView(List.of(
+	        idColumn(Facility::getId),
+	        column("Name", 150, Facility::getName),
+	        column("Description", 220, Facility::getDescription),
+	        column("Status", 100, Facility::getStatus),
+	        column("Capacity", 80, Facility::getCapacity)));
 	}
 
 	// ----------------------------------------------------------------------------------
@@ -1420,6 +2305,10 @@ public class HospitalManagement extends Application {
 	    deleteMedical.setPrefWidth(100);
 	    updateMedical.setMinHeight(50);
 	    deleteMedical.setMinHeight(50);
+	    Button historyMedical = new Button("History");
+	    historyMedical.setPrefWidth(100);
+	    historyMedical.setMinHeight(50);
+	    historyMedical.setStyle("-fx-border-color: #000000; -fx-background-color: #FFFFFF;");
 
 	    Button addMedicalTo = new Button("Add");
 	    addMedicalTo.setPrefWidth(100);
@@ -1438,6 +2327,8 @@ public class HospitalManagement extends Application {
 	    TextField medicalTf5 = new TextField(); // cost (int)
 	    TextField medicalTf6 = new TextField(); // count (int)
 	    TextField medicalTf7 = new TextField(); // status / feedback (read-only)
+	    TextField medicalTf8 = new TextField(); // reorder point (int)
+	    TextField medicalTf9 = new TextField(); // safety stock (int)
 	    medicalTf7.setEditable(false);
 
 	    // Header HBox
@@ -1452,7 +2343,7 @@ public class HospitalManagement extends Application {
 	    VBox medicalV1 = new VBox();
 	    VBox medicalV2 = new VBox();
 
-	    medicalV1.getChildren().addAll(addMedical, showMedical, returnTo4, updateMedical, deleteMedical);
+	    medicalV1.getChildren().addAll(addMedical, showMedical, returnTo4, updateMedical, deleteMedical, historyMedical);
 	    medicalV1.setAlignment(Pos.BASELINE_CENTER);
 	    medicalV1.setSpacing(30);
 	    medicalV1.setBackground(new Background(new BackgroundFill(Color.WHITE, new CornerRadii(0), Insets.EMPTY)));
@@ -1471,6 +2362,8 @@ public class HospitalManagement extends Application {
 	    medicalTf5.setMinSize(300, 30);
 	    medicalTf6.setMinSize(300, 30);
 	    medicalTf7.setMinSize(300, 30);
+	    medicalTf8.setMinSize(300, 30);
+	    medicalTf9.setMinSize(300, 30);
 
 	    // Prompts aligned with Medical.java
 	    medicalTf1.setPromptText("ID");
@@ -1480,6 +2373,8 @@ public class HospitalManagement extends Application {
 	    medicalTf5.setPromptText("Cost (integer)");
 	    medicalTf6.setPromptText("Count (integer)");
 	    medicalTf7.setPromptText("Status");
+	    medicalTf8.setPromptText("Reorder Point (integer, default " + Medical.DEFAULT_REORDER_POINT + ")");
+	    medicalTf9.setPromptText("Safety Stock (integer, default 0)");
 
 	    // Fonts
 	    medicalTf1.setFont(Font.font("Poppins", FontWeight.NORMAL, FontPosture.REGULAR, 15));
@@ -1489,6 +2384,8 @@ public class HospitalManagement extends Application {
 	    medicalTf5.setFont(Font.font("Poppins", FontWeight.NORMAL, FontPosture.REGULAR, 15));
 	    medicalTf6.setFont(Font.font("Poppins", FontWeight.NORMAL, FontPosture.REGULAR, 15));
 	    medicalTf7.setFont(Font.font("Poppins", FontWeight.NORMAL, FontPosture.REGULAR, 15));
+	    medicalTf8.setFont(Font.font("Poppins", FontWeight.NORMAL, FontPosture.REGULAR, 15));
+	    medicalTf9.setFont(Font.font("Poppins", FontWeight.NORMAL, FontPosture.REGULAR, 15));
 
 	    // Minimal black & white styles
 	    String bw = "-fx-border-color: #000000; -fx-border-width: 1px;";
@@ -1499,6 +2396,8 @@ public class HospitalManagement extends Application {
 	    medicalTf5.setStyle(bw);
 	    medicalTf6.setStyle(bw);
 	    medicalTf7.setStyle(bw);
+	    medicalTf8.setStyle(bw);
+	    medicalTf9.setStyle(bw);
 
 	    String bwBtn = "-fx-border-color: #000000; -fx-background-color: #FFFFFF;";
 	    addMedical.setStyle(bwBtn);
@@ -1510,20 +2409,19 @@ public class HospitalManagement extends Application {
 
 	    // Right-side form stack (includes status at bottom)
 	    VBox medicalV3 = new VBox();
-	    medicalV3.getChildren().addAll(medicalTf1, medicalTf2, medicalTf3, medicalTf4, medicalTf5, medicalTf6, addMedicalTo, medicalTf7);
+	    medicalV3.getChildren().addAll(medicalTf1, medicalTf2, medicalTf3, medicalTf4, medicalTf5, medicalTf6, medicalTf8, medicalTf9, addMedicalTo, medicalTf7);
 	    medicalV3.setAlignment(Pos.TOP_LEFT);
 	    medicalV3.setSpacing(10);
 	    medicalV3.setPrefSize(400, 600);
 	    medicalV3.setPadding(new Insets(20));
 
-	    // ListView (read)
-	    medicalListView = makeBWListView();
-	    medicalListView.getSelectionModel().setSelectionMode(SelectionMode.SINGLE);
-	    medicalListView.setMinHeight(470);
-	    medicalListView.setOnMouseClicked(ev -> {
-	        String row = medicalListView.getSelectionModel().getSelectedItem();
-	        // First column is ID, width 10
-	        selectedMedicalId = leading(row, 10); // NOTE: reusing existing variable name to avoid introducing new fields; it now stores the ID
+	    // TableView (read)
+	    medicalTable = medicalTableView();
+	    medicalTable.getSelectionModel().setSelectionMode(SelectionMode.SINGLE);
+	    medicalTable.setMinHeight(470);
+	    medicalTable.setOnMouseClicked(ev -> {
+	        Medical row = medicalTable.getSelectionModel().getSelectedItem();
+	        selectedMedicalId = row == null ? null : row.getId();
 	        medicalTf7.setText("Selected ID: " + ns(selectedMedicalId));
 	    });
 
@@ -1542,6 +2440,7 @@ public class HospitalManagement extends Application {
 	        // reset form fields
 	        medicalTf1.clear(); medicalTf2.clear(); medicalTf3.clear();
 	        medicalTf4.clear(); medicalTf5.clear(); medicalTf6.clear();
+	        medicalTf8.clear(); medicalTf9.clear();
 	        medicalTf7.setText("");           
 	        medicalTf1.setEditable(true);
 	        addMedicalTo.setText("Add");
@@ -1555,22 +2454,27 @@ public class HospitalManagement extends Application {
 	        String expiryDate = ns(medicalTf4.getText());
 	        String costStr = ns(medicalTf5.getText());
 	        String countStr = ns(medicalTf6.getText());
+	        String reorderStr = ns(medicalTf8.getText());
+	        String safetyStr = ns(medicalTf9.getText());
 
 	        if (id.isBlank()) { medicalTf7.setText("Medical ID cannot be empty"); return; }
 	        if (name.isBlank()) { medicalTf7.setText("Name cannot be empty"); return; }
 	        if (manufacturer.isBlank()) { medicalTf7.setText("Manufacturer cannot be empty"); return; }
 	        if (expiryDate.isBlank()) { medicalTf7.setText("Expiry date cannot be empty"); return; }
 
-	        int cost, count;
+	        int cost, count, reorderPoint, safetyStock;
 	        try {
 	            cost = costStr.isBlank() ? 0 : Integer.parseInt(costStr);
 	            count = countStr.isBlank() ? 0 : Integer.parseInt(countStr);
+	            reorderPoint = reorderStr.isBlank() ? Medical.DEFAULT_REORDER_POINT : Integer.parseInt(reorderStr);
+	            safetyStock = safetyStr.isBlank() ? 0 : Integer.parseInt(safetyStr);
 	        } catch (NumberFormatException ex) {
-	            medicalTf7.setText("Cost and Count must be integers.");
+	            medicalTf7.setText("Cost, Count, Reorder Point and Safety Stock must be integers.");
 	            return;
 	        }
+	        if (reorderPoint < 0 || safetyStock < 0) { medicalTf7.setText("Reorder Point and Safety Stock must be >= 0."); return; }
 
-	        Medical m = new Medical(id, name, manufacturer, expiryDate, cost, count);
+	        Medical m = new Medical(id, name, manufacturer, expiryDate, cost, count, reorderPoint, safetyStock);
 	        boolean ok = medicalRepo.insert(m); // repository uses insert(...)
 	        medicalTf7.setText(ok ? "Added Medical successfully" : "Failed to add Medical");
 	    });
@@ -1578,26 +2482,8 @@ public class HospitalManagement extends Application {
 	    showMedical.setOnAction(e -> {
 	        medicalV2.getChildren().clear();
 
-	        Label medicalHeader = new Label("   ID              NAME            MANUFACTURER      EXPIRY DATE   COST   COUNT");
-	        medicalHeader.setFont(Font.font("Poppins", FontWeight.BOLD, FontPosture.REGULAR, 15));
-	        medicalHeader.setStyle("-fx-text-fill: #000000;");
-
-	        medicalListView.getItems().clear();
-	        java.util.List<Medical> all = new java.util.ArrayList<>(medicalRepo.findAll());
-	        // Already ordered by ID in repo; stable here as well if needed
-	        for (Medical mm : all) {
-	            String row = String.format("%-10s%-18s%-18s%-14s%-7s%-6s",
-	                ns(mm.getId()),
-	                ns(mm.getName()),
-	                ns(mm.getManufacturer()),
-	                ns(mm.getExpiryDate()),
-	                String.valueOf(mm.getCost()),
-	                String.valueOf(mm.getCount())
-	            );
-	            medicalListView.getItems().add(row);
-	        }
-	        medicalListView.getSelectionModel().clearSelection();
-	        medicalV2.getChildren().addAll(medicalHeader, medicalListView);
+	        refreshRows(medicalTable, medicalRepo::findAll, Medical::getId);
+	        medicalV2.getChildren().add(medicalTable);
 	    });
 
 	    returnTo4.setOnAction(e -> {
@@ -1608,9 +2494,9 @@ public class HospitalManagement extends Application {
 	        medicalTf7.setText("");
 
 	        String id = selectedMedicalId; // stores ID from selection
-	        if ((id == null || id.isBlank()) && medicalListView != null) {
-	            String row = medicalListView.getSelectionModel().getSelectedItem();
-	            if (row != null) id = leading(row, 10);
+	        if ((id == null || id.isBlank()) && medicalTable != null) {
+	            Medical row = medicalTable.getSelectionModel().getSelectedItem();
+	            if (row != null) id = row.getId();
 	        }
 	        if (id == null || id.isBlank()) {
 	            medicalTf7.setText("Please select a medical record from the list first.");
@@ -1620,7 +2506,6 @@ public class HospitalManagement extends Application {
 	        var opt = medicalRepo.findById(id);
 	        if (opt.isEmpty()) {
 	            medicalTf7.setText("Selected medical record no longer exists.");
-	            showMedical.fire();
 	            return;
 	        }
 
@@ -1633,6 +2518,8 @@ public class HospitalManagement extends Application {
 	        medicalTf4.setText(ns(m.getExpiryDate()));
 	        medicalTf5.setText(String.valueOf(m.getCost()));
 	        medicalTf6.setText(String.valueOf(m.getCount()));
+	        medicalTf8.setText(String.valueOf(m.getReorderPoint()));
+	        medicalTf9.setText(String.valueOf(m.getSafetyStock()));
 	        medicalTf7.setText("Update mode: editing ID " + m.getId());
 
 	        medicalTf1.setEditable(false);      // lock ID during update
@@ -1652,21 +2539,26 @@ public class HospitalManagement extends Application {
 	            String expiryDate = ns(medicalTf4.getText());
 	            String costStr = ns(medicalTf5.getText());
 	            String countStr = ns(medicalTf6.getText());
+	            String reorderStr = ns(medicalTf8.getText());
+	            String safetyStr = ns(medicalTf9.getText());
 
 	            if (name.isBlank()) { medicalTf7.setText("Name cannot be empty."); return; }
 	            if (manufacturer.isBlank()) { medicalTf7.setText("Manufacturer cannot be empty."); return; }
 	            if (expiryDate.isBlank()) { medicalTf7.setText("Expiry date cannot be empty."); return; }
 
-	            int cost, count;
+	            int cost, count, reorderPoint, safetyStock;
 	            try {
 	                cost = costStr.isBlank() ? 0 : Integer.parseInt(costStr);
 	                count = countStr.isBlank() ? 0 : Integer.parseInt(countStr);
+	                reorderPoint = reorderStr.isBlank() ? Medical.DEFAULT_REORDER_POINT : Integer.parseInt(reorderStr);
+	                safetyStock = safetyStr.isBlank() ? 0 : Integer.parseInt(safetyStr);
 	            } catch (NumberFormatException ex) {
-	                medicalTf7.setText("Cost and Count must be integers.");
+	                medicalTf7.setText("Cost, Count, Reorder Point and Safety Stock must be integers.");
 	                return;
 	            }
+	            if (reorderPoint < 0 || safetyStock < 0) { medicalTf7.setText("Reorder Point and Safety Stock must be >= 0."); return; }
 
-	            Medical updated = new Medical(key, name, manufacturer, expiryDate, cost, count);
+	            Medical updated = new Medical(key, name, manufacturer, expiryDate, cost, count, reorderPoint, safetyStock);
 	            boolean ok = medicalRepo.update(updated);
 	            medicalTf7.setText(ok ? "Updated ID " + key : "Failed to update ID " + key);
 
@@ -1675,15 +2567,17 @@ public class HospitalManagement extends Application {
 	            addMedicalTo.setText("Add");
 	            if (originalAddMedicalHandler != null) addMedicalTo.setOnAction(originalAddMedicalHandler);
 
-	            showMedical.fire(); // refresh
+	            showMedical.fire(); // back to the list
 	        });
 	    });
 
+	    historyMedical.setOnAction(e -> showHistoryFor("medical", selectedMedicalId, medicalTable, Medical::getId));
+
 	    deleteMedical.setOnAction(e -> {
 	        String id = selectedMedicalId; // stores ID
-	        if ((id == null || id.isBlank()) && medicalListView != null) {
-	            String row = medicalListView.getSelectionModel().getSelectedItem();
-	            if (row != null) id = leading(row, 10);
+	        if ((id == null || id.isBlank()) && medicalTable != null) {
+	            Medical row = medicalTable.getSelectionModel().getSelectedItem();
+	            if (row != null) id = row.getId();
 	        }
 	        if (id == null || id.isBlank()) {
 	            showInfo("Delete Medical", "Please select a medical record to delete.");
@@ -1693,7 +2587,6 @@ public class HospitalManagement extends Application {
 
 	        boolean ok = medicalRepo.deleteById(id);
 	        showInfo("Delete Medical", ok ? "Deleted ID " + id : "Failed to delete ID " + id);
-	        showMedical.fire();
 	    });
 
 	    // set scene
@@ -1740,6 +2633,10 @@ public class HospitalManagement extends Application {
 		deleteLab.setPrefWidth(100);
 		updateLab.setMinHeight(50);
 		deleteLab.setMinHeight(50);
+		Button historyLab = new Button("History");
+		historyLab.setPrefWidth(100);
+		historyLab.setMinHeight(50);
+		historyLab.setStyle("-fx-border-color: #000000; -fx-background-color: #FFFFFF;");
 
 		Button addLabTo = new Button("Add");
 		addLabTo.setPrefWidth(100);
@@ -1769,7 +2666,7 @@ public class HospitalManagement extends Application {
 		VBox labV1 = new VBox();
 		VBox labV2 = new VBox();
 
-		labV1.getChildren().addAll(addLab, showLab, returnTo5, updateLab, deleteLab);
+		labV1.getChildren().addAll(addLab, showLab, returnTo5, updateLab, deleteLab, historyLab);
 		labV1.setAlignment(Pos.BASELINE_CENTER);
 		labV1.setSpacing(30);
 		labV1.setBackground(new Background(new BackgroundFill(Color.WHITE, new CornerRadii(0), Insets.EMPTY)));
@@ -1821,13 +2718,13 @@ public class HospitalManagement extends Application {
 		labV3.setPrefSize(400, 600);
 		labV3.setPadding(new Insets(20));
 
-		// ListView (read)
-		labListView = makeBWListView();
-		labListView.getSelectionModel().setSelectionMode(SelectionMode.SINGLE);
-		labListView.setMinHeight(470);
-		labListView.setOnMouseClicked(ev -> {
-		    String row = labListView.getSelectionModel().getSelectedItem();
-		    selectedLabId = leading(row, 10);
+		// TableView (read)
+		labTable = labTableView();
+		labTable.getSelectionModel().setSelectionMode(SelectionMode.SINGLE);
+		labTable.setMinHeight(470);
+		labTable.setOnMouseClicked(ev -> {
+		    Lab row = labTable.getSelectionModel().getSelectedItem();
+		    selectedLabId = row == null ? null : row.getId();
 		    labTf5.setText("Selected Lab ID: " + ns(selectedLabId));
 		});
 
@@ -1867,20 +2764,8 @@ public class HospitalManagement extends Application {
 		showLab.setOnAction(e -> {
 		    labV2.getChildren().clear();
 
-		    Label labHeader = new Label("   ID                NAME                       STATUS               RESULT");
-		    labHeader.setFont(Font.font("Poppins", FontWeight.BOLD, FontPosture.REGULAR, 15));
-		    labHeader.setStyle("-fx-text-fill: #000000;");
-
-		    labListView.getItems().clear();
-		    java.util.List<Lab> all = new java.util.ArrayList<>(labRepo.findAll());
-		    all.sort((a, b) -> cmpId(a.getId(), b.getId()));
-		    for (Lab ll : all) {
-		        String row = String.format("%-10s%-20s%-20s%-20s",
-		            ns(ll.getId()), ns(ll.getName()), ns(ll.getStatus()), ns(ll.getResult()));
-		        labListView.getItems().add(row);
-		    }
-		    labListView.getSelectionModel().clearSelection();
-		    labV2.getChildren().addAll(labHeader, labListView);
+		    refreshRows(labTable, labRepo::findAll, Lab::getId);
+		    labV2.getChildren().add(labTable);
 		});
 		
 		returnTo5.setOnAction(e -> {
@@ -1891,9 +2776,9 @@ public class HospitalManagement extends Application {
 		    labTf5.setText("");
 
 		    String id = selectedLabId;
-		    if ((id == null || id.isBlank()) && labListView != null) {
-		        String row = labListView.getSelectionModel().getSelectedItem();
-		        if (row != null) id = leading(row, 10);
+		    if ((id == null || id.isBlank()) && labTable != null) {
+		        Lab row = labTable.getSelectionModel().getSelectedItem();
+		        if (row != null) id = row.getId();
 		    }
 		    if (id == null || id.isBlank()) {
 		        labTf5.setText("Please select a lab from the list first.");
@@ -1903,7 +2788,6 @@ public class HospitalManagement extends Application {
 		    var opt = labRepo.findById(id);
 		    if (opt.isEmpty()) {
 		        labTf5.setText("Selected lab no longer exists.");
-		        showLab.fire();
 		        return;
 		    }
 
@@ -1944,11 +2828,13 @@ public class HospitalManagement extends Application {
 		    });
 		});
 		
+		historyLab.setOnAction(e -> showHistoryFor("lab", selectedLabId, labTable, Lab::getId));
+
 		deleteLab.setOnAction(e -> {
 		    String id = selectedLabId;
-		    if ((id == null || id.isBlank()) && labListView != null) {
-		        String row = labListView.getSelectionModel().getSelectedItem();
-		        if (row != null) id = leading(row, 10);
+		    if ((id == null || id.isBlank()) && labTable != null) {
+		        Lab row = labTable.getSelectionModel().getSelectedItem();
+		        if (row != null) id = row.getId();
 		    }
 		    if (id == null || id.isBlank()) {
 		        showInfo("Delete Lab", "Please select a lab to delete.");
@@ -1957,7 +2843,6 @@ public class HospitalManagement extends Application {
 		    if (!confirm("Delete Lab", "Are you sure you want to delete lab " + id + "?")) return;
 		    boolean ok = labRepo.deleteById(id);
 		    showInfo("Delete Lab", ok ? "Deleted lab " + id : "Failed to delete lab " + id);
-		    showLab.fire();
 		});
 
 		Scene sc5 = new Scene(main7, 900, 650);
@@ -1987,6 +2872,10 @@ public class HospitalManagement extends Application {
 		deleteFacility.setPrefWidth(100);
 		updateFacility.setMinHeight(50);
 		deleteFacility.setMinHeight(50);
+		Button historyFacility = new Button("History");
+		historyFacility.setPrefWidth(100);
+		historyFacility.setMinHeight(50);
+		historyFacility.setStyle("-fx-border-color: #000000; -fx-background-color: #FFFFFF;");
 
 		Button addFacilityTo = new Button("Add");
 		addFacilityTo.setPrefWidth(100);
@@ -2017,7 +2906,7 @@ public class HospitalManagement extends Application {
 		VBox facilityV1 = new VBox();
 		VBox facilityV2 = new VBox();
 
-		facilityV1.getChildren().addAll(addFacility, showFacility, returnTo6, updateFacility, deleteFacility);
+		facilityV1.getChildren().addAll(addFacility, showFacility, returnTo6, updateFacility, deleteFacility, historyFacility);
 		facilityV1.setAlignment(Pos.BASELINE_CENTER);
 		facilityV1.setSpacing(30);
 		facilityV1.setBackground(new Background(new BackgroundFill(Color.WHITE, new CornerRadii(0), Insets.EMPTY)));
@@ -2073,13 +2962,13 @@ public class HospitalManagement extends Application {
 		facilityV3.setPrefSize(400, 600);
 		facilityV3.setPadding(new Insets(20));
 
-		// ListView (read)
-		facilityListView = makeBWListView();
-		facilityListView.getSelectionModel().setSelectionMode(SelectionMode.SINGLE);
-		facilityListView.setMinHeight(470);
-		facilityListView.setOnMouseClicked(ev -> {
-		    String row = facilityListView.getSelectionModel().getSelectedItem();
-		    selectedFacilityId = leading(row, 10);
+		// TableView (read)
+		facilityTable = facilityTableView();
+		facilityTable.getSelectionModel().setSelectionMode(SelectionMode.SINGLE);
+		facilityTable.setMinHeight(470);
+		facilityTable.setOnMouseClicked(ev -> {
+		    Facility row = facilityTable.getSelectionModel().getSelectedItem();
+		    selectedFacilityId = row == null ? null : row.getId();
 		    facilityTf6.setText("Selected Facility ID: " + ns(selectedFacilityId));
 		});
 
@@ -2121,21 +3010,8 @@ public class HospitalManagement extends Application {
 		showFacility.setOnAction(e -> {
 			facilityV2.getChildren().clear();
 
-			Label facilityHeader = new Label("   ID            NAME                           DESCRIPTION                                   STATUS             CAPACITY");
-			facilityHeader.setFont(Font.font("Poppins", FontWeight.BOLD, FontPosture.REGULAR, 15));
-			facilityHeader.setStyle("-fx-text-fill: #000000;");
-
-			facilityListView.getItems().clear();
-			java.util.List<Facility> all = new java.util.ArrayList<>(facilityRepo.findAll());
-			all.sort((a, b) -> cmpId(a.getId(), b.getId()));
-			for (Facility ff : all) {
-				String row = String.format("%-10s%-20s%-35s%-15s%-10s",
-						ns(ff.getId()), ns(ff.getName()), ns(ff.getDescription()), ns(ff.getStatus()), ns(String.valueOf(ff.getCapacity())));
-				facilityListView.getItems().add(row);
-			}
-			facilityListView.getSelectionModel().clearSelection();
-			
-			facilityV2.getChildren().addAll(facilityHeader, facilityListView);
+			refreshRows(facilityTable, facilityRepo::findAll, Facility::getId);
+			facilityV2.getChildren().add(facilityTable);
 		});
 		
 		returnTo6.setOnAction(e -> {
@@ -2146,9 +3022,9 @@ public class HospitalManagement extends Application {
 		    facilityTf6.setText("");
 
 		    String id = selectedFacilityId;
-		    if ((id == null || id.isBlank()) && facilityListView != null) {
-		        String row = facilityListView.getSelectionModel().getSelectedItem();
-		        if (row != null) id = leading(row, 10);
+		    if ((id == null || id.isBlank()) && facilityTable != null) {
+		        Facility row = facilityTable.getSelectionModel().getSelectedItem();
+		        if (row != null) id = row.getId();
 		    }
 		    if (id == null || id.isBlank()) {
 		        facilityTf6.setText("Please select a facility from the list first.");
@@ -2158,7 +3034,6 @@ public class HospitalManagement extends Application {
 		    var opt = facilityRepo.findById(id);
 		    if (opt.isEmpty()) {
 		        facilityTf6.setText("Selected facility no longer exists.");
-		        showFacility.fire();
 		        return;
 		    }
 
@@ -2197,11 +3072,13 @@ public class HospitalManagement extends Application {
 		    });
 		});
 		
+		historyFacility.setOnAction(e -> showHistoryFor("facility", selectedFacilityId, facilityTable, Facility::getId));
+
 		deleteFacility.setOnAction(e -> {
 		    String id = selectedFacilityId;
-		    if ((id == null || id.isBlank()) && facilityListView != null) {
-		        String row = facilityListView.getSelectionModel().getSelectedItem();
-		        if (row != null) id = leading(row, 10);
+		    if ((id == null || id.isBlank()) && facilityTable != null) {
+		        Facility row = facilityTable.getSelectionModel().getSelectedItem();
+		        if (row != null) id = row.getId();
 		    }
 		    if (id == null || id.isBlank()) {
 		        showInfo("Delete Facility", "Please select a facility to delete.");
@@ -2210,7 +3087,6 @@ public class HospitalManagement extends Application {
 		    if (!confirm("Delete Facility", "Are you sure you want to delete facility " + id + "?")) return;
 		    boolean ok = facilityRepo.deleteById(id);
 		    showInfo("Delete Facility", ok ? "Deleted facility " + id : "Failed to delete " + id);
-		    showFacility.fire();
 		});
 
 		Scene sc6 = new Scene(main8, 900, 650);
@@ -2247,72 +3123,99 @@ public class HospitalManagement extends Application {
 	    });
 	}
 	
-	// === Notification table safety: ensure columns exist (id, severity, title, detail, seen, created_at)
-	private void ensureNotificationTableColumns() {
-	    try (var c = Db.get().getConnection(); var s = c.createStatement()) {
-	        // Add columns if they don't exist (SQLite-friendly)
-	        try { s.executeUpdate("ALTER TABLE notification ADD COLUMN seen INTEGER DEFAULT 0"); } catch (Exception ignore) {}
-	        try { s.executeUpdate("ALTER TABLE notification ADD COLUMN created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP"); } catch (Exception ignore) {}
-	    } catch (Exception ignore) {}
+	private void markSeen(java.util.Collection<Long> ids) {
+	    try {
+	        notificationRepo.markSeen(ids);
+	    } catch (RuntimeException ex) {
+	        System.err.println("Could not mark " + ids.size() + " notification(s) seen: " + ex.getMessage());
+	    }
 	}
 
-	// === Fetch unseen notifications (oldest first)
-	private java.util.List<NotificationRow> fetchUnseenNotifications() {
-	    ensureNotificationTableColumns();
-	    java.util.List<NotificationRow> out = new java.util.ArrayList<>();
-	    try (var c = Db.get().getConnection();
-	         var ps = c.prepareStatement(
-	             "SELECT id,severity,title,detail " +
-	             "FROM notification WHERE COALESCE(seen,0)=0 " +
-	             "ORDER BY COALESCE(created_at,datetime('now')) ASC, id ASC")) {
-	        try (var rs = ps.executeQuery()) {
-	            while (rs.next()) {
-	                out.add(new NotificationRow(
-	                    rs.getInt("id"),
-	                    ns(rs.getString("severity")),
-	                    ns(rs.getString("title")),
-	                    ns(rs.getString("detail"))
-	                ));
-	            }
-	        }
-	    } catch (Exception ignore) {}
-	    return out;
+	// every unseen notification of the kind, including ones not folded into a toast yet
+	private void acknowledgeKind(String kind) {
+	    try {
+	        notificationRepo.acknowledgeKind(kind);
+	    } catch (RuntimeException ex) {
+	        System.err.println("Could not acknowledge " + kind + " notifications: " + ex.getMessage());
+	    }
 	}
 
-	private void markSeen(int id) {
-	    try (var c = Db.get().getConnection();
-	         var ps = c.prepareStatement("UPDATE notification SET seen=1 WHERE id=?")) {
-	        ps.setInt(1, id);
-	        ps.executeUpdate();
-	    } catch (Exception ignore) {}
+	// === Toast queue driver: one summary toast per alert kind ===
+	// Unseen notifications are folded into the group for their kind; a group that is already
+	// queued or on screen just grows, so a burst of alerts costs one node rather than one each.
+	private static final class ToastGroup {
+	    final String kind;
+	    final List<Long> ids = new ArrayList<>();
+	    final List<Notification> sample = new ArrayList<>();   // first TOAST_DETAIL_ROWS, for the detail list
+	    Runnable refresh;                                       // set while rendered
+
+	    ToastGroup(String kind) { this.kind = kind; }
+
+	    void add(Notification n) {
+	        ids.add(n.getId());
+	        if (sample.size() < TOAST_DETAIL_ROWS) sample.add(n);
+	    }
+
+	    String summary() {
+	        int n = ids.size();
+	        if (n == 1) return sample.get(0).getTitle();
+	        return switch (kind) {
+	            case StockAlerts.KIND_LOW_STOCK -> n + " medicines low on stock";
+	            case StockAlerts.KIND_SAFETY_STOCK -> n + " medicines below safety stock";
+	            case StockAlerts.KIND_EXPIRING -> n + " medicines expiring soon";
+	            default -> n + " notifications";
+	        };
+	    }
 	}
 
-	// === Toast queue driver ===
-	private void showAlertsOnStartup() {
-	    var rows = fetchUnseenNotifications();
-	    if (rows.isEmpty()) return;
-
-	    for (var r : rows) {
-	        toastQueue.add(() -> showToast(r, () -> {
-	            handleToastNavigation(r);  // click → go to the right list
-	            markSeen(r.id);
-	        }, () -> {
-	            // closed (X)
-	            markSeen(r.id);
-	        }));
+	private void showUnseenAlerts() {
+	    if (toastArea == null) return;
+	    var touched = new java.util.LinkedHashSet<ToastGroup>();
+	    List<Notification> rows;
+	    do {
+	        rows = notificationRepo.findUnseen(lastQueuedAlertId, 1000);
+	        for (var r : rows) {
+	            lastQueuedAlertId = Math.max(lastQueuedAlertId, r.getId());
+	            ToastGroup g = toastGroups.computeIfAbsent(r.getKind(), k -> {
+	                ToastGroup ng = new ToastGroup(k);
+	                toastQueue.add(ng);
+	                return ng;
+	            });
+	            g.add(r);
+	            touched.add(g);
+	        }
+	    } while (rows.size() == 1000);
+	    for (ToastGroup g : touched) if (g.refresh != null) g.refresh.run();
+	    pumpToasts();
+	}
+
+	// shows queued groups while there is a free slot and a limiter token; otherwise retries when one frees up
+	private void pumpToasts() {
+	    while (!toastQueue.isEmpty() && toastArea.getChildren().size() < MAX_TOASTS) {
+	        if (!toastLimiter.tryAcquire()) {
+	            if (toastRetry == null) {
+	                long waitMs = Math.max(1, toastLimiter.nanosUntilAvailable() / 1_000_000);
+	                toastRetry = new javafx.animation.PauseTransition(Duration.millis(waitMs));
+	                toastRetry.setOnFinished(e -> { toastRetry = null; pumpToasts(); });
+	                toastRetry.play();
+	            }
+	            return;
+	        }
+	        showToast(toastQueue.pollFirst());
 	    }
-	    playNextToast();
 	}
 
-	private void playNextToast() {
-	    var job = toastQueue.pollFirst();
-	    if (job != null) job.run();
+	// the group is done once its toast leaves; later alerts of the kind start a new one
+	private void finishToast(ToastGroup g, boolean seen) {
+	    toastGroups.remove(g.kind, g);
+	    g.refresh = null;
+	    if (seen) markSeen(g.ids);
 	}
 
 	// === Toast UI ===
-	private void showToast(NotificationRow r, Runnable onClick, Runnable onClose) {
+	private void showToast(ToastGroup g) {
 	    HBox box = new HBox(12);
-	    box.setAlignment(Pos.CENTER_LEFT);
+	    box.setAlignment(Pos.TOP_LEFT);
 	    box.setStyle(
 	        "-fx-background-color: #FFFFFF;" +
 	        "-fx-border-color: #000000;" +
@@ -2326,11 +3229,23 @@ public class HospitalManagement extends Application {
 	    dot.setStyle("-fx-font-size: 12px; -fx-font-weight: bold;");
 
 	    VBox text = new VBox(2);
-	    Label title = new Label(r.title);
+	    Label title = new Label();
 	    title.setStyle("-fx-text-fill: #000000; -fx-font-weight: bold; -fx-font-size: 13px;");
-	    Label detail = new Label(r.detail == null ? "" : r.detail);
+	    Label detail = new Label();
 	    detail.setStyle("-fx-text-fill: #000000; -fx-font-size: 12px;");
-	    text.getChildren().addAll(title, detail);
+	    Button more = new Button();
+	    more.setFocusTraversable(false);
+	    more.setStyle("-fx-background-color: transparent; -fx-text-fill: #000000; -fx-underline: true; -fx-padding: 0; -fx-font-size: 12px; -fx-cursor: hand;");
+	    Button ackAll = new Button("Acknowledge all");
+	    ackAll.setFocusTraversable(false);
+	    ackAll.setStyle(more.getStyle());
+	    VBox rowsBox = new VBox(2);
+	    var rowsScroll = new javafx.scene.control.ScrollPane(rowsBox);
+	    rowsScroll.setFitToWidth(true);
+	    rowsScroll.setMaxHeight(180);
+	    rowsScroll.setVisible(false);
+	    rowsScroll.setManaged(false);
+	    text.getChildren().addAll(title, detail, new HBox(12, more, ackAll), rowsScroll);
 
 	    var spacer = new StackPane();
 	    HBox.setHgrow(spacer, javafx.scene.layout.Priority.ALWAYS);
@@ -2341,16 +3256,67 @@ public class HospitalManagement extends Application {
 
 	    box.getChildren().addAll(dot, text, spacer, close);
 
+	    // auto-hide; restarted whenever the group grows, stopped while the detail list is open
+	    var showTime = new javafx.animation.PauseTransition(Duration.seconds(6));
+	    showTime.setOnFinished(e -> {
+	        finishToast(g, false);
+	        dismissToast(box, this::pumpToasts);
+	    });
+
+	    g.refresh = () -> {
+	        title.setText(g.summary());
+	        boolean single = g.ids.size() == 1;
+	        detail.setText(single ? ns(g.sample.get(0).getDetail()) : "Click to open");
+	        more.setVisible(!single);
+	        more.setManaged(!single);
+	        ackAll.setVisible(!single);
+	        ackAll.setManaged(!single);
+	        more.setText((rowsScroll.isVisible() ? "Hide details" : "Show details") + " (" + g.ids.size() + ")");
+	        if (rowsScroll.isVisible()) {
+	            rowsBox.getChildren().clear();
+	            for (Notification n : g.sample) {
+	                Label l = new Label(n.getTitle() + " — " + ns(n.getDetail()));
+	                l.setStyle("-fx-text-fill: #000000; -fx-font-size: 11px;");
+	                rowsBox.getChildren().add(l);
+	            }
+	            if (g.ids.size() > g.sample.size()) {
+	                rowsBox.getChildren().add(new Label("… and " + (g.ids.size() - g.sample.size()) + " more"));
+	            }
+	        } else if (showTime.getStatus() == javafx.animation.Animation.Status.RUNNING) {
+	            showTime.playFromStart();
+	        }
+	    };
+	    g.refresh.run();
+
+	    more.setOnAction(e -> {
+	        boolean open = !rowsScroll.isVisible();
+	        rowsScroll.setVisible(open);
+	        rowsScroll.setManaged(open);
+	        if (open) showTime.stop(); else showTime.playFromStart();
+	        g.refresh.run();
+	    });
+
 	    // Click: navigate; Close: dismiss
 	    box.setOnMouseClicked(e -> {
-	        if (e.getTarget() != close) {
-	            onClick.run();
-	            dismissToast(box, this::playNextToast);
+	        // g.refresh is cleared once a button already finished this toast
+	        if (g.refresh != null && e.getTarget() != close && e.getTarget() != more && e.getTarget() != ackAll
+	                && !rowsScroll.isVisible()) {
+	            showTime.stop();
+	            finishToast(g, true);
+	            handleToastNavigation(g.kind);
+	            dismissToast(box, this::pumpToasts);
 	        }
 	    });
 	    close.setOnAction(e -> {
-	        onClose.run();
-	        dismissToast(box, this::playNextToast);
+	        showTime.stop();
+	        finishToast(g, true);
+	        dismissToast(box, this::pumpToasts);
+	    });
+	    ackAll.setOnAction(e -> {
+	        showTime.stop();
+	        acknowledgeKind(g.kind);
+	        finishToast(g, false);
+	        dismissToast(box, this::pumpToasts);
 	    });
 
 	    // Add + animate
@@ -2365,26 +3331,13 @@ public class HospitalManagement extends Application {
 	    var slideIn = new javafx.animation.TranslateTransition(Duration.millis(180), box);
 	    slideIn.setFromY(20); slideIn.setToY(0);
 
-	    var showTime = new javafx.animation.PauseTransition(Duration.seconds(6));
-
-	    var fadeOut = new javafx.animation.FadeTransition(Duration.millis(160), box);
-	    fadeOut.setFromValue(1); fadeOut.setToValue(0);
-
-	    var seq = new javafx.animation.SequentialTransition(
-	        new javafx.animation.ParallelTransition(fadeIn, slideIn),
-	        showTime,
-	        fadeOut
-	    );
-	    seq.setOnFinished(e -> {
-	        toastArea.getChildren().remove(box);
-	        playNextToast();
-	    });
-	    seq.play();
+	    new javafx.animation.ParallelTransition(fadeIn, slideIn).play();
+	    showTime.play();
 	}
 
 	private void dismissToast(javafx.scene.Node n, Runnable after) {
 	    var fade = new javafx.animation.FadeTransition(Duration.millis(120), n);
-	    fade.setFromValue(1); fade.setToValue(0);
+	    fade.setFromValue(n.getOpacity()); fade.setToValue(0);
 	    fade.setOnFinished(e -> {
 	        toastArea.getChildren().remove(n);
 	        if (after != null) after.run();
@@ -2393,25 +3346,25 @@ public class HospitalManagement extends Application {
 	}
 
 	// === Where a toast should send the user ===
-	// Today: all your automated alerts are for Medical (low stock, expiring).
-	// Extend this to route other types later (e.g., if r.title startsWith("Overdue bill:") → showPatientMenu()).
-	private void handleToastNavigation(NotificationRow r) {
-	    goToMedicalListAfterOpen = true;
-	    showMedicalMenu();
+	// Stock and expiry alerts open the medical list; general messages have nowhere to go.
+	private void handleToastNavigation(String kind) {
+	    if (StockAlerts.KIND_LOW_STOCK.equals(kind) || StockAlerts.KIND_SAFETY_STOCK.equals(kind)
+	            || StockAlerts.KIND_EXPIRING.equals(kind)) {
+	        goToMedicalListAfterOpen = true;
+	        showMedicalMenu();
+	    }
 	}
 	
-	private void notifyInfo(String title, String detail) { insertNotification("INFO", title, detail); }
-	private void notifyWarn(String title, String detail) { insertNotification("WARN", title, detail); }
-
-	private void insertNotification(String severity, String title, String detail) {
-	    try (var c = Db.get().getConnection();
-	         var ps = c.prepareStatement(
-	            "INSERT INTO notification(severity,title,detail) VALUES(?,?,?)")) {
-	        ps.setString(1, severity);
-	        ps.setString(2, title);
-	        ps.setString(3, detail);
-	        ps.executeUpdate();
-	    } catch (Exception ignored) {}
+	private void notifyInfo(String title, String detail) { notify("INFO", title, detail); }
+	private void notifyWarn(String title, String detail) { notify("WARN", title, detail); }
+
+	// a failed notification must not fail the UI action that raised it
+	private void notify(String severity, String title, String detail) {
+	    try {
+	        notificationRepo.raise(severity, "GENERAL", null, title, detail);
+	    } catch (RuntimeException ex) {
+	        System.err.println("Could not raise notification \"" + title + "\": " + ex.getMessage());
+	    }
 	}
 
 	private int cmpId(String a, String b) {
@@ -2454,6 +3407,7 @@ public class HospitalManagement extends Application {
 	private void showDashboardPopup() {
 		// ----- 1) Legend-style entity summary (swatches match the pie chart) -----
 		Label patientsCount   = new Label();
+		Label admittedCount   = new Label();
 		Label doctorsCount    = new Label();
 		Label staffCount      = new Label();
 		Label medicalCount    = new Label();
@@ -2490,6 +3444,7 @@ public class HospitalManagement extends Application {
 		    6,
 		    summaryTitle,
 		    row.apply("Patients",   patientsCount),
+		    row.apply("Admitted",   admittedCount),
 		    row.apply("Doctors",    doctorsCount),
 		    row.apply("Staff",      staffCount),
 		    row.apply("Medical",    medicalCount),
@@ -2503,23 +3458,17 @@ public class HospitalManagement extends Application {
 		// Update counts (numbers only, the label text is the left name)
 		Runnable refreshCounts = () -> {
 		    try {
-		        patientsCount.setText(String.valueOf(patientRepo.findAll().size()));
+		        patientsCount.setText(String.valueOf(patientCube.total()));
+		        admittedCount.setText(String.valueOf(censusRepo.currentCensus()));
 		        doctorsCount.setText(String.valueOf(doctorRepo.findAll().size()));
 		        staffCount.setText(String.valueOf(staffRepo.findAll().size()));
 		        medicalCount.setText(String.valueOf(medicalRepo.findAll().size()));
 		        labsCount.setText(String.valueOf(labRepo.findAll().size()));
 		        facilitiesCount.setText(String.valueOf(facilityRepo.findAll().size()));
 
-		        ensureNotificationTableColumns();
-		        int unseen = 0;
-		        try (var c = Db.get().getConnection();
-		             var rs = c.createStatement().executeQuery(
-		                 "SELECT COUNT(*) FROM notification WHERE COALESCE(seen,0)=0")) {
-		            if (rs.next()) unseen = rs.getInt(1);
-		        }
-		        notifsCount.setText(String.valueOf(unseen));
+		        notifsCount.setText(String.valueOf(notificationRepo.countUnseen()));
 		    } catch (Exception e) {
-		        patientsCount.setText("?"); doctorsCount.setText("?"); staffCount.setText("?");
+		        patientsCount.setText("?"); admittedCount.setText("?"); doctorsCount.setText("?"); staffCount.setText("?");
 		        medicalCount.setText("?");  labsCount.setText("?");   facilitiesCount.setText("?");
 		        notifsCount.setText("?");
 		    }
@@ -2543,7 +3492,7 @@ public class HospitalManagement extends Application {
 	    Runnable refreshChart = () -> {
 	        distributionChart.getData().clear();
 
-	        int cPatients   = patientRepo.findAll().size();
+	        int cPatients   = patientCube.total();
 	        int cDoctors    = doctorRepo.findAll().size();
 	        int cStaff      = staffRepo.findAll().size();
 	        int cMedical    = medicalRepo.findAll().size();
@@ -2621,13 +3570,10 @@ public class HospitalManagement extends Application {
 	        lvLowStock.getItems().clear();
 	        lvExpSoon.getItems().clear();
 	        try (var c = Db.get().getConnection()) {
-	            try (var rs = c.createStatement().executeQuery(
-	                    "SELECT id,name,count FROM medical WHERE count <= 10 ORDER BY count ASC LIMIT 10")) {
-	                while (rs.next()) {
-	                    lvLowStock.getItems().add(
-	                        String.format("%-8s %-18s count=%d",
-	                                      ns(rs.getString("id")), ns(rs.getString("name")), rs.getInt("count")));
-	                }
+	            for (Medical m : medicalRepo.findBelowReorderPoint(10)) {
+	                lvLowStock.getItems().add(
+	                    String.format("%-8s %-18s count=%d / reorder %d",
+	                                  ns(m.getId()), ns(m.getName()), m.getCount(), m.getReorderPoint()));
 	            }
 	            try (var rs = c.createStatement().executeQuery(
 	                    "SELECT id,name,expiry_date FROM medical " +
@@ -2641,7 +3587,186 @@ public class HospitalManagement extends Application {
 	        } catch (Exception ignored) {}
 	    };
 
-	    // ----- 5) Refresh button -----
+	    // Projected stock-outs from the nightly consumption forecast
+	    ListView<String> lvStockOut = makeBWListView();
+	    lvStockOut.setMinHeight(140);
+
+	    Runnable refreshForecast = () -> {
+	        lvStockOut.getItems().clear();
+	        if (!stockForecast.isReady()) {
+	            lvStockOut.getItems().add("Forecast is still being computed…");
+	            return;
+	        }
+	        java.time.LocalDate today = java.time.LocalDate.now(java.time.ZoneOffset.UTC);
+	        for (StockForecast.Projection p : stockForecast.soonest(10)) {
+	            lvStockOut.getItems().add(
+	                String.format("%-8s %-18s %5.1f/day  out %s (%d d)",
+	                              ns(p.getId()), ns(p.getName()), p.getDailyRate(), p.getStockOut(),
+	                              java.time.temporal.ChronoUnit.DAYS.between(today, p.getStockOut())));
+	        }
+	    };
+
+	    // ----- 5) Census trend (read from the census_daily rollup) -----
+	    CategoryAxis censusX = new CategoryAxis();
+	    NumberAxis censusY = new NumberAxis();
+	    LineChart<String, Number> censusChart = new LineChart<>(censusX, censusY);
+	    censusChart.setTitle("Daily Census (30 days)");
+	    censusChart.setCreateSymbols(false);
+	    censusChart.setMinHeight(240);
+	    Label losLabel = new Label();
+	    losLabel.setStyle("-fx-text-fill:#000000; -fx-font-size:12px;");
+
+	    Runnable refreshCensus = () -> {
+	        censusChart.getData().clear();
+	        java.time.LocalDate to = java.time.LocalDate.now();
+	        java.time.LocalDate from = to.minusDays(29);
+	        XYChart.Series<String, Number> census = new XYChart.Series<>();
+	        XYChart.Series<String, Number> admits = new XYChart.Series<>();
+	        XYChart.Series<String, Number> discharges = new XYChart.Series<>();
+	        census.setName("In bed");
+	        admits.setName("Admissions");
+	        discharges.setName("Discharges");
+	        try {
+	            for (CensusDay d : censusRepo.findRange(from, to)) {
+	                String x = d.getDay().format(DateTimeFormatter.ofPattern("MM-dd"));
+	                census.getData().add(new XYChart.Data<>(x, d.getCensus()));
+	                admits.getData().add(new XYChart.Data<>(x, d.getAdmissions()));
+	                discharges.getData().add(new XYChart.Data<>(x, d.getDischarges()));
+	            }
+	            var los = censusRepo.averageLengthOfStay(from, to);
+	            losLabel.setText(los.isPresent()
+	                ? String.format("Average length of stay (discharged last 30 days): %.1f days", los.getAsDouble())
+	                : "Average length of stay: no discharges in the last 30 days");
+	        } catch (RuntimeException ex) {
+	            losLabel.setText("Census unavailable: " + ex.getMessage());
+	        }
+	        censusChart.getData().add(census);
+	        censusChart.getData().add(admits);
+	        censusChart.getData().add(discharges);
+	    };
+
+	    // ----- 6) Patient breakdowns (sliced from the in-memory patient cube) -----
+	    CategoryAxis diseaseX = new CategoryAxis();
+	    NumberAxis diseaseY = new NumberAxis();
+	    StackedBarChart<String, Number> diseaseChart = new StackedBarChart<>(diseaseX, diseaseY);
+	    diseaseChart.setTitle("Patients by Disease & Status");
+	    diseaseChart.setMinHeight(260);
+
+	    CategoryAxis ageX = new CategoryAxis();
+	    NumberAxis ageY = new NumberAxis();
+	    BarChart<String, Number> ageChart = new BarChart<>(ageX, ageY);
+	    ageChart.setTitle("Patients by Age Band & Sex");
+	    ageChart.setMinHeight(260);
+
+	    Runnable refreshCube = () -> {
+	        diseaseChart.getData().clear();
+	        ageChart.getData().clear();
+
+	        // top diseases only; the rest would not fit on the axis
+	        List<String> topDiseases = new ArrayList<>(patientCube.rollup(PatientCube.Dim.DISEASE, null).keySet());
+	        if (topDiseases.size() > 8) topDiseases = topDiseases.subList(0, 8);
+	        var byDisease = patientCube.pivot(PatientCube.Dim.STATUS, PatientCube.Dim.DISEASE, null);
+	        for (var status : byDisease.entrySet()) {
+	            XYChart.Series<String, Number> series = new XYChart.Series<>();
+	            series.setName(status.getKey());
+	            for (String disease : topDiseases) {
+	                series.getData().add(new XYChart.Data<>(disease, status.getValue().getOrDefault(disease, 0)));
+	            }
+	            diseaseChart.getData().add(series);
+	        }
+
+	        var byAge = patientCube.pivot(PatientCube.Dim.SEX, PatientCube.Dim.AGE_BAND, null);
+	        for (var sex : byAge.entrySet()) {
+	            XYChart.Series<String, Number> series = new XYChart.Series<>();
+	            series.setName(sex.getKey());
+	            for (String band : PatientCube.ageBandLabels()) {
+	                series.getData().add(new XYChart.Data<>(band, sex.getValue().getOrDefault(band, 0)));
+	            }
+	            ageChart.getData().add(series);
+	        }
+	    };
+
+	    // ----- 7) Payroll by designation (payroll_summary rollup) -----
+	    CategoryAxis payX = new CategoryAxis();
+	    NumberAxis payY = new NumberAxis();
+	    BarChart<String, Number> payrollChart = new BarChart<>(payX, payY);
+	    payrollChart.setTitle("Payroll by Designation");
+	    payrollChart.setLegendVisible(false);
+	    payrollChart.setMinHeight(240);
+	    payY.setLabel("Total salary");
+	    ListView<String> lvPayroll = makeBWListView();
+	    lvPayroll.setMinHeight(200);
+
+	    Runnable refreshPayroll = () -> {
+	        payrollChart.getData().clear();
+	        lvPayroll.getItems().clear();
+	        XYChart.Series<String, Number> series = new XYChart.Series<>();
+	        try {
+	            for (PayrollSummary p : payrollRepo.findAll()) {
+	                series.getData().add(new XYChart.Data<>(p.getDesignation(), p.getTotalSalary()));
+	                lvPayroll.getItems().add(p.toString());
+	            }
+	            lvPayroll.getItems().add(payrollRepo.totals().toString());
+	        } catch (RuntimeException ex) {
+	            lvPayroll.getItems().add("Payroll unavailable: " + ex.getMessage());
+	        }
+	        payrollChart.getData().add(series);
+	        for (XYChart.Data<String, Number> data : series.getData()) {
+	            if (data.getNode() != null) data.getNode().setStyle("-fx-bar-fill: " + ENTITY_COLORS.get("Staff") + ";");
+	        }
+	    };
+
+	    // ----- 8) Stock value (stock_value_* rollups) -----
+	    CategoryAxis monthX = new CategoryAxis();
+	    NumberAxis monthY = new NumberAxis();
+	    BarChart<String, Number> expiryValueChart = new BarChart<>(monthX, monthY);
+	    expiryValueChart.setTitle("Stock Value by Expiry Month");
+	    expiryValueChart.setLegendVisible(false);
+	    expiryValueChart.setMinHeight(240);
+
+	    CategoryAxis mfrX = new CategoryAxis();
+	    NumberAxis mfrY = new NumberAxis();
+	    BarChart<String, Number> mfrValueChart = new BarChart<>(mfrX, mfrY);
+	    mfrValueChart.setTitle("Stock Value by Manufacturer");
+	    mfrValueChart.setLegendVisible(false);
+	    mfrValueChart.setMinHeight(240);
+
+	    Runnable refreshValuation = () -> {
+	        expiryValueChart.getData().clear();
+	        mfrValueChart.getData().clear();
+	        XYChart.Series<String, Number> byMonth = new XYChart.Series<>();
+	        XYChart.Series<String, Number> byMfr = new XYChart.Series<>();
+	        try {
+	            // already-expired stock folds into one bar, then the next 12 months
+	            java.time.YearMonth now = java.time.YearMonth.now();
+	            long expired = 0;
+	            for (StockValue v : valuationRepo.byExpiryMonth(java.time.YearMonth.of(1, 1), now.minusMonths(1))) expired += v.getValue();
+	            if (expired > 0) byMonth.getData().add(new XYChart.Data<>("Expired", expired));
+	            for (StockValue v : valuationRepo.byExpiryMonth(now, now.plusMonths(11))) {
+	                byMonth.getData().add(new XYChart.Data<>(v.getKey(), v.getValue()));
+	            }
+	            List<StockValue> mfrs = valuationRepo.byManufacturer();
+	            for (StockValue v : mfrs.subList(0, Math.min(8, mfrs.size()))) {
+	                byMfr.getData().add(new XYChart.Data<>(v.getKey(), v.getValue()));
+	            }
+	            mfrValueChart.setTitle("Stock Value by Manufacturer (total " + valuationRepo.totalValue() + ")");
+	        } catch (RuntimeException ex) {
+	            // same as the count tiles: show "?" rather than a partial or stale chart
+	            byMonth.getData().clear();
+	            byMfr.getData().clear();
+	            mfrValueChart.setTitle("Stock Value by Manufacturer (total ?)");
+	            System.err.println("Valuation refresh failed: " + ex.getMessage());
+	        }
+	        expiryValueChart.getData().add(byMonth);
+	        mfrValueChart.getData().add(byMfr);
+	        for (XYChart.Series<String, Number> series : List.of(byMonth, byMfr)) {
+	            for (XYChart.Data<String, Number> data : series.getData()) {
+	                if (data.getNode() != null) data.getNode().setStyle("-fx-bar-fill: " + ENTITY_COLORS.get("Medical") + ";");
+	            }
+	        }
+	    };
+
+	    // ----- 9) Refresh button -----
 	    Button refreshBtn = new Button("Refresh");
 	    refreshBtn.setStyle("-fx-background-color:#FFFFFF; -fx-text-fill:#000000; -fx-border-color:#000000;");
 	    refreshBtn.setOnAction(e -> {
@@ -2649,6 +3774,11 @@ public class HospitalManagement extends Application {
 	        refreshChart.run();
 	        refreshStock.run();
 	        refreshLists.run();
+	        refreshForecast.run();
+	        refreshCensus.run();
+	        refreshCube.run();
+	        refreshPayroll.run();
+	        refreshValuation.run();
 	    });
 
 	    // ----- Layout -----
@@ -2658,7 +3788,13 @@ public class HospitalManagement extends Application {
 	    // Top row (title + refresh)
 	    Label title = new Label("Dashboard");
 	    title.setStyle("-fx-text-fill:#000000; -fx-font-size:16px; -fx-font-weight:bold;");
-	    HBox topBar = new HBox(12, title, refreshBtn);
+	    Button simBtn = new Button("Reorder Simulator");
+	    simBtn.setStyle("-fx-background-color:#FFFFFF; -fx-text-fill:#000000; -fx-border-color:#000000;");
+	    simBtn.setOnAction(e -> showReorderSimulator());
+	    Button jobsBtn = new Button("Jobs");
+	    jobsBtn.setStyle("-fx-background-color:#FFFFFF; -fx-text-fill:#000000; -fx-border-color:#000000;");
+	    jobsBtn.setOnAction(e -> showJobsPopup());
+	    HBox topBar = new HBox(12, title, refreshBtn, simBtn, jobsBtn);
 	    topBar.setPadding(new Insets(8));
 	    root.setTop(topBar);
 
@@ -2671,10 +3807,20 @@ public class HospitalManagement extends Application {
 	    grid.add(summaryBox, 0, 0);
 	    grid.add(distributionChart, 1, 0);
 	    grid.add(stockChart, 0, 1);
-	    grid.add(new VBox(new Label("Low Stock"), lvLowStock), 1, 1);
+	    grid.add(new VBox(4, new Label("Low Stock"), lvLowStock, new Label("Projected Stock-outs"), lvStockOut), 1, 1);
 	    grid.add(new VBox(new Label("Expiring Soon"), lvExpSoon), 0, 2, 2, 1);
-
-	    root.setCenter(grid);
+	    grid.add(new VBox(4, censusChart, losLabel), 0, 3, 2, 1);
+	    grid.add(diseaseChart, 0, 4);
+	    grid.add(ageChart, 1, 4);
+	    grid.add(payrollChart, 0, 5);
+	    grid.add(new VBox(new Label("Payroll"), lvPayroll), 1, 5);
+	    grid.add(expiryValueChart, 0, 6);
+	    grid.add(mfrValueChart, 1, 6);
+
+	    javafx.scene.control.ScrollPane scroll = new javafx.scene.control.ScrollPane(grid);
+	    scroll.setFitToWidth(true);
+	    scroll.setStyle("-fx-background-color:#FFFFFF; -fx-background:#FFFFFF;");
+	    root.setCenter(scroll);
 
 	    // Show stage
 	    Stage s = new Stage();
@@ -2682,6 +3828,18 @@ public class HospitalManagement extends Application {
 	    s.setTitle("Dashboard");
 	    s.setScene(new Scene(root, 850, 650));
 	    refreshBtn.fire(); // auto-load
+
+	    // Follow the change feed: a burst of writes (here or in another instance) becomes one refresh a second later
+	    java.util.concurrent.atomic.AtomicBoolean refreshPending = new java.util.concurrent.atomic.AtomicBoolean();
+	    Runnable unsubscribe = changeFeed.subscribe(null, ch -> {
+	        if (!refreshPending.compareAndSet(false, true)) return;
+	        Platform.runLater(() -> {
+	            javafx.animation.PauseTransition settle = new javafx.animation.PauseTransition(Duration.seconds(1));
+	            settle.setOnFinished(x -> { refreshPending.set(false); refreshBtn.fire(); });
+	            settle.play();
+	        });
+	    });
+	    s.setOnHidden(e -> unsubscribe.run());
 	    s.show();
 	}
 }
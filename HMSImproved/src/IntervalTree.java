@@ -0,0 +1,95 @@
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Static, augmented interval tree over half-open int intervals [start, end).
+ *
+ * Intervals are sorted by start and laid out as an implicit balanced BST
+ * (middle element is the root of each sub-range); maxEnd[i] holds the largest
+ * end in the subtree rooted at i. A stabbing query is O(log n + k).
+ * The tree is immutable: callers rebuild it when the underlying set changes.
+ */
+public final class IntervalTree<T> {
+    private final int[] starts;
+    private final int[] ends;
+    private final int[] maxEnd;
+    private final Object[] values;
+
+    private IntervalTree(int[] starts, int[] ends, Object[] values) {
+        this.starts = starts;
+        this.ends = ends;
+        this.values = values;
+        this.maxEnd = new int[starts.length];
+        if (starts.length > 0) augment(0, starts.length - 1);
+    }
+
+    public static <T> Builder<T> builder() { return new Builder<>(); }
+
+    public static final class Builder<T> {
+        private int[] starts = new int[16];
+        private int[] ends = new int[16];
+        private Object[] values = new Object[16];
+        private int size;
+
+        public Builder<T> add(int start, int end, T value) {
+            if (end <= start) throw new IllegalArgumentException("empty interval");
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, size * 2);
+                ends = Arrays.copyOf(ends, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            starts[size] = start;
+            ends[size] = end;
+            values[size] = value;
+            size++;
+            return this;
+        }
+
+        public IntervalTree<T> build() {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) order[i] = i;
+            Arrays.sort(order, Comparator.comparingInt(i -> starts[i]));
+            int[] s = new int[size], e = new int[size];
+            Object[] v = new Object[size];
+            for (int i = 0; i < size; i++) {
+                s[i] = starts[order[i]];
+                e[i] = ends[order[i]];
+                v[i] = values[order[i]];
+            }
+            return new IntervalTree<>(s, e, v);
+        }
+    }
+
+    public int size() { return starts.length; }
+
+    /** Visits every value whose interval contains {@code point}. */
+    @SuppressWarnings("unchecked")
+    public void stab(int point, Consumer<T> visitor) {
+        if (starts.length > 0) stab(0, starts.length - 1, point, (Consumer<Object>) visitor);
+    }
+
+    public List<T> stab(int point) {
+        List<T> out = new ArrayList<>();
+        stab(point, out::add);
+        return out;
+    }
+
+    private int augment(int lo, int hi) {
+        int mid = (lo + hi) >>> 1;
+        int m = ends[mid];
+        if (lo < mid) m = Math.max(m, augment(lo, mid - 1));
+        if (mid < hi) m = Math.max(m, augment(mid + 1, hi));
+        maxEnd[mid] = m;
+        return m;
+    }
+
+    private void stab(int lo, int hi, int point, Consumer<Object> visitor) {
+        if (lo > hi) return;
+        int mid = (lo + hi) >>> 1;
+        if (maxEnd[mid] <= point) return;          // nothing in this subtree reaches the point
+        stab(lo, mid - 1, point, visitor);
+        if (starts[mid] > point) return;           // this node and the right side start too late
+        if (point < ends[mid]) visitor.accept(values[mid]);
+        stab(mid + 1, hi, point, visitor);
+    }
+}
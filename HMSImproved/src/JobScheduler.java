@@ -0,0 +1,282 @@
+import java.sql.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+import javax.sql.DataSource;
+
+/**
+ * Background job runner for the app's housekeeping (sealing, archival, sweeps, repairs).
+ *
+ * A job has a {@link Schedule} and is re-armed after each run, so it never overlaps itself.
+ * Start, duration and outcome of each run are written to job_run; on startup a job is due
+ * at {@code schedule.next(lastStart)}, and jobs already overdue are staggered instead of
+ * all firing at once. Jobs that fire more often than {@link #PERSIST_MIN_INTERVAL} only
+ * record their failures, so an idle app does not keep writing to the database. Each
+ * firing gets up to {@link Job#jitter(Duration)} of random delay so several instances
+ * sharing the database drift apart.
+ *
+ * A run that fails with SQLITE_BUSY/LOCKED is retried with exponential backoff (up to
+ * {@link #BUSY_RETRIES} times); any other failure, Errors included, is counted and logged
+ * and the job simply waits for its next slot. {@link #stats()} exposes per-job counters and latencies.
+ */
+public final class JobScheduler implements AutoCloseable {
+    public static final int BUSY_RETRIES = 5;
+    private static final long BUSY_BASE_MS = 200;
+    private static final long STARTUP_STAGGER_MS = 2_000;
+    public static final Duration PERSIST_MIN_INTERVAL = Duration.ofMinutes(1);
+
+    /** When a job runs next, given when it last started. */
+    public interface Schedule {
+        Instant next(Instant lastStart);
+    }
+
+    /** Fixed delay between starts. */
+    public static Schedule every(Duration interval) {
+        return last -> last.plus(interval);
+    }
+
+    /** Once a day at {@code time} UTC (SQLite's 'now'). */
+    public static Schedule dailyUtc(LocalTime time) {
+        return last -> {
+            ZonedDateTime at = last.atZone(ZoneOffset.UTC).with(time);
+            return (at.toInstant().isAfter(last) ? at : at.plusDays(1)).toInstant();
+        };
+    }
+
+    /** A registered task and its counters. */
+    public static final class Job {
+        private final String name;
+        private final Schedule schedule;
+        private final Supplier<String> task;
+        private long jitterMs;
+        private boolean runAtStartup;
+
+        // counters; written by the worker running the job, read by stats()
+        private long runs, failures, busyRetries;
+        private long lastMs = -1, maxMs, totalMs;
+        private Instant lastStart, nextRun;
+        private String lastError, lastOutcome;
+
+        public Job(String name, Schedule schedule, Runnable task) {
+            this(name, schedule, () -> { task.run(); return null; });
+        }
+
+        private Job(String name, Schedule schedule, Supplier<String> task) {
+            this.name = name;
+            this.schedule = schedule;
+            this.task = task;
+        }
+
+        /** A job whose task returns a one-line summary of what it did, shown as {@link Stats#getLastOutcome()}. */
+        public static Job reporting(String name, Schedule schedule, Supplier<String> task) {
+            return new Job(name, schedule, task);
+        }
+
+        /** Random extra delay of up to {@code max} on every firing. */
+        public Job jitter(Duration max) { this.jitterMs = max.toMillis(); return this; }
+
+        /** Also runs once after every start, whatever job_run says (for in-memory state). */
+        public Job runAtStartup() { this.runAtStartup = true; return this; }
+    }
+
+    /** Snapshot of one job's counters. */
+    public static final class Stats {
+        private final String name;
+        private final long runs, failures, busyRetries, lastMs, maxMs;
+        private final double meanMs;
+        private final Instant lastStart, nextRun;
+        private final String lastError, lastOutcome;
+
+        Stats(Job j) {
+            name = j.name;
+            runs = j.runs;
+            failures = j.failures;
+            busyRetries = j.busyRetries;
+            lastMs = j.lastMs;
+            maxMs = j.maxMs;
+            meanMs = j.runs == 0 ? 0 : (double) j.totalMs / j.runs;
+            lastStart = j.lastStart;
+            nextRun = j.nextRun;
+            lastError = j.lastError;
+            lastOutcome = j.lastOutcome;
+        }
+
+        public String getName() { return name; }
+        public long getRuns() { return runs; }
+        public long getFailures() { return failures; }
+        public long getBusyRetries() { return busyRetries; }
+        /** -1 before the first run in this process. */
+        public long getLastMs() { return lastMs; }
+        public long getMaxMs() { return maxMs; }
+        public double getMeanMs() { return meanMs; }
+        public Instant getLastStart() { return lastStart; }
+        public Instant getNextRun() { return nextRun; }
+        public String getLastError() { return lastError; }
+        /** Summary returned by the last successful run of a {@link Job#reporting} job; null otherwise. */
+        public String getLastOutcome() { return lastOutcome; }
+    }
+
+    private final DataSource ds;
+    private final ScheduledThreadPoolExecutor exec;
+    private final Map<String, Job> jobs = new LinkedHashMap<>();
+    private boolean started;
+
+    public JobScheduler(DataSource ds, int threads) {
+        this.ds = ds;
+        this.exec = new ScheduledThreadPoolExecutor(threads, r -> {
+            Thread t = new Thread(r, "hms-scheduler");
+            t.setDaemon(true);
+            return t;
+        });
+        exec.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);   // close() drops future firings
+    }
+
+    public synchronized JobScheduler register(Job job) {
+        if (started) throw new IllegalStateException("register jobs before start()");
+        if (jobs.putIfAbsent(job.name, job) != null) throw new IllegalArgumentException("duplicate job: " + job.name);
+        return this;
+    }
+
+    /** Arms every job from its persisted last start. */
+    public synchronized void start() {
+        if (started) return;
+        started = true;
+        Map<String, Instant> lastStarts = loadLastStarts();
+        Instant now = Instant.now();
+        int overdue = 0;
+        for (Job job : jobs.values()) {
+            Instant last = lastStarts.get(job.name);
+            job.lastStart = last;
+            Instant due = last == null ? now : job.schedule.next(last);
+            if (job.runAtStartup || !due.isAfter(now)) {
+                arm(job, overdue++ * STARTUP_STAGGER_MS);   // catch up one after another
+            } else {
+                arm(job, Duration.between(now, due).toMillis() + jitter(job));
+            }
+        }
+    }
+
+    public List<Stats> stats() {
+        List<Stats> out = new ArrayList<>();
+        synchronized (this) {
+            for (Job job : jobs.values()) {
+                synchronized (job) { out.add(new Stats(job)); }
+            }
+        }
+        return out;
+    }
+
+    /** Stops arming new runs and waits briefly for running jobs to finish. */
+    @Override
+    public void close() {
+        exec.shutdown();
+        try {
+            if (!exec.awaitTermination(5, TimeUnit.SECONDS)) exec.shutdownNow();
+        } catch (InterruptedException e) {
+            exec.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ----- running -----
+
+    private void arm(Job job, long delayMs) {
+        if (exec.isShutdown()) return;
+        synchronized (job) { job.nextRun = Instant.now().plusMillis(delayMs); }
+        try {
+            exec.schedule(() -> runOnce(job, 0), delayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException closing) {
+            // shutting down
+        }
+    }
+
+    private void runOnce(Job job, int attempt) {
+        Instant start = Instant.now();
+        long t0 = System.nanoTime();
+        String error = null, outcome = null;
+        boolean busy = false;
+        try {
+            outcome = job.task.get();
+        } catch (Throwable ex) {   // an Error must not end the job: nothing would re-arm it
+            busy = isBusy(ex);
+            error = ex.getClass().getSimpleName() + ": " + ex.getMessage();
+        }
+        long ms = (System.nanoTime() - t0) / 1_000_000;
+
+        if (busy && attempt < BUSY_RETRIES && !exec.isShutdown()) {
+            long backoff = BUSY_BASE_MS << attempt;
+            synchronized (job) { job.busyRetries++; }
+            try {
+                exec.schedule(() -> runOnce(job, attempt + 1),
+                    backoff + ThreadLocalRandom.current().nextLong(backoff / 2 + 1), TimeUnit.MILLISECONDS);
+                return;
+            } catch (RejectedExecutionException closing) {
+                // fall through and record the failure
+            }
+        }
+
+        synchronized (job) {
+            job.runs++;
+            job.lastMs = ms;
+            job.maxMs = Math.max(job.maxMs, ms);
+            job.totalMs += ms;
+            job.lastStart = start;
+            job.lastError = error;
+            if (error != null) job.failures++;
+            else job.lastOutcome = outcome;
+        }
+        if (error != null) System.err.println("Job " + job.name + " failed: " + error);
+
+        Instant next = job.schedule.next(start);
+        // a sub-minute job is due again right after a restart anyway, so only its failures are worth a write
+        if (error != null || !next.isBefore(start.plus(PERSIST_MIN_INTERVAL))) persist(job, start, ms, error);
+        arm(job, Math.max(0, Duration.between(Instant.now(), next).toMillis()) + jitter(job));
+    }
+
+    private static long jitter(Job job) {
+        return job.jitterMs <= 0 ? 0 : ThreadLocalRandom.current().nextLong(job.jitterMs + 1);
+    }
+
+    // SQLITE_BUSY (5) / SQLITE_LOCKED (6), including extended codes, anywhere in the cause chain
+    static boolean isBusy(Throwable t) {
+        for (; t != null; t = t.getCause()) {
+            if (t instanceof SQLException se) {
+                int primary = se.getErrorCode() & 0xff;
+                if (primary == 5 || primary == 6) return true;
+                String msg = se.getMessage();
+                if (msg != null && (msg.contains("SQLITE_BUSY") || msg.contains("SQLITE_LOCKED"))) return true;
+            }
+        }
+        return false;
+    }
+
+    // ----- job_run -----
+
+    private Map<String, Instant> loadLastStarts() {
+        Map<String, Instant> out = new HashMap<>();
+        try (Connection c = ds.getConnection(); Statement s = c.createStatement();
+             ResultSet rs = s.executeQuery("SELECT name, last_start_ms FROM job_run")) {
+            while (rs.next()) out.put(rs.getString(1), Instant.ofEpochMilli(rs.getLong(2)));
+        } catch (SQLException e) {
+            System.err.println("Could not read job_run; all jobs start now: " + e.getMessage());
+        }
+        return out;
+    }
+
+    private void persist(Job job, Instant start, long ms, String error) {
+        String sql = "INSERT INTO job_run(name, last_start_ms, last_ms, last_error, runs, failures) VALUES(?,?,?,?,1,?) " +
+                     "ON CONFLICT(name) DO UPDATE SET last_start_ms = excluded.last_start_ms, last_ms = excluded.last_ms, " +
+                     "last_error = excluded.last_error, runs = runs + 1, failures = failures + excluded.failures";
+        try (Connection c = ds.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setString(1, job.name);
+            ps.setLong(2, start.toEpochMilli());
+            ps.setLong(3, ms);
+            ps.setString(4, error);
+            ps.setInt(5, error == null ? 0 : 1);
+            ps.executeUpdate();
+        } catch (SQLException e) {
+            System.err.println("Could not record run of job " + job.name + ": " + e.getMessage());
+        }
+    }
+}
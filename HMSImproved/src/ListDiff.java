@@ -0,0 +1,105 @@
+import java.util.*;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+/**
+ * Keyed difference between two snapshots of a list: which rows of {@code before} were
+ * replaced or removed, and which rows of {@code after} are new.
+ *
+ * {@link #between} does the O(n) key matching and can run on any thread; {@link #applyTo}
+ * then touches only the changed positions, with contiguous removals and insertions done
+ * as one range each, so an observable list fires a handful of changes instead of a reset.
+ */
+public final class ListDiff<T> {
+    private final int beforeSize;
+    private final int[] updatedAt;      // positions in before
+    private final List<T> updated;      // replacement for each updatedAt
+    private final int[] removedAt;      // positions in before, ascending
+    private final List<T> inserted;     // in after's order
+
+    private ListDiff(int beforeSize, int[] updatedAt, List<T> updated, int[] removedAt, List<T> inserted) {
+        this.beforeSize = beforeSize;
+        this.updatedAt = updatedAt;
+        this.updated = updated;
+        this.removedAt = removedAt;
+        this.inserted = inserted;
+    }
+
+    /** Matches rows by {@code key}; a matched pair counts as updated unless {@code same} holds. */
+    public static <T> ListDiff<T> between(List<T> before, List<T> after, Function<T, String> key, BiPredicate<T, T> same) {
+        Map<String, Integer> index = new HashMap<>(before.size() * 4 / 3 + 1);
+        for (int i = 0; i < before.size(); i++) index.put(key.apply(before.get(i)), i);
+
+        boolean[] kept = new boolean[before.size()];
+        int[] upd = new int[Math.min(before.size(), after.size())];
+        List<T> updRows = new ArrayList<>();
+        List<T> ins = new ArrayList<>();
+        int nUpd = 0;
+        for (T row : after) {
+            Integer i = index.get(key.apply(row));
+            if (i == null || kept[i]) {
+                ins.add(row);
+                continue;
+            }
+            kept[i] = true;
+            if (!same.test(before.get(i), row)) {
+                upd[nUpd++] = i;
+                updRows.add(row);
+            }
+        }
+        return new ListDiff<>(before.size(), Arrays.copyOf(upd, nUpd), updRows, removed(kept), ins);
+    }
+
+    private static int[] removed(boolean[] kept) {
+        int n = 0;
+        for (boolean k : kept) if (!k) n++;
+        int[] out = new int[n];
+        for (int i = 0, j = 0; i < kept.length; i++) if (!kept[i]) out[j++] = i;
+        return out;
+    }
+
+    public boolean isEmpty() { return updatedAt.length == 0 && removedAt.length == 0 && inserted.isEmpty(); }
+    public int updates() { return updatedAt.length; }
+    public int removals() { return removedAt.length; }
+    public int insertions() { return inserted.size(); }
+
+    /**
+     * Applies the diff to {@code items}, which must still hold exactly the {@code before}
+     * snapshot. New rows go where {@code order} places them when {@code items} is sorted by
+     * it, or at the end when {@code order} is null (the caller re-sorts).
+     */
+    public void applyTo(List<T> items, Comparator<? super T> order) {
+        if (items.size() != beforeSize) throw new IllegalStateException("list changed since the snapshot was taken");
+        for (int k = 0; k < updatedAt.length; k++) items.set(updatedAt[k], updated.get(k));
+
+        for (int hi = removedAt.length - 1; hi >= 0; ) {   // back to front, one range per run
+            int lo = hi;
+            while (lo > 0 && removedAt[lo - 1] == removedAt[lo] - 1) lo--;
+            items.subList(removedAt[lo], removedAt[hi] + 1).clear();
+            hi = lo - 1;
+        }
+
+        if (inserted.isEmpty()) return;
+        if (order == null || items.isEmpty()) {
+            items.addAll(inserted);
+            return;
+        }
+        for (int k = 0; k < inserted.size(); ) {   // inserted is in order, so runs share a slot
+            int pos = insertionPoint(items, inserted.get(k), order);
+            int end = k + 1;
+            while (end < inserted.size() && (pos == items.size() || order.compare(inserted.get(end), items.get(pos)) < 0)) end++;
+            items.addAll(pos, inserted.subList(k, end));
+            k = end;
+        }
+    }
+
+    private static <T> int insertionPoint(List<T> items, T row, Comparator<? super T> order) {
+        int lo = 0, hi = items.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (order.compare(items.get(mid), row) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+}
@@ -7,18 +7,32 @@ public class Medical {
     private String expiryDate;       // YYYY-MM-DD
     private int cost;
     private int count;
+    private int reorderPoint = DEFAULT_REORDER_POINT;   // low-stock alert at count <= reorderPoint
+    private int safetyStock;                            // below this the alert is raised as a warning
+
+    /** Reorder point for medicines created before thresholds were per item. */
+    public static final int DEFAULT_REORDER_POINT = 10;
 
     public Medical() {}
 
     public Medical(String id, String name, String manufacturer, String expiryDate, int cost, int count) {
+        this(id, name, manufacturer, expiryDate, cost, count, DEFAULT_REORDER_POINT, 0);
+    }
+
+    public Medical(String id, String name, String manufacturer, String expiryDate, int cost, int count,
+                   int reorderPoint, int safetyStock) {
         this.id = req(id, "id");
         this.name = req(name, "name");
         this.manufacturer = req(manufacturer, "manufacturer");
         this.expiryDate = req(expiryDate, "expiryDate");
         if (cost < 0) throw new IllegalArgumentException("cost must be >= 0");
         if (count < 0) throw new IllegalArgumentException("count must be >= 0");
+        if (reorderPoint < 0) throw new IllegalArgumentException("reorderPoint must be >= 0");
+        if (safetyStock < 0) throw new IllegalArgumentException("safetyStock must be >= 0");
         this.cost = cost;
         this.count = count;
+        this.reorderPoint = reorderPoint;
+        this.safetyStock = safetyStock;
     }
 
     public static Medical of(String id, String name, String manufacturer, String expiryDate, int cost, int count) {
@@ -49,6 +63,20 @@ public class Medical {
         this.count = count;
     }
 
+    public int getReorderPoint() { return reorderPoint; }
+    public void setReorderPoint(int reorderPoint) {
+        if (reorderPoint < 0) throw new IllegalArgumentException("reorderPoint must be >= 0");
+        this.reorderPoint = reorderPoint;
+    }
+
+    public int getSafetyStock() { return safetyStock; }
+    public void setSafetyStock(int safetyStock) {
+        if (safetyStock < 0) throw new IllegalArgumentException("safetyStock must be >= 0");
+        this.safetyStock = safetyStock;
+    }
+
+    public boolean isBelowReorderPoint() { return count <= reorderPoint; }
+
     private static String req(String v, String field) {
         if (v == null || v.trim().isEmpty()) throw new IllegalArgumentException(field + " is required");
         return v.trim();
@@ -4,6 +4,7 @@ public interface MedicalRepository {
     Optional<Medical> findById(String id);
     Optional<Medical> findByName(String name);       // convenience if you still use it in UI
     List<Medical> findAll();                         // MUST return ID-ascending
+    List<Medical> findBelowReorderPoint(int limit);  // count <= reorder_point, lowest count first
 
     boolean insert(Medical m);                       // requires user-provided id
     boolean update(Medical m);                       // WHERE id=?
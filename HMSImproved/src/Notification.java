@@ -0,0 +1,25 @@
+public class Notification {
+    private final long id;
+    private final String createdAt;
+    private final String severity;
+    private final String kind;
+    private final String title;
+    private final String detail;
+
+    public Notification(long id, String createdAt, String severity, String kind, String title, String detail) {
+        this.id = id;
+        this.createdAt = createdAt;
+        this.severity = severity;
+        this.kind = kind;
+        this.title = title;
+        this.detail = detail;
+    }
+
+    public long getId() { return id; }
+    public String getCreatedAt() { return createdAt; }
+    public String getSeverity() { return severity; }
+    /** Alert type, e.g. StockAlerts.KIND_LOW_STOCK; "GENERAL" for ad-hoc messages. */
+    public String getKind() { return kind; }
+    public String getTitle() { return title; }
+    public String getDetail() { return detail; }
+}
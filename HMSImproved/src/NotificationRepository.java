@@ -0,0 +1,24 @@
+import java.util.Collection;
+import java.util.List;
+
+public interface NotificationRepository {
+    /**
+     * Adds a notification; with a non-null dedupeKey it is dropped while an unseen one with
+     * the same key exists. Returns false when it was dropped.
+     */
+    boolean raise(String severity, String kind, String dedupeKey, String title, String detail);
+
+    /** Unseen notifications with id > afterId, oldest first. */
+    List<Notification> findUnseen(long afterId, int limit);
+    int countUnseen();
+
+    /** Marks the given ids seen in one transaction; returns rows changed. */
+    int markSeen(Collection<Long> ids);
+    /** Acknowledges every unseen notification of one kind; returns rows changed. */
+    int acknowledgeKind(String kind);
+    /** Retires the unseen notification with this dedupe key once its condition cleared; returns rows changed. */
+    int withdraw(String dedupeKey);
+
+    /** Moves seen notifications older than {@code days} into notification_archive; returns rows moved. */
+    int archiveSeenOlderThan(int days);
+}
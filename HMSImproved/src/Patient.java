@@ -40,6 +40,9 @@ public class Patient {
     public String getAdmitStatus() { return admitStatus; }
     public void setAdmitStatus(String admitStatus) { this.admitStatus = requireNonBlank(admitStatus, "admitStatus"); }
 
+    /** admit_status is free text; "Admitted" (any case) means currently in a bed. */
+    public boolean isAdmitted() { return admitStatus != null && admitStatus.trim().equalsIgnoreCase("admitted"); }
+
     public int getAge() { return age; }
     public void setAge(int age) {
         if (age < 0) throw new IllegalArgumentException("age must be >= 0");
@@ -0,0 +1,224 @@
+import java.sql.*;
+import java.util.*;
+import javax.sql.DataSource;
+
+/**
+ * In-memory count cube over patients: disease × sex × admit_status × age band.
+ *
+ * String dimensions are dictionary-encoded (case-insensitive, first spelling seen is
+ * the display label) and the counters live in one flat int[] addressed by
+ * ((disease * sexCap + sex) * statusCap + status) * AGE_BANDS + band.
+ * Built once from the patient table, then kept current through {@link EntityListener}
+ * callbacks from SqlPatientRepository. Slices scan the counter array, never the table.
+ */
+public final class PatientCube implements EntityListener<Patient> {
+    public enum Dim { DISEASE, SEX, STATUS, AGE_BAND }
+
+    private static final int[] BAND_FLOORS = { 0, 18, 35, 50, 65 };
+    private static final String[] BAND_LABELS = { "0-17", "18-34", "35-49", "50-64", "65+" };
+    private static final int AGE_BANDS = BAND_FLOORS.length;
+
+    /** Value ↔ code dictionary for one string dimension. */
+    private static final class Dict {
+        final Map<String, Integer> codes = new HashMap<>();
+        final List<String> labels = new ArrayList<>();
+
+        int encode(String value) {
+            String label = value == null ? "" : value.trim();
+            Integer code = codes.get(norm(label));
+            if (code != null) return code;
+            codes.put(norm(label), labels.size());
+            labels.add(label);
+            return labels.size() - 1;
+        }
+        /** -1 when the value was never seen, so nothing can match. */
+        int lookup(String value) {
+            Integer code = codes.get(norm(value == null ? "" : value.trim()));
+            return code == null ? -1 : code;
+        }
+        static String norm(String s) { return s.toLowerCase(Locale.ROOT); }
+    }
+
+    private final Dict diseases = new Dict();
+    private final Dict sexes = new Dict();
+    private final Dict statuses = new Dict();
+    private int diseaseCap = 16, sexCap = 4, statusCap = 4;
+    private int[] counts = new int[diseaseCap * sexCap * statusCap * AGE_BANDS];
+    private int total;
+
+    // cell coordinates per patient id, so updates/deletes know what to decrement
+    private final Map<String, int[]> cellById = new HashMap<>();
+
+    public static PatientCube load(DataSource ds) {
+        PatientCube cube = new PatientCube();
+        String sql = "SELECT id, disease, sex, admit_status, age FROM patient";
+        try (Connection c = ds.getConnection(); PreparedStatement ps = c.prepareStatement(sql); ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                cube.add(rs.getString(1), rs.getString(2), rs.getString(3), rs.getString(4), rs.getInt(5));
+            }
+        } catch (SQLException e) { throw new RuntimeException(e); }
+        return cube;
+    }
+
+    public static int ageBand(int age) {
+        int b = 0;
+        while (b + 1 < AGE_BANDS && age >= BAND_FLOORS[b + 1]) b++;
+        return b;
+    }
+
+    public static List<String> ageBandLabels() { return List.of(BAND_LABELS); }
+
+    // ----- queries -----
+
+    public synchronized int total() { return total; }
+
+    /** Patients matching every entry of {@code filter} (values compared case-insensitively). */
+    public synchronized int count(Map<Dim, String> filter) {
+        int[] sel = selection(filter);
+        if (sel == null) return 0;
+        int sum = 0;
+        for (int d = 0; d < diseases.labels.size(); d++) {
+            if (sel[0] >= 0 && sel[0] != d) continue;
+            for (int s = 0; s < sexes.labels.size(); s++) {
+                if (sel[1] >= 0 && sel[1] != s) continue;
+                for (int t = 0; t < statuses.labels.size(); t++) {
+                    if (sel[2] >= 0 && sel[2] != t) continue;
+                    int base = cell(d, s, t, 0);
+                    for (int a = 0; a < AGE_BANDS; a++) {
+                        if (sel[3] < 0 || sel[3] == a) sum += counts[base + a];
+                    }
+                }
+            }
+        }
+        return sum;
+    }
+
+    /** Counts grouped by one dimension within the filter, largest first; empty groups are omitted. */
+    public synchronized LinkedHashMap<String, Integer> rollup(Dim by, Map<Dim, String> filter) {
+        Map<String, Map<String, Integer>> p = pivot(by, null, filter);
+        List<Map.Entry<String, Integer>> rows = new ArrayList<>();
+        for (Map.Entry<String, Map<String, Integer>> e : p.entrySet()) {
+            rows.add(Map.entry(e.getKey(), e.getValue().values().stream().mapToInt(Integer::intValue).sum()));
+        }
+        if (by != Dim.AGE_BAND) rows.sort((x, y) -> Integer.compare(y.getValue(), x.getValue()));
+        LinkedHashMap<String, Integer> out = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> e : rows) out.put(e.getKey(), e.getValue());
+        return out;
+    }
+
+    /**
+     * rows × cols cross-tab within the filter. With {@code cols == null} every row has a
+     * single "" column. Age bands come out in band order, other labels in first-seen order.
+     */
+    public synchronized LinkedHashMap<String, Map<String, Integer>> pivot(Dim rows, Dim cols, Map<Dim, String> filter) {
+        LinkedHashMap<String, Map<String, Integer>> out = new LinkedHashMap<>();
+        int[] sel = selection(filter);
+        if (sel == null) return out;
+        int[] idx = new int[4];
+        for (idx[0] = 0; idx[0] < diseases.labels.size(); idx[0]++) {
+            if (sel[0] >= 0 && sel[0] != idx[0]) continue;
+            for (idx[1] = 0; idx[1] < sexes.labels.size(); idx[1]++) {
+                if (sel[1] >= 0 && sel[1] != idx[1]) continue;
+                for (idx[2] = 0; idx[2] < statuses.labels.size(); idx[2]++) {
+                    if (sel[2] >= 0 && sel[2] != idx[2]) continue;
+                    int base = cell(idx[0], idx[1], idx[2], 0);
+                    for (idx[3] = 0; idx[3] < AGE_BANDS; idx[3]++) {
+                        if (sel[3] >= 0 && sel[3] != idx[3]) continue;
+                        int n = counts[base + idx[3]];
+                        if (n == 0) continue;
+                        String col = cols == null ? "" : label(cols, idx[cols.ordinal()]);
+                        out.computeIfAbsent(label(rows, idx[rows.ordinal()]), k -> new LinkedHashMap<>())
+                           .merge(col, n, Integer::sum);
+                    }
+                }
+            }
+        }
+        if (rows == Dim.AGE_BAND) {
+            LinkedHashMap<String, Map<String, Integer>> ordered = new LinkedHashMap<>();
+            for (String b : BAND_LABELS) if (out.containsKey(b)) ordered.put(b, out.get(b));
+            return ordered;
+        }
+        return out;
+    }
+
+    private String label(Dim dim, int code) {
+        switch (dim) {
+            case DISEASE: return diseases.labels.get(code);
+            case SEX:     return sexes.labels.get(code);
+            case STATUS:  return statuses.labels.get(code);
+            default:      return BAND_LABELS[code];
+        }
+    }
+
+    /** Per-dimension code to match, -1 = any; null when a filter value was never seen. */
+    private int[] selection(Map<Dim, String> filter) {
+        int[] sel = { -1, -1, -1, -1 };
+        if (filter == null) return sel;
+        for (Map.Entry<Dim, String> e : filter.entrySet()) {
+            if (e.getValue() == null) continue;
+            int code;
+            switch (e.getKey()) {
+                case DISEASE: code = diseases.lookup(e.getValue()); break;
+                case SEX:     code = sexes.lookup(e.getValue()); break;
+                case STATUS:  code = statuses.lookup(e.getValue()); break;
+                default:      code = Arrays.asList(BAND_LABELS).indexOf(e.getValue().trim()); break;
+            }
+            if (code < 0) return null;
+            sel[e.getKey().ordinal()] = code;
+        }
+        return sel;
+    }
+
+    // ----- maintenance -----
+
+    private int cell(int d, int s, int t, int a) {
+        return ((d * sexCap + s) * statusCap + t) * AGE_BANDS + a;
+    }
+
+    private void add(String id, String disease, String sex, String status, int age) {
+        int d = diseases.encode(disease), s = sexes.encode(sex), t = statuses.encode(status);
+        ensureCapacity(d, s, t);
+        int[] coords = { d, s, t, ageBand(age) };
+        int[] old = cellById.put(id, coords);
+        if (old != null) {
+            counts[cell(old[0], old[1], old[2], old[3])]--;
+            total--;
+        }
+        counts[cell(d, s, t, coords[3])]++;
+        total++;
+    }
+
+    private void ensureCapacity(int d, int s, int t) {
+        if (d < diseaseCap && s < sexCap && t < statusCap) return;
+        int nd = diseaseCap, ns = sexCap, nt = statusCap;
+        while (d >= nd) nd *= 2;
+        while (s >= ns) ns *= 2;
+        while (t >= nt) nt *= 2;
+        int[] grown = new int[nd * ns * nt * AGE_BANDS];
+        for (int i = 0; i < diseases.labels.size() && i < diseaseCap; i++)
+            for (int j = 0; j < sexCap; j++)
+                for (int k = 0; k < statusCap; k++)
+                    System.arraycopy(counts, cell(i, j, k, 0), grown, ((i * ns + j) * nt + k) * AGE_BANDS, AGE_BANDS);
+        counts = grown;
+        diseaseCap = nd;
+        sexCap = ns;
+        statusCap = nt;
+    }
+
+    // ----- EntityListener -----
+
+    @Override public synchronized void onInserted(Patient p) {
+        add(p.getId(), p.getDisease(), p.getSex(), p.getAdmitStatus(), p.getAge());
+    }
+
+    @Override public synchronized void onUpdated(Patient p) {
+        add(p.getId(), p.getDisease(), p.getSex(), p.getAdmitStatus(), p.getAge());
+    }
+
+    @Override public synchronized void onDeleted(String id) {
+        int[] old = cellById.remove(id);
+        if (old == null) return;
+        counts[cell(old[0], old[1], old[2], old[3])]--;
+        total--;
+    }
+}
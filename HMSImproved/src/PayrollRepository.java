@@ -0,0 +1,11 @@
+import java.util.*;
+
+public interface PayrollRepository {
+    /** All designations, largest payroll first. */
+    List<PayrollSummary> findAll();
+    Optional<PayrollSummary> findByDesignation(String designation);
+    /** Whole-hospital totals; designation is "All". */
+    PayrollSummary totals();
+    /** Repair: recompute payroll_summary from staff in one pass. Returns the number of designations. */
+    int rebuild();
+}
@@ -0,0 +1,27 @@
+public class PayrollSummary {
+    private final String designation;
+    private final int headcount;
+    private final long totalSalary;
+    private final int minSalary;
+    private final int maxSalary;
+
+    public PayrollSummary(String designation, int headcount, long totalSalary, int minSalary, int maxSalary) {
+        this.designation = designation;
+        this.headcount = headcount;
+        this.totalSalary = totalSalary;
+        this.minSalary = minSalary;
+        this.maxSalary = maxSalary;
+    }
+
+    public String getDesignation() { return designation; }
+    public int getHeadcount() { return headcount; }
+    public long getTotalSalary() { return totalSalary; }
+    public int getMinSalary() { return minSalary; }
+    public int getMaxSalary() { return maxSalary; }
+    public double getAverageSalary() { return headcount == 0 ? 0 : (double) totalSalary / headcount; }
+
+    @Override public String toString() {
+        return String.format("%-18s n=%-4d total=%-10d avg=%-9.0f min=%-7d max=%d",
+                designation, headcount, totalSalary, getAverageSalary(), minSalary, maxSalary);
+    }
+}
@@ -0,0 +1,253 @@
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import javax.sql.DataSource;
+
+/**
+ * Monte Carlo comparison of reorder policies under uncertain demand.
+ *
+ * Each SKU starts from its current medical count; daily demand is drawn from a normal
+ * distribution with the mean and spread from {@link StockForecast} (rounded, never
+ * negative; Poisson-like spread when the history shows none). A policy is a reorder
+ * point per SKU: once on-hand plus on-order falls to it, {@link Config#orderCoverDays}
+ * days of mean demand are ordered and arrive after the lead time. Unmet demand is lost.
+ *
+ * All policies are run against the same drawn demand in each scenario (common random
+ * numbers), so differences between them are not noise. Scenarios are split across a
+ * fork/join pool; a leaf keeps its state in flat primitive arrays sized SKUs × policies
+ * (× lead time for the order pipeline) and reuses them for every scenario it runs, so
+ * memory does not grow with the number of scenarios.
+ */
+public final class ReorderSimulator {
+    private static final int LEAF_SCENARIOS = 32;
+    /** Holding cost per unit of cost per day (25% a year). */
+    public static final double HOLDING_RATE_PER_DAY = 0.25 / 365;
+
+    /** Run parameters; the defaults suit an interactive run. */
+    public static final class Config {
+        public int scenarios = 1_000;
+        public int horizonDays = 30;
+        public int leadTimeDays = 3;
+        public int orderCoverDays = 14;
+        public long seed = 42;
+    }
+
+    /** One policy's outcome averaged over all scenarios. */
+    public static final class Result {
+        private final String policy;
+        private final double stockOutProbability;
+        private final double holdingCost;
+        private final double ordersPerScenario;
+        private final List<String> riskiest;
+
+        Result(String policy, double stockOutProbability, double holdingCost, double ordersPerScenario, List<String> riskiest) {
+            this.policy = policy;
+            this.stockOutProbability = stockOutProbability;
+            this.holdingCost = holdingCost;
+            this.ordersPerScenario = ordersPerScenario;
+            this.riskiest = riskiest;
+        }
+
+        public String getPolicy() { return policy; }
+        /** Chance that a given SKU runs out at least once within the horizon. */
+        public double getStockOutProbability() { return stockOutProbability; }
+        /** Expected holding cost over the horizon, all SKUs. */
+        public double getHoldingCost() { return holdingCost; }
+        public double getOrdersPerScenario() { return ordersPerScenario; }
+        /** SKUs most likely to run out under this policy, as "id (p%)". */
+        public List<String> getRiskiest() { return riskiest; }
+    }
+
+    // SKUs with forecast demand; medicines nobody consumes cannot run out and are left out
+    private final String[] ids;
+    private final int[] stock;
+    private final int[] cost;
+    private final double[] mean;
+    private final double[] sd;
+    private final String[] policyNames;
+    private final int[] reorderPoints;   // [policy][sku], row-major; filled per run (lead time dependent)
+    private final int[] storedReorder;
+    private final int[] safetyStock;
+
+    private ReorderSimulator(List<String> ids, List<int[]> rows, List<double[]> demand) {
+        int n = ids.size();
+        this.ids = ids.toArray(new String[0]);
+        this.stock = new int[n];
+        this.cost = new int[n];
+        this.storedReorder = new int[n];
+        this.safetyStock = new int[n];
+        this.mean = new double[n];
+        this.sd = new double[n];
+        for (int i = 0; i < n; i++) {
+            int[] r = rows.get(i);
+            stock[i] = r[0];
+            cost[i] = r[1];
+            storedReorder[i] = r[2];
+            safetyStock[i] = r[3];
+            mean[i] = demand.get(i)[0];
+            sd[i] = demand.get(i)[1] > 0 ? demand.get(i)[1] : Math.sqrt(demand.get(i)[0]);
+        }
+        this.policyNames = new String[] {
+            "Current reorder points", "Lead-time demand", "Lead-time demand + safety stock",
+            "95% service level", "99% service level"
+        };
+        this.reorderPoints = new int[policyNames.length * n];
+    }
+
+    /** Seeds SKUs from the medical table and demand from the forecast. */
+    public static ReorderSimulator load(DataSource ds, StockForecast forecast) {
+        List<String> ids = new ArrayList<>();
+        List<int[]> rows = new ArrayList<>();
+        List<double[]> demand = new ArrayList<>();
+        try (Connection c = ds.getConnection(); Statement s = c.createStatement();
+             ResultSet rs = s.executeQuery("SELECT id, count, cost, reorder_point, safety_stock FROM medical")) {
+            while (rs.next()) {
+                var p = forecast.projection(rs.getString(1));
+                if (p.isEmpty() || p.get().getDailyRate() <= 0) continue;
+                ids.add(rs.getString(1));
+                rows.add(new int[] { rs.getInt(2), rs.getInt(3), rs.getInt(4), rs.getInt(5) });
+                demand.add(new double[] { p.get().getDailyRate(), p.get().getDailySd() });
+            }
+        } catch (SQLException e) { throw new RuntimeException(e); }
+        return new ReorderSimulator(ids, rows, demand);
+    }
+
+    public int skuCount() { return ids.length; }
+
+    public List<Result> run(Config cfg) {
+        return run(cfg, ForkJoinPool.commonPool());
+    }
+
+    public synchronized List<Result> run(Config cfg, ForkJoinPool pool) {
+        if (cfg.scenarios < 1 || cfg.horizonDays < 1 || cfg.leadTimeDays < 1 || cfg.orderCoverDays < 1) {
+            throw new IllegalArgumentException("scenarios, horizon, lead time and order cover must be >= 1");
+        }
+        int n = ids.length;
+        double lt = cfg.leadTimeDays;
+        for (int i = 0; i < n; i++) {
+            double ltDemand = mean[i] * lt;
+            double ltSd = sd[i] * Math.sqrt(lt);
+            reorderPoints[i] = storedReorder[i];
+            reorderPoints[n + i] = (int) Math.ceil(ltDemand);
+            reorderPoints[2 * n + i] = (int) Math.ceil(ltDemand) + safetyStock[i];
+            reorderPoints[3 * n + i] = (int) Math.ceil(ltDemand + 1.65 * ltSd);
+            reorderPoints[4 * n + i] = (int) Math.ceil(ltDemand + 2.33 * ltSd);
+        }
+        Totals t = pool.invoke(new Batch(cfg, 0, cfg.scenarios));
+
+        List<Result> out = new ArrayList<>();
+        for (int p = 0; p < policyNames.length; p++) {
+            long outs = 0;
+            Integer[] order = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                outs += t.stockOuts[p * n + i];
+                order[i] = i;
+            }
+            final int base = p * n;
+            Arrays.sort(order, (a, b) -> Integer.compare(t.stockOuts[base + b], t.stockOuts[base + a]));
+            List<String> riskiest = new ArrayList<>();
+            for (int k = 0; k < Math.min(5, n) && t.stockOuts[base + order[k]] > 0; k++) {
+                riskiest.add(ids[order[k]] + " (" + Math.round(100.0 * t.stockOuts[base + order[k]] / cfg.scenarios) + "%)");
+            }
+            out.add(new Result(policyNames[p],
+                               n == 0 ? 0 : (double) outs / ((long) n * cfg.scenarios),
+                               t.holding[p] * HOLDING_RATE_PER_DAY / cfg.scenarios,
+                               (double) t.orders[p] / cfg.scenarios,
+                               riskiest));
+        }
+        return out;
+    }
+
+    /** Per-policy sums over a range of scenarios. */
+    private static final class Totals {
+        final int[] stockOuts;   // [policy][sku]: scenarios in which the SKU ran out
+        final double[] holding;  // [policy]: sum of on-hand value at each day's close
+        final long[] orders;     // [policy]
+
+        Totals(int policies, int n) {
+            stockOuts = new int[policies * n];
+            holding = new double[policies];
+            orders = new long[policies];
+        }
+
+        Totals add(Totals o) {
+            for (int i = 0; i < stockOuts.length; i++) stockOuts[i] += o.stockOuts[i];
+            for (int p = 0; p < holding.length; p++) {
+                holding[p] += o.holding[p];
+                orders[p] += o.orders[p];
+            }
+            return this;
+        }
+    }
+
+    private final class Batch extends RecursiveTask<Totals> {
+        private static final long serialVersionUID = 1L;   // ForkJoinTask is Serializable; never serialized here
+        private final Config cfg;
+        private final int lo, hi;   // scenario range [lo, hi)
+
+        Batch(Config cfg, int lo, int hi) {
+            this.cfg = cfg;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override protected Totals compute() {
+            if (hi - lo <= LEAF_SCENARIOS) return simulate();
+            int mid = (lo + hi) >>> 1;
+            Batch right = new Batch(cfg, mid, hi);
+            right.fork();
+            Totals l = new Batch(cfg, lo, mid).compute();
+            return l.add(right.join());
+        }
+
+        private Totals simulate() {
+            int n = ids.length, policies = policyNames.length, lead = cfg.leadTimeDays;
+            Totals t = new Totals(policies, n);
+            int[] onHand = new int[policies * n];
+            int[] onOrder = new int[policies * n];
+            int[] pipeline = new int[policies * n * lead];   // arrivals by day % lead
+            boolean[] ranOut = new boolean[policies * n];
+            int[] orderQty = new int[n];
+            for (int i = 0; i < n; i++) orderQty[i] = Math.max(1, (int) Math.ceil(mean[i] * cfg.orderCoverDays));
+
+            for (int sc = lo; sc < hi; sc++) {
+                // one generator per scenario: results do not depend on how the work was split
+                SplittableRandom rnd = new SplittableRandom(cfg.seed * 0x9E3779B97F4A7C15L + sc);
+                for (int p = 0; p < policies; p++) System.arraycopy(stock, 0, onHand, p * n, n);
+                Arrays.fill(onOrder, 0);
+                Arrays.fill(pipeline, 0);
+                Arrays.fill(ranOut, false);
+
+                for (int day = 0; day < cfg.horizonDays; day++) {
+                    int slot = day % lead;
+                    for (int i = 0; i < n; i++) {
+                        int demand = (int) Math.max(0, Math.round(mean[i] + sd[i] * rnd.nextGaussian()));
+                        for (int p = 0, k = i; p < policies; p++, k += n) {
+                            int arriving = pipeline[k * lead + slot];
+                            if (arriving != 0) {
+                                onHand[k] += arriving;
+                                onOrder[k] -= arriving;
+                                pipeline[k * lead + slot] = 0;
+                            }
+                            if (demand > onHand[k]) {
+                                onHand[k] = 0;
+                                ranOut[k] = true;
+                            } else {
+                                onHand[k] -= demand;
+                            }
+                            t.holding[p] += (double) onHand[k] * cost[i];
+                            if (onHand[k] + onOrder[k] <= reorderPoints[k]) {
+                                pipeline[k * lead + slot] += orderQty[i];   // same slot comes round again in `lead` days
+                                onOrder[k] += orderQty[i];
+                                t.orders[p]++;
+                            }
+                        }
+                    }
+                }
+                for (int k = 0; k < ranOut.length; k++) if (ranOut[k]) t.stockOuts[k]++;
+            }
+            return t;
+        }
+    }
+}
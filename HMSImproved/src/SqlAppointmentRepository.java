@@ -0,0 +1,171 @@
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.sql.DataSource;
+
+/**
+ * Slot reservation is a conditional insert guarded by the partial unique index
+ * ux_appointment_doctor_slot, so two desks (threads or processes) can never both
+ * win the same doctor/slot. Inside this process, bookings for the same doctor are
+ * additionally serialised on a striped lock, so same-doctor races are settled in
+ * memory rather than by SQLite busy-retries.
+ */
+public final class SqlAppointmentRepository implements AppointmentRepository {
+    private static final DateTimeFormatter SLOT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm");
+    private static final int STRIPES = 64;
+
+    private final DataSource ds;
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+
+    public SqlAppointmentRepository(DataSource ds) {
+        this.ds = ds;
+        for (int i = 0; i < STRIPES; i++) stripes[i] = new ReentrantLock();
+    }
+
+    private ReentrantLock stripe(String doctorId) {
+        return stripes[Math.floorMod(doctorId.hashCode(), STRIPES)];
+    }
+
+    static String slotKey(LocalDateTime t) { return t.format(SLOT); }
+
+    private static Appointment map(ResultSet rs) throws SQLException {
+        return new Appointment(
+            rs.getLong("id"),
+            rs.getString("patient_id"),
+            rs.getString("doctor_id"),
+            rs.getInt("room"),
+            LocalDateTime.parse(rs.getString("slot_start"), SLOT),
+            LocalDateTime.parse(rs.getString("slot_end"), SLOT),
+            rs.getString("status")
+        );
+    }
+
+    @Override
+    public Optional<Appointment> book(String patientId, String doctorId, LocalDateTime slotStart) {
+        LocalDateTime start = slotStart.truncatedTo(ChronoUnit.MINUTES);
+        if (start.getMinute() % SLOT_MINUTES != 0) return Optional.empty();
+        LocalDateTime end = start.plusMinutes(SLOT_MINUTES);
+
+        // room comes from the doctor row; no row is produced for unknown doctor/patient
+        final String sql =
+            "INSERT OR IGNORE INTO appointment(patient_id,doctor_id,room,slot_start,slot_end) " +
+            "SELECT p.id, d.id, d.room, ?, ? FROM doctor d, patient p WHERE d.id=? AND p.id=?";
+        ReentrantLock lock = stripe(doctorId);
+        lock.lock();
+        try (Connection c = ds.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setString(1, slotKey(start));
+            ps.setString(2, slotKey(end));
+            ps.setString(3, doctorId);
+            ps.setString(4, patientId);
+            if (ps.executeUpdate() != 1) return Optional.empty();
+            try (Statement st = c.createStatement(); ResultSet rs = st.executeQuery("SELECT last_insert_rowid()")) {
+                rs.next();
+                return findById(c, rs.getLong(1));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);   // busy, I/O, schema: not the same as "slot taken"
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean cancel(long id) {
+        try (Connection c = ds.getConnection();
+             PreparedStatement ps = c.prepareStatement("UPDATE appointment SET status='CANCELLED' WHERE id=? AND status='BOOKED'")) {
+            ps.setLong(1, id);
+            return ps.executeUpdate() == 1;
+        } catch (SQLException e) { return false; }
+    }
+
+    @Override
+    public Optional<Appointment> findById(long id) {
+        try (Connection c = ds.getConnection()) {
+            return findById(c, id);
+        } catch (SQLException e) { throw new RuntimeException(e); }
+    }
+
+    private static Optional<Appointment> findById(Connection c, long id) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement("SELECT * FROM appointment WHERE id=?")) {
+            ps.setLong(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? Optional.of(map(rs)) : Optional.empty();
+            }
+        }
+    }
+
+    @Override
+    public List<Appointment> findDay(LocalDate day) {
+        // idx_appointment_day
+        String sql = "SELECT * FROM appointment WHERE status='BOOKED' AND slot_start>=? AND slot_start<? " +
+                     "ORDER BY slot_start, doctor_id";
+        return query(sql, day.atStartOfDay(), day.plusDays(1).atStartOfDay(), null);
+    }
+
+    @Override
+    public List<Appointment> findDoctorDay(String doctorId, LocalDate day) {
+        // ux_appointment_doctor_slot (doctor_id, slot_start)
+        String sql = "SELECT * FROM appointment WHERE status='BOOKED' AND doctor_id=? AND slot_start>=? AND slot_start<? " +
+                     "ORDER BY slot_start";
+        return query(sql, day.atStartOfDay(), day.plusDays(1).atStartOfDay(), doctorId);
+    }
+
+    @Override
+    public List<Appointment> findUpcomingForPatient(String patientId, LocalDateTime from) {
+        // ux_appointment_patient_slot (patient_id, slot_start)
+        String sql = "SELECT * FROM appointment WHERE status='BOOKED' AND patient_id=? AND slot_start>=? AND slot_start<? " +
+                     "ORDER BY slot_start";
+        return query(sql, from, LocalDateTime.of(9999, 12, 31, 0, 0), patientId);
+    }
+
+    private List<Appointment> query(String sql, LocalDateTime from, LocalDateTime to, String key) {
+        try (Connection c = ds.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
+            int i = 1;
+            if (key != null) ps.setString(i++, key);
+            ps.setString(i++, slotKey(from));
+            ps.setString(i, slotKey(to));
+            try (ResultSet rs = ps.executeQuery()) {
+                List<Appointment> out = new ArrayList<>();
+                while (rs.next()) out.add(map(rs));
+                return out;
+            }
+        } catch (SQLException e) { throw new RuntimeException(e); }
+    }
+
+    /**
+     * First slot at or after {@code from} where the doctor is on shift and not booked.
+     * Looks at most a week ahead; one indexed day query per day visited.
+     */
+    public Optional<LocalDateTime> nextOpenSlot(String doctorId, LocalDateTime from, DoctorAvailability availability) {
+        LocalDateTime t = from.truncatedTo(ChronoUnit.MINUTES);
+        int rem = t.getMinute() % SLOT_MINUTES;
+        if (rem != 0) t = t.plusMinutes(SLOT_MINUTES - rem);
+        LocalDateTime limit = t.plusDays(7);
+
+        LocalDate loadedDay = null;
+        Set<LocalDateTime> taken = new HashSet<>();
+        while (t.isBefore(limit)) {
+            Optional<LocalDateTime> onShift = availability.nextFreeSlot(doctorId, t);
+            if (onShift.isEmpty()) return Optional.empty();
+            LocalDateTime cand = onShift.get();
+            int r = cand.getMinute() % SLOT_MINUTES;
+            if (r != 0) { t = cand.plusMinutes(SLOT_MINUTES - r); continue; }
+            if (!availability.isOnShift(doctorId, cand.plusMinutes(SLOT_MINUTES - 1))) {
+                t = cand.plusMinutes(SLOT_MINUTES); // shift ends inside this slot
+                continue;
+            }
+            if (!cand.toLocalDate().equals(loadedDay)) {
+                loadedDay = cand.toLocalDate();
+                taken.clear();
+                for (Appointment a : findDoctorDay(doctorId, loadedDay)) taken.add(a.getSlotStart());
+            }
+            if (!taken.contains(cand)) return Optional.of(cand);
+            t = cand.plusMinutes(SLOT_MINUTES);
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,92 @@
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.sql.DataSource;
+
+public final class SqlAssignmentRepository implements AssignmentRepository {
+    private final DataSource ds;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    public SqlAssignmentRepository(DataSource ds) { this.ds = ds; }
+
+    public void addListener(Listener l) { listeners.add(l); }
+
+    @Override
+    public boolean assign(String patientId, String doctorId) {
+        // copies the admitted flag from the patient row; nothing is inserted for unknown ids
+        String sql = "INSERT OR IGNORE INTO patient_assignment(patient_id,doctor_id,admitted) " +
+                     "SELECT p.id, d.id, lower(trim(p.admit_status))='admitted' FROM patient p, doctor d WHERE p.id=? AND d.id=?";
+        boolean admitted;
+        try (Connection c = ds.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setString(1, patientId);
+            ps.setString(2, doctorId);
+            if (ps.executeUpdate() != 1) return false;
+            try (PreparedStatement q = c.prepareStatement(
+                    "SELECT admitted FROM patient_assignment WHERE patient_id=? AND doctor_id=?")) {
+                q.setString(1, patientId);
+                q.setString(2, doctorId);
+                try (ResultSet rs = q.executeQuery()) { admitted = rs.next() && rs.getInt(1) == 1; }
+            }
+        } catch (SQLException e) { return false; }
+        for (Listener l : listeners) l.onAssigned(patientId, doctorId, admitted);
+        return true;
+    }
+
+    @Override
+    public boolean unassign(String patientId, String doctorId) {
+        try (Connection c = ds.getConnection();
+             PreparedStatement ps = c.prepareStatement("DELETE FROM patient_assignment WHERE patient_id=? AND doctor_id=?")) {
+            ps.setString(1, patientId);
+            ps.setString(2, doctorId);
+            if (ps.executeUpdate() != 1) return false;
+        } catch (SQLException e) { return false; }
+        for (Listener l : listeners) l.onUnassigned(patientId, doctorId);
+        return true;
+    }
+
+    @Override
+    public int caseload(String doctorId, boolean admittedOnly) {
+        // index-only on idx_assignment_doctor
+        String sql = admittedOnly
+            ? "SELECT COUNT(*) FROM patient_assignment WHERE doctor_id=? AND admitted=1"
+            : "SELECT COUNT(*) FROM patient_assignment WHERE doctor_id=?";
+        try (Connection c = ds.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setString(1, doctorId);
+            try (ResultSet rs = ps.executeQuery()) { return rs.next() ? rs.getInt(1) : 0; }
+        } catch (SQLException e) { throw new RuntimeException(e); }
+    }
+
+    @Override
+    public List<String> findPatientIds(String doctorId, boolean admittedOnly) {
+        String sql = admittedOnly
+            ? "SELECT patient_id FROM patient_assignment WHERE doctor_id=? AND admitted=1 ORDER BY patient_id"
+            : "SELECT patient_id FROM patient_assignment WHERE doctor_id=? ORDER BY patient_id";
+        return ids(sql, doctorId);
+    }
+
+    @Override
+    public List<String> findDoctorIds(String patientId) {
+        return ids("SELECT doctor_id FROM patient_assignment WHERE patient_id=? ORDER BY doctor_id", patientId);
+    }
+
+    private List<String> ids(String sql, String key) {
+        try (Connection c = ds.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setString(1, key);
+            try (ResultSet rs = ps.executeQuery()) {
+                List<String> out = new ArrayList<>();
+                while (rs.next()) out.add(rs.getString(1));
+                return out;
+            }
+        } catch (SQLException e) { throw new RuntimeException(e); }
+    }
+
+    @Override
+    public Map<String, Integer> admittedCaseloads() {
+        String sql = "SELECT doctor_id, COUNT(*) FROM patient_assignment WHERE admitted=1 GROUP BY doctor_id";
+        try (Connection c = ds.getConnection(); PreparedStatement ps = c.prepareStatement(sql); ResultSet rs = ps.executeQuery()) {
+            Map<String, Integer> out = new HashMap<>();
+            while (rs.next()) out.put(rs.getString(1), rs.getInt(2));
+            return out;
+        } catch (SQLException e) { throw new RuntimeException(e); }
+    }
+}
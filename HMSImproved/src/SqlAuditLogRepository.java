@@ -1,11 +1,31 @@
 import javax.sql.DataSource;
 import java.sql.*;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
 
 public class SqlAuditLogRepository implements AuditLogRepository {
     private final DataSource ds;
-    public SqlAuditLogRepository(DataSource ds) { this.ds = ds; }
+    private final AuditArchive archive;   // null: hot table only
+
+    public SqlAuditLogRepository(DataSource ds) { this(ds, null); }
+
+    /** Queries fall through to archived segments when the hot table runs out of rows. */
+    public SqlAuditLogRepository(DataSource ds, AuditArchive archive) {
+        this.ds = ds;
+        this.archive = archive;
+    }
+
+    // explicit list: SELECT * would also evaluate every generated jo_/jn_ column
+    private static final String COLS = "id, ts, table_name, action, entity_id, old_values, new_values, ts_ms, delta";
 
     private static AuditLog map(ResultSet rs) throws SQLException {
         return new AuditLog(
@@ -15,25 +35,48 @@ public class SqlAuditLogRepository implements AuditLogRepository {
             rs.getString("action"),
             rs.getString("entity_id"),
             rs.getString("old_values"),
-            rs.getString("new_values")
+            rs.getString("new_values"),
+            rs.getLong("ts_ms"),
+            rs.getInt("delta") != 0
         );
     }
 
+    /** Hot rows (newest first) topped up from the archive below the oldest hot id. */
+    private List<AuditLog> withArchive(List<AuditLog> hot, String table, Predicate<AuditLog> match, long beforeId, int limit) {
+        if (archive == null || hot.size() >= limit) return hot;
+        long below = hot.isEmpty() ? beforeId : hot.get(hot.size() - 1).getId();
+        List<AuditLog> out = new ArrayList<>(hot);
+        out.addAll(archive.newestFirst(table, match, below, limit - hot.size()));
+        return out;
+    }
+
+    // a segment's rows stay in the hot table until its batched delete finishes
+    private static List<AuditLog> distinctById(List<AuditLog> sorted) {
+        List<AuditLog> out = new ArrayList<>(sorted.size());
+        Set<Long> seen = new HashSet<>();
+        for (AuditLog a : sorted) if (seen.add(a.getId())) out.add(a);
+        return out;
+    }
+
+    private static AuditLog headerOf(AuditLog a) {
+        return AuditLog.header(a.getId(), a.getTs(), a.getTableName(), a.getAction(), a.getEntityId());
+    }
+
     @Override public List<AuditLog> findRecent(int limit) {
-        String sql = "SELECT * FROM audit_log ORDER BY id DESC LIMIT ?";
+        String sql = "SELECT " + COLS + " FROM audit_log ORDER BY id DESC LIMIT ?";
         try (Connection c = ds.getConnection();
              PreparedStatement ps = c.prepareStatement(sql)) {
             ps.setInt(1, limit);
             try (ResultSet rs = ps.executeQuery()) {
                 List<AuditLog> out = new ArrayList<>();
                 while (rs.next()) out.add(map(rs));
-                return out;
+                return withArchive(out, null, a -> true, Long.MAX_VALUE, limit);
             }
         } catch (SQLException e) { throw new RuntimeException(e); }
     }
 
     @Override public List<AuditLog> findByTable(String tableName, int limit) {
-        String sql = "SELECT * FROM audit_log WHERE table_name=? ORDER BY id DESC LIMIT ?";
+        String sql = "SELECT " + COLS + " FROM audit_log WHERE table_name=? ORDER BY id DESC LIMIT ?";
         try (Connection c = ds.getConnection();
              PreparedStatement ps = c.prepareStatement(sql)) {
             ps.setString(1, tableName);
@@ -41,13 +84,13 @@ public class SqlAuditLogRepository implements AuditLogRepository {
             try (ResultSet rs = ps.executeQuery()) {
                 List<AuditLog> out = new ArrayList<>();
                 while (rs.next()) out.add(map(rs));
-                return out;
+                return withArchive(out, tableName, a -> tableName.equals(a.getTableName()), Long.MAX_VALUE, limit);
             }
         } catch (SQLException e) { throw new RuntimeException(e); }
     }
 
     @Override public List<AuditLog> findByEntity(String tableName, String entityId, int limit) {
-        String sql = "SELECT * FROM audit_log WHERE table_name=? AND entity_id=? ORDER BY id DESC LIMIT ?";
+        String sql = "SELECT " + COLS + " FROM audit_log WHERE table_name=? AND entity_id=? ORDER BY id DESC LIMIT ?";
         try (Connection c = ds.getConnection();
              PreparedStatement ps = c.prepareStatement(sql)) {
             ps.setString(1, tableName);
@@ -56,8 +99,287 @@ public class SqlAuditLogRepository implements AuditLogRepository {
             try (ResultSet rs = ps.executeQuery()) {
                 List<AuditLog> out = new ArrayList<>();
                 while (rs.next()) out.add(map(rs));
+                return withArchive(out, tableName,
+                        a -> tableName.equals(a.getTableName()) && entityId.equals(a.getEntityId()), Long.MAX_VALUE, limit);
+            }
+        } catch (SQLException e) { throw new RuntimeException(e); }
+    }
+
+    private static final String HEADER_COLS = "id, ts, table_name, action, entity_id";
+
+    private List<AuditLog> headers(String sql, String tableName, long key, int limit) {
+        try (Connection c = ds.getConnection();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            int i = 1;
+            if (tableName != null) ps.setString(i++, tableName);
+            ps.setLong(i++, key);
+            ps.setInt(i, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                List<AuditLog> out = new ArrayList<>();
+                while (rs.next()) {
+                    out.add(AuditLog.header(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4), rs.getString(5)));
+                }
                 return out;
             }
         } catch (SQLException e) { throw new RuntimeException(e); }
     }
+
+    @Override public List<AuditLog> findHeadersBefore(String tableName, long beforeId, int limit) {
+        String sql = "SELECT " + HEADER_COLS + " FROM audit_log WHERE " +
+                     (tableName != null ? "table_name=? AND " : "") + "id < ? ORDER BY id DESC LIMIT ?";
+        List<AuditLog> hot = headers(sql, tableName, beforeId, limit);
+        if (archive == null || hot.size() >= limit) return hot;
+        List<AuditLog> out = new ArrayList<>(hot);
+        long below = hot.isEmpty() ? beforeId : hot.get(hot.size() - 1).getId();
+        for (AuditLog a : archive.newestFirst(tableName, tableMatch(tableName), below, limit - hot.size())) out.add(headerOf(a));
+        return out;
+    }
+
+    private static Predicate<AuditLog> tableMatch(String tableName) {
+        return a -> tableName == null || tableName.equals(a.getTableName());
+    }
+
+    @Override public List<AuditLog> findHeadersAfter(String tableName, long afterId, int limit) {
+        // walk forward from the key, then flip so callers always see newest first
+        String sql = "SELECT " + HEADER_COLS + " FROM audit_log WHERE " +
+                     (tableName != null ? "table_name=? AND " : "") + "id > ? ORDER BY id ASC LIMIT ?";
+        List<AuditLog> out = headers(sql, tableName, afterId, limit);
+        if (archive != null) {
+            // archived ids sit below the hot ones, so they come first in ascending order
+            List<AuditLog> merged = new ArrayList<>();
+            for (AuditLog a : archive.oldestFirst(tableName, tableMatch(tableName), afterId, limit)) merged.add(headerOf(a));
+            merged.addAll(out);
+            merged.sort(Comparator.comparingLong(AuditLog::getId));
+            merged = distinctById(merged);
+            out = new ArrayList<>(merged.subList(0, Math.min(limit, merged.size())));
+        }
+        Collections.reverse(out);
+        return out;
+    }
+
+    @Override public AuditPage findBetween(Instant from, Instant to, AuditFilter filter, AuditPage.Key pageKey) {
+        AuditFilter f = filter == null ? AuditFilter.all() : filter;
+        // (ts_ms, id) keyset: idx_audit_ts / idx_audit_table_ts carry rowid, so the order is index order
+        StringBuilder sql = new StringBuilder("SELECT " + COLS + " FROM audit_log WHERE ts_ms >= ? AND ts_ms < ?");
+        List<Object> args = new ArrayList<>(List.of(from.toEpochMilli(), to.toEpochMilli()));
+        if (f.getTableName() != null) { sql.append(" AND table_name=?"); args.add(f.getTableName()); }
+        if (f.getAction() != null)    { sql.append(" AND action=?");     args.add(f.getAction()); }
+        if (f.getEntityId() != null)  { sql.append(" AND entity_id=?");  args.add(f.getEntityId()); }
+        if (pageKey != null) {
+            sql.append(" AND (ts_ms, id) > (?, ?)");
+            args.add(pageKey.getTsMs());
+            args.add(pageKey.getId());
+        }
+        sql.append(" ORDER BY ts_ms, id LIMIT ?");
+        args.add(PAGE_SIZE + 1);  // one extra row tells us whether another page exists
+
+        try (Connection c = ds.getConnection();
+             PreparedStatement ps = c.prepareStatement(sql.toString())) {
+            for (int i = 0; i < args.size(); i++) ps.setObject(i + 1, args.get(i));
+            try (ResultSet rs = ps.executeQuery()) {
+                List<AuditLog> out = new ArrayList<>();
+                while (rs.next()) out.add(map(rs));
+                if (archive != null) {
+                    out.addAll(archive.between(from.toEpochMilli(), to.toEpochMilli(), f.getTableName(),
+                            a -> (f.getAction() == null || f.getAction().equals(a.getAction()))
+                              && (f.getEntityId() == null || f.getEntityId().equals(a.getEntityId()))
+                              && (f.getTableName() == null || f.getTableName().equals(a.getTableName())),
+                            pageKey, PAGE_SIZE + 1));
+                    out.sort(Comparator.comparingLong(AuditLog::getTsMs).thenComparingLong(AuditLog::getId));
+                    out = distinctById(out);
+                    if (out.size() > PAGE_SIZE + 1) out = new ArrayList<>(out.subList(0, PAGE_SIZE + 1));
+                }
+                if (out.size() <= PAGE_SIZE) return new AuditPage(out, null);
+                out.remove(out.size() - 1);
+                AuditLog last = out.get(out.size() - 1);
+                return new AuditPage(out, new AuditPage.Key(last.getTsMs(), last.getId()));
+            }
+        } catch (SQLException e) { throw new RuntimeException(e); }
+    }
+
+    @Override public AuditLog reconstruct(AuditLog entry) {
+        if (!entry.isDelta()) return entry;
+        LinkedHashMap<String, String> state = new LinkedHashMap<>();
+        for (AuditLog a : chainTo(entry.getTableName(), entry.getEntityId(), entry.getId() - 1)) {
+            state.putAll(AuditJson.parseRaw(a.getNewValues()));
+        }
+        String oldJson = AuditJson.writeRaw(state);
+        state.putAll(AuditJson.parseRaw(entry.getNewValues()));
+        return new AuditLog(entry.getId(), entry.getTs(), entry.getTableName(), entry.getAction(),
+                            entry.getEntityId(), oldJson, AuditJson.writeRaw(state), entry.getTsMs(), false);
+    }
+
+    @Override public Optional<Map<String, String>> asOf(String table, String entityId, Instant at) {
+        long atMs = at.toEpochMilli();
+        AuditLog last = null;
+        long firstLiveId = Long.MAX_VALUE;
+        String firstLiveAction = null;
+        String sql = "SELECT " + COLS + " FROM audit_log WHERE table_name=? AND entity_id=? AND ts_ms <= ? ORDER BY ts_ms DESC, id DESC LIMIT 1";
+        String first = "SELECT id, action FROM audit_log WHERE table_name=? AND entity_id=? ORDER BY id LIMIT 1";
+        try (Connection c = ds.getConnection();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setString(1, table);
+            ps.setString(2, entityId);
+            ps.setLong(3, atMs);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) last = map(rs);
+            }
+            if (last == null && archive != null) {
+                try (PreparedStatement fs = c.prepareStatement(first)) {   // idx_audit_entity, rowid order
+                    fs.setString(1, table);
+                    fs.setString(2, entityId);
+                    try (ResultSet rs = fs.executeQuery()) {
+                        if (rs.next()) { firstLiveId = rs.getLong(1); firstLiveAction = rs.getString(2); }
+                    }
+                }
+            }
+        } catch (SQLException e) { throw new RuntimeException(e); }
+        // the archive only matters when the live history does not begin with the entity's INSERT,
+        // and then only blocks older than that history and starting at or before atMs
+        if (last == null && archive != null && !"INSERT".equals(firstLiveAction)) {
+            last = archive.latestAtOrBefore(table,
+                    a -> table.equals(a.getTableName()) && entityId.equals(a.getEntityId()),
+                    firstLiveId, atMs).orElse(null);
+        }
+        if (last == null || "DELETE".equals(last.getAction())) return Optional.empty();
+
+        LinkedHashMap<String, String> state = new LinkedHashMap<>();
+        for (AuditLog a : chainTo(table, entityId, last.getId())) state.putAll(a.newMap());
+        return Optional.of(state);
+    }
+
+    private static boolean isBase(AuditLog a) { return !a.isDelta() && a.getNewValues() != null; }
+
+    /**
+     * The entity's entries from its last full row at or before {@code uptoId} through
+     * {@code uptoId}, oldest first. At most AUDIT_CHECKPOINT_EVERY rows when the history is
+     * intact; without any full row (history archived away or lost) it is all that remains.
+     */
+    List<AuditLog> chainTo(String table, String entityId, long uptoId) {
+        String sql = "SELECT " + COLS + " FROM audit_log WHERE table_name=? AND entity_id=? AND id <= ? AND id >= " +
+                     "COALESCE((SELECT MAX(id) FROM audit_log WHERE table_name=? AND entity_id=? AND id <= ? " +
+                     "AND delta=0 AND new_values IS NOT NULL), 0) ORDER BY id";
+        List<AuditLog> chain = new ArrayList<>();
+        try (Connection c = ds.getConnection();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setString(1, table);
+            ps.setString(2, entityId);
+            ps.setLong(3, uptoId);
+            ps.setString(4, table);
+            ps.setString(5, entityId);
+            ps.setLong(6, uptoId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) chain.add(map(rs));
+            }
+        } catch (SQLException e) { throw new RuntimeException(e); }
+
+        // base already archived: walk the archive backwards until one turns up
+        if (archive != null && (chain.isEmpty() || !isBase(chain.get(0)))) {
+            long below = chain.isEmpty() ? uptoId + 1 : chain.get(0).getId();
+            Predicate<AuditLog> match = a -> table.equals(a.getTableName()) && entityId.equals(a.getEntityId());
+            while (true) {
+                List<AuditLog> older = archive.newestFirst(table, match, below, Db.AUDIT_CHECKPOINT_EVERY);
+                if (older.isEmpty()) break;
+                int baseAt = -1;
+                for (int i = 0; i < older.size(); i++) if (isBase(older.get(i))) { baseAt = i; break; }
+                List<AuditLog> take = baseAt >= 0 ? older.subList(0, baseAt + 1) : older;
+                List<AuditLog> ascending = new ArrayList<>(take);
+                Collections.reverse(ascending);
+                chain.addAll(0, ascending);
+                if (baseAt >= 0) break;
+                below = older.get(older.size() - 1).getId();
+            }
+        }
+        return chain;
+    }
+
+    @Override public List<AuditLog> findByValue(String table, String column, String value, int limit, boolean includeArchive) {
+        String jo = jsonExpr(column, false), jn = jsonExpr(column, true);
+        // newest `limit` ids from each side, each read backwards off its (table_name, j*_col) index
+        String sql = "SELECT " + COLS + " FROM audit_log WHERE id IN (" +
+                     "SELECT id FROM (SELECT id FROM audit_log WHERE table_name=? AND " + jn + "=? ORDER BY id DESC LIMIT ?) " +
+                     "UNION ALL " +
+                     "SELECT id FROM (SELECT id FROM audit_log WHERE table_name=? AND " + jo + "=? ORDER BY id DESC LIMIT ?)) " +
+                     "ORDER BY id DESC LIMIT ?";
+        try (Connection c = ds.getConnection();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            for (int i = 0; i < 2; i++) {
+                ps.setString(1 + i * 3, table);
+                bindJsonValue(ps, 2 + i * 3, value);
+                ps.setInt(3 + i * 3, limit);
+            }
+            ps.setInt(7, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                List<AuditLog> out = new ArrayList<>();
+                while (rs.next()) out.add(map(rs));
+                if (!includeArchive) return out;
+                return withArchive(out, table, a -> table.equals(a.getTableName())
+                        && (value.equals(jsonValue(a.getOldValues(), column)) || value.equals(jsonValue(a.getNewValues(), column))),
+                        Long.MAX_VALUE, limit);
+            }
+        } catch (SQLException e) { throw new RuntimeException(e); }
+    }
+
+    @Override public List<AuditLog> findRisesAbove(String table, String column, double threshold, int limit, boolean includeArchive) {
+        String jo = jsonExpr(column, false), jn = jsonExpr(column, true);
+        String sql = "SELECT " + COLS + " FROM audit_log WHERE table_name=? AND " + jn + " > ? " +
+                     "AND (" + jo + " IS NULL OR " + jo + " <= ?) ORDER BY id DESC LIMIT ?";
+        try (Connection c = ds.getConnection();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setString(1, table);
+            ps.setDouble(2, threshold);
+            ps.setDouble(3, threshold);
+            ps.setInt(4, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                List<AuditLog> out = new ArrayList<>();
+                while (rs.next()) out.add(map(rs));
+                if (!includeArchive) return out;
+                return withArchive(out, table, a -> {
+                    if (!table.equals(a.getTableName())) return false;
+                    Double after = number(jsonValue(a.getNewValues(), column));
+                    Double before = number(jsonValue(a.getOldValues(), column));
+                    return after != null && after > threshold && (before == null || before <= threshold);
+                }, Long.MAX_VALUE, limit);
+            }
+        } catch (SQLException e) { throw new RuntimeException(e); }
+    }
+
+    // indexed generated column when the key is configured, otherwise the same value computed per row
+    private static String jsonExpr(String column, boolean newValues) {
+        String col = Db.auditJsonColumn(column, newValues);
+        return col != null ? col : "json_extract(" + (newValues ? "new_values" : "old_values") + ", '$." + column + "')";
+    }
+
+    // json_extract yields INTEGER/REAL for JSON numbers, so numeric text has to be bound as a number to match
+    private static void bindJsonValue(PreparedStatement ps, int i, String value) throws SQLException {
+        if (value.matches("-?\\d{1,18}")) ps.setLong(i, Long.parseLong(value));
+        else if (value.matches("-?\\d+\\.\\d+")) ps.setDouble(i, Double.parseDouble(value));
+        else ps.setString(i, value);
+    }
+
+    private static String jsonValue(String json, String column) {
+        if (json == null) return null;
+        try {
+            return AuditJson.parseObject(json).get(column);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static Double number(String s) {
+        if (s == null) return null;
+        try { return Double.valueOf(s); } catch (NumberFormatException e) { return null; }
+    }
+
+    @Override public Optional<AuditLog> findById(long id) {
+        String sql = "SELECT " + COLS + " FROM audit_log WHERE id=?";
+        try (Connection c = ds.getConnection();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setLong(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) return Optional.of(map(rs));
+            }
+            return archive == null ? Optional.empty() : archive.findById(id);
+        } catch (SQLException e) { throw new RuntimeException(e); }
+    }
 }
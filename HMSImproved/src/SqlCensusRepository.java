@@ -0,0 +1,70 @@
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.*;
+import javax.sql.DataSource;
+
+/** Reads the census_daily rollup kept by the admission_event triggers; never scans patient. */
+public final class SqlCensusRepository implements CensusRepository {
+    private final DataSource ds;
+    public SqlCensusRepository(DataSource ds) { this.ds = ds; }
+
+    @Override
+    public List<CensusDay> findRange(LocalDate from, LocalDate to) {
+        String sql = "SELECT day, admissions, discharges, census FROM census_daily WHERE day BETWEEN ? AND ? ORDER BY day";
+        Map<LocalDate, CensusDay> rows = new HashMap<>();
+        int carry;
+        try (Connection c = ds.getConnection()) {
+            try (PreparedStatement ps = c.prepareStatement(
+                    "SELECT census FROM census_daily WHERE day < ? ORDER BY day DESC LIMIT 1")) {
+                ps.setString(1, from.toString());
+                try (ResultSet rs = ps.executeQuery()) { carry = rs.next() ? rs.getInt(1) : 0; }
+            }
+            try (PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setString(1, from.toString());
+                ps.setString(2, to.toString());
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        LocalDate d = LocalDate.parse(rs.getString(1));
+                        rows.put(d, new CensusDay(d, rs.getInt(2), rs.getInt(3), rs.getInt(4)));
+                    }
+                }
+            }
+        } catch (SQLException e) { throw new RuntimeException(e); }
+
+        List<CensusDay> out = new ArrayList<>();
+        for (LocalDate d = from; !d.isAfter(to); d = d.plusDays(1)) {
+            CensusDay row = rows.get(d);
+            if (row == null) row = new CensusDay(d, 0, 0, carry);
+            carry = row.getCensus();
+            out.add(row);
+        }
+        return out;
+    }
+
+    @Override
+    public int currentCensus() {
+        try (Connection c = ds.getConnection();
+             PreparedStatement ps = c.prepareStatement("SELECT census FROM census_daily ORDER BY day DESC LIMIT 1");
+             ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        } catch (SQLException e) { throw new RuntimeException(e); }
+    }
+
+    @Override
+    public OptionalDouble averageLengthOfStay(LocalDate from, LocalDate to) {
+        // discharges by day index, matching admission by (patient_id, id) index
+        String sql = "SELECT AVG(julianday(d.ts) - julianday(" +
+                     "  (SELECT a.ts FROM admission_event a WHERE a.patient_id=d.patient_id AND a.id<d.id AND a.event='ADMIT' " +
+                     "   ORDER BY a.id DESC LIMIT 1))) " +
+                     "FROM admission_event d WHERE d.day BETWEEN ? AND ? AND d.event='DISCHARGE'";
+        try (Connection c = ds.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setString(1, from.toString());
+            ps.setString(2, to.toString());
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return OptionalDouble.empty();
+                double v = rs.getDouble(1);
+                return rs.wasNull() ? OptionalDouble.empty() : OptionalDouble.of(v);
+            }
+        } catch (SQLException e) { throw new RuntimeException(e); }
+    }
+}
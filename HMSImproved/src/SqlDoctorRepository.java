@@ -1,11 +1,17 @@
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 import javax.sql.DataSource;
 
 public final class SqlDoctorRepository implements DoctorRepository {
+    private static final int IN_CHUNK = 500;
     private final DataSource ds;
+    private final List<EntityListener<Doctor>> listeners = new CopyOnWriteArrayList<>();
+
     public SqlDoctorRepository(DataSource ds) { this.ds = ds; }
 
+    public void addListener(EntityListener<Doctor> l) { listeners.add(l); }
+
     @Override
     public Optional<Doctor> findById(String id) {
         String sql = "SELECT id,name,specialist,work_time,qualification,room FROM doctor WHERE id=?";
@@ -36,39 +42,106 @@ public final class SqlDoctorRepository implements DoctorRepository {
         } catch (SQLException e) { throw new RuntimeException(e); }
     }
 
+    @Override
+    public List<Doctor> findByIds(Collection<String> ids) {
+        List<String> all = new ArrayList<>(new LinkedHashSet<>(ids));
+        List<Doctor> out = new ArrayList<>(all.size());
+        try (Connection c = ds.getConnection()) {
+            // chunked to stay under SQLite's bound-parameter limit
+            for (int from = 0; from < all.size(); from += IN_CHUNK) {
+                List<String> chunk = all.subList(from, Math.min(all.size(), from + IN_CHUNK));
+                String sql = "SELECT id,name,specialist,work_time,qualification,room FROM doctor WHERE id IN (" +
+                             String.join(",", Collections.nCopies(chunk.size(), "?")) + ")";
+                try (PreparedStatement ps = c.prepareStatement(sql)) {
+                    for (int i = 0; i < chunk.size(); i++) ps.setString(i + 1, chunk.get(i));
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            out.add(new Doctor(
+                                rs.getString(1), rs.getString(2), rs.getString(3),
+                                rs.getString(4), rs.getString(5), rs.getInt(6)
+                            ));
+                        }
+                    }
+                }
+            }
+            return out;
+        } catch (SQLException e) { throw new RuntimeException(e); }
+    }
+
     @Override
     public boolean insert(Doctor d) {
         String sql = "INSERT INTO doctor(id,name,specialist,work_time,qualification,room) VALUES(?,?,?,?,?,?)";
-        try (Connection c = ds.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
-            ps.setString(1, d.getId());
-            ps.setString(2, d.getName());
-            ps.setString(3, d.getSpecialist());
-            ps.setString(4, d.getWorkTime());
-            ps.setString(5, d.getQualification());
-            ps.setInt(6, d.getRoom());
-            return ps.executeUpdate() == 1;
+        try (Connection c = ds.getConnection()) {
+            c.setAutoCommit(false);
+            try (PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setString(1, d.getId());
+                ps.setString(2, d.getName());
+                ps.setString(3, d.getSpecialist());
+                ps.setString(4, d.getWorkTime());
+                ps.setString(5, d.getQualification());
+                ps.setInt(6, d.getRoom());
+                if (ps.executeUpdate() != 1) { c.rollback(); return false; }
+                writeSchedule(c, d.getId(), WorkSchedule.parse(d.getWorkTime()));
+                c.commit();
+            } catch (SQLException e) { c.rollback(); throw e; }
         } catch (SQLException e) { return false; }
+        for (EntityListener<Doctor> l : listeners) l.onInserted(d);
+        return true;
     }
 
     @Override
     public boolean update(Doctor d) {
         String sql = "UPDATE doctor SET name=?,specialist=?,work_time=?,qualification=?,room=? WHERE id=?";
-        try (Connection c = ds.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
-            ps.setString(1, d.getName());
-            ps.setString(2, d.getSpecialist());
-            ps.setString(3, d.getWorkTime());
-            ps.setString(4, d.getQualification());
-            ps.setInt(5, d.getRoom());
-            ps.setString(6, d.getId());
-            return ps.executeUpdate() == 1;
+        try (Connection c = ds.getConnection()) {
+            c.setAutoCommit(false);
+            try (PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setString(1, d.getName());
+                ps.setString(2, d.getSpecialist());
+                ps.setString(3, d.getWorkTime());
+                ps.setString(4, d.getQualification());
+                ps.setInt(5, d.getRoom());
+                ps.setString(6, d.getId());
+                if (ps.executeUpdate() != 1) { c.rollback(); return false; }
+                writeSchedule(c, d.getId(), WorkSchedule.parse(d.getWorkTime()));
+                c.commit();
+            } catch (SQLException e) { c.rollback(); throw e; }
         } catch (SQLException e) { return false; }
+        for (EntityListener<Doctor> l : listeners) l.onUpdated(d);
+        return true;
     }
 
     @Override
     public boolean delete(String id) {
-        try (Connection c = ds.getConnection(); PreparedStatement ps = c.prepareStatement("DELETE FROM doctor WHERE id=?")) {
-            ps.setString(1, id);
-            return ps.executeUpdate() == 1;
+        try (Connection c = ds.getConnection()) {
+            c.setAutoCommit(false);
+            try (PreparedStatement ps = c.prepareStatement("DELETE FROM doctor WHERE id=?")) {
+                ps.setString(1, id);
+                if (ps.executeUpdate() != 1) { c.rollback(); return false; }
+                writeSchedule(c, id, List.of());
+                c.commit();
+            } catch (SQLException e) { c.rollback(); throw e; }
         } catch (SQLException e) { return false; }
+        for (EntityListener<Doctor> l : listeners) l.onDeleted(id);
+        return true;
+    }
+
+    /** Replaces the parsed doctor_schedule rows of one doctor (same transaction as the doctor write). */
+    static void writeSchedule(Connection c, String doctorId, List<WorkSchedule.Interval> shifts) throws SQLException {
+        try (PreparedStatement del = c.prepareStatement("DELETE FROM doctor_schedule WHERE doctor_id=?")) {
+            del.setString(1, doctorId);
+            del.executeUpdate();
+        }
+        if (shifts.isEmpty()) return;
+        try (PreparedStatement ins = c.prepareStatement(
+                "INSERT INTO doctor_schedule(doctor_id,day_of_week,start_min,end_min) VALUES(?,?,?,?)")) {
+            for (WorkSchedule.Interval i : shifts) {
+                ins.setString(1, doctorId);
+                ins.setInt(2, i.getDay().getValue());
+                ins.setInt(3, i.getStartMinute());
+                ins.setInt(4, i.getEndMinute());
+                ins.addBatch();
+            }
+            ins.executeBatch();
+        }
     }
 }
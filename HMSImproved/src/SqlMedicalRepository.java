@@ -3,6 +3,8 @@ import java.util.*;
 import javax.sql.DataSource;
 
 public final class SqlMedicalRepository implements MedicalRepository {
+    private static final String COLS = "id,name,manufacturer,expiry_date,cost,count,reorder_point,safety_stock";
+
     private final DataSource ds;
 
     public SqlMedicalRepository(DataSource ds) {
@@ -11,7 +13,7 @@ public final class SqlMedicalRepository implements MedicalRepository {
 
     @Override
     public Optional<Medical> findById(String id) {
-        final String sql = "SELECT id,name,manufacturer,expiry_date,cost,count FROM medical WHERE id=?";
+        final String sql = "SELECT " + COLS + " FROM medical WHERE id=?";
         try (Connection c = ds.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
             ps.setString(1, id);
             try (ResultSet rs = ps.executeQuery()) {
@@ -25,7 +27,7 @@ public final class SqlMedicalRepository implements MedicalRepository {
 
     @Override
     public Optional<Medical> findByName(String name) {
-        final String sql = "SELECT id,name,manufacturer,expiry_date,cost,count FROM medical WHERE name=?";
+        final String sql = "SELECT " + COLS + " FROM medical WHERE name=?";
         try (Connection c = ds.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
             ps.setString(1, name);
             try (ResultSet rs = ps.executeQuery()) {
@@ -40,7 +42,7 @@ public final class SqlMedicalRepository implements MedicalRepository {
     @Override
     public List<Medical> findAll() {
         // Numeric ascending sort by ID (IDs are stored as TEXT but enforced numeric in UI)
-        final String sql = "SELECT id,name,manufacturer,expiry_date,cost,count " +
+        final String sql = "SELECT " + COLS + " " +
                            "FROM medical " +
                            "ORDER BY CAST(id AS INTEGER) ASC";
         List<Medical> out = new ArrayList<>();
@@ -54,9 +56,25 @@ public final class SqlMedicalRepository implements MedicalRepository {
         return out;
     }
 
+    @Override
+    public List<Medical> findBelowReorderPoint(int limit) {
+        // medical_below_reorder is served by the partial index idx_medical_below_reorder
+        final String sql = "SELECT " + COLS + " FROM medical_below_reorder ORDER BY count, CAST(id AS INTEGER) LIMIT ?";
+        List<Medical> out = new ArrayList<>();
+        try (Connection c = ds.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setInt(1, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) out.add(map(rs));
+            }
+        } catch (SQLException e) {
+            // log if you want
+        }
+        return out;
+    }
+
     @Override
     public boolean insert(Medical m) {
-        final String sql = "INSERT INTO medical(id,name,manufacturer,expiry_date,cost,count) VALUES(?,?,?,?,?,?)";
+        final String sql = "INSERT INTO medical(" + COLS + ") VALUES(?,?,?,?,?,?,?,?)";
         try (Connection c = ds.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
             ps.setString(1, m.getId());
             ps.setString(2, m.getName());
@@ -64,6 +82,8 @@ public final class SqlMedicalRepository implements MedicalRepository {
             ps.setString(4, m.getExpiryDate());
             ps.setInt(5, m.getCost());
             ps.setInt(6, m.getCount());
+            ps.setInt(7, m.getReorderPoint());
+            ps.setInt(8, m.getSafetyStock());
             return ps.executeUpdate() == 1;
         } catch (SQLException e) {
             return false;
@@ -72,14 +92,17 @@ public final class SqlMedicalRepository implements MedicalRepository {
 
     @Override
     public boolean update(Medical m) {
-        final String sql = "UPDATE medical SET name=?, manufacturer=?, expiry_date=?, cost=?, count=? WHERE id=?";
+        final String sql = "UPDATE medical SET name=?, manufacturer=?, expiry_date=?, cost=?, count=?, " +
+                           "reorder_point=?, safety_stock=? WHERE id=?";
         try (Connection c = ds.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
             ps.setString(1, m.getName());
             ps.setString(2, m.getManufacturer());
             ps.setString(3, m.getExpiryDate());
             ps.setInt(4, m.getCost());
             ps.setInt(5, m.getCount());
-            ps.setString(6, m.getId());
+            ps.setInt(6, m.getReorderPoint());
+            ps.setInt(7, m.getSafetyStock());
+            ps.setString(8, m.getId());
             return ps.executeUpdate() == 1;
         } catch (SQLException e) {
             return false;
@@ -115,7 +138,9 @@ public final class SqlMedicalRepository implements MedicalRepository {
             rs.getString("manufacturer"),
             rs.getString("expiry_date"),
             rs.getInt("cost"),
-            rs.getInt("count")
+            rs.getInt("count"),
+            rs.getInt("reorder_point"),
+            rs.getInt("safety_stock")
         );
     }
 }
@@ -0,0 +1,125 @@
+import java.sql.*;
+import java.util.*;
+import javax.sql.DataSource;
+
+/**
+ * Live notification table kept small: unseen reads and counts walk idx_notification_seen_created,
+ * and seen rows past their TTL move to notification_archive in short batches.
+ */
+public final class SqlNotificationRepository implements NotificationRepository {
+    private static final int ARCHIVE_BATCH = 1_000;
+
+    private final DataSource ds;
+    public SqlNotificationRepository(DataSource ds) { this.ds = ds; }
+
+    @Override
+    public boolean raise(String severity, String kind, String dedupeKey, String title, String detail) {
+        String sql = "INSERT OR IGNORE INTO notification(severity, kind, dedupe_key, title, detail) VALUES(?,?,?,?,?)";
+        try (Connection c = ds.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setString(1, severity);
+            ps.setString(2, kind);
+            ps.setString(3, dedupeKey);
+            ps.setString(4, title);
+            ps.setString(5, detail);
+            return ps.executeUpdate() == 1;
+        } catch (SQLException e) { throw new RuntimeException(e); }
+    }
+
+    @Override
+    public List<Notification> findUnseen(long afterId, int limit) {
+        String sql = "SELECT id, created_at, severity, kind, title, detail FROM notification " +
+                     "WHERE seen=0 AND id > ? ORDER BY created_at, id LIMIT ?";
+        try (Connection c = ds.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setLong(1, afterId);
+            ps.setInt(2, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                List<Notification> out = new ArrayList<>();
+                while (rs.next()) {
+                    out.add(new Notification(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4),
+                                             rs.getString(5), rs.getString(6)));
+                }
+                return out;
+            }
+        } catch (SQLException e) { throw new RuntimeException(e); }
+    }
+
+    @Override
+    public int countUnseen() {
+        try (Connection c = ds.getConnection(); Statement s = c.createStatement();
+             ResultSet rs = s.executeQuery("SELECT COUNT(*) FROM notification WHERE seen=0")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        } catch (SQLException e) { throw new RuntimeException(e); }
+    }
+
+    @Override
+    public int markSeen(Collection<Long> ids) {
+        if (ids.isEmpty()) return 0;
+        try (Connection c = ds.getConnection()) {
+            c.setAutoCommit(false);
+            try (PreparedStatement ps = c.prepareStatement("UPDATE notification SET seen=1 WHERE id=? AND seen=0")) {
+                for (long id : ids) {
+                    ps.setLong(1, id);
+                    ps.addBatch();
+                }
+                int n = 0;
+                for (int r : ps.executeBatch()) n += Math.max(r, 0);
+                c.commit();
+                return n;
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            }
+        } catch (SQLException e) { throw new RuntimeException(e); }
+    }
+
+    @Override
+    public int acknowledgeKind(String kind) {
+        try (Connection c = ds.getConnection();
+             PreparedStatement ps = c.prepareStatement("UPDATE notification SET seen=1 WHERE seen=0 AND kind=?")) {
+            ps.setString(1, kind);
+            return ps.executeUpdate();
+        } catch (SQLException e) { throw new RuntimeException(e); }
+    }
+
+    // idx_notification_dedupe covers exactly the unseen keyed rows
+    @Override
+    public int withdraw(String dedupeKey) {
+        try (Connection c = ds.getConnection();
+             PreparedStatement ps = c.prepareStatement(
+                 "UPDATE notification SET seen=1 WHERE seen=0 AND dedupe_key=? AND dedupe_key IS NOT NULL")) {
+            ps.setString(1, dedupeKey);
+            return ps.executeUpdate();
+        } catch (SQLException e) { throw new RuntimeException(e); }
+    }
+
+    // copy + delete per batch in one transaction, so a crash never loses or duplicates a row
+    @Override
+    public int archiveSeenOlderThan(int days) {
+        String pick = "SELECT id FROM notification WHERE seen=1 AND created_at < datetime('now', ?) ORDER BY created_at LIMIT " + ARCHIVE_BATCH;
+        String copy = "INSERT OR IGNORE INTO notification_archive(id, created_at, severity, kind, title, detail) " +
+                      "SELECT id, created_at, severity, kind, title, detail FROM notification WHERE id IN (" + pick + ")";
+        String delete = "DELETE FROM notification WHERE id IN (" + pick + ")";
+        String age = "-" + days + " days";
+        int total = 0;
+        try (Connection c = ds.getConnection()) {
+            while (true) {
+                c.setAutoCommit(false);
+                int n;
+                try (PreparedStatement ins = c.prepareStatement(copy); PreparedStatement del = c.prepareStatement(delete)) {
+                    ins.setString(1, age);
+                    ins.executeUpdate();
+                    del.setString(1, age);
+                    n = del.executeUpdate();
+                    c.commit();
+                } catch (SQLException e) {
+                    c.rollback();
+                    throw e;
+                } finally {
+                    c.setAutoCommit(true);
+                }
+                total += n;
+                if (n < ARCHIVE_BATCH) return total;
+            }
+        } catch (SQLException e) { throw new RuntimeException(e); }
+    }
+}
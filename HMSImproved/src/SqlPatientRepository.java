@@ -1,12 +1,16 @@
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 import javax.sql.DataSource;
 
 public final class SqlPatientRepository implements PatientRepository {
     private final DataSource ds;
+    private final List<EntityListener<Patient>> listeners = new CopyOnWriteArrayList<>();
 
     public SqlPatientRepository(DataSource ds) { this.ds = ds; }
 
+    public void addListener(EntityListener<Patient> l) { listeners.add(l); }
+
     @Override
     public Optional<Patient> findById(String id) {
         String sql = "SELECT id,name,disease,sex,admit_status,age FROM patient WHERE id=?";
@@ -49,8 +53,10 @@ public final class SqlPatientRepository implements PatientRepository {
             ps.setString(4, p.getSex());
             ps.setString(5, p.getAdmitStatus());
             ps.setInt(6, p.getAge());
-            return ps.executeUpdate() == 1;
+            if (ps.executeUpdate() != 1) return false;
         } catch (SQLException e) { return false; }
+        for (EntityListener<Patient> l : listeners) l.onInserted(p);
+        return true;
     }
 
     @Override
@@ -64,8 +70,10 @@ public final class SqlPatientRepository implements PatientRepository {
             ps.setString(4, p.getAdmitStatus());
             ps.setInt(5, p.getAge());
             ps.setString(6, p.getId());
-            return ps.executeUpdate() == 1;
+            if (ps.executeUpdate() != 1) return false;
         } catch (SQLException e) { return false; }
+        for (EntityListener<Patient> l : listeners) l.onUpdated(p);
+        return true;
     }
 
     @Override
@@ -73,7 +81,9 @@ public final class SqlPatientRepository implements PatientRepository {
         try (Connection c = ds.getConnection();
              PreparedStatement ps = c.prepareStatement("DELETE FROM patient WHERE id=?")) {
             ps.setString(1, id);
-            return ps.executeUpdate() == 1;
+            if (ps.executeUpdate() != 1) return false;
         } catch (SQLException e) { return false; }
+        for (EntityListener<Patient> l : listeners) l.onDeleted(id);
+        return true;
     }
 }
@@ -0,0 +1,64 @@
+import java.sql.*;
+import java.util.*;
+import javax.sql.DataSource;
+
+/** Reads payroll_summary (maintained by the staff triggers); cost is O(designations), not O(staff). */
+public final class SqlPayrollRepository implements PayrollRepository {
+    private static final String COLS = "designation, headcount, total_salary, min_salary, max_salary";
+
+    private final DataSource ds;
+    public SqlPayrollRepository(DataSource ds) { this.ds = ds; }
+
+    private static PayrollSummary map(ResultSet rs) throws SQLException {
+        return new PayrollSummary(rs.getString(1), rs.getInt(2), rs.getLong(3), rs.getInt(4), rs.getInt(5));
+    }
+
+    @Override
+    public List<PayrollSummary> findAll() {
+        String sql = "SELECT " + COLS + " FROM payroll_summary ORDER BY total_salary DESC, designation";
+        try (Connection c = ds.getConnection(); PreparedStatement ps = c.prepareStatement(sql); ResultSet rs = ps.executeQuery()) {
+            List<PayrollSummary> out = new ArrayList<>();
+            while (rs.next()) out.add(map(rs));
+            return out;
+        } catch (SQLException e) { throw new RuntimeException(e); }
+    }
+
+    @Override
+    public Optional<PayrollSummary> findByDesignation(String designation) {
+        String sql = "SELECT " + COLS + " FROM payroll_summary WHERE designation=?";
+        try (Connection c = ds.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setString(1, designation);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? Optional.of(map(rs)) : Optional.empty();
+            }
+        } catch (SQLException e) { throw new RuntimeException(e); }
+    }
+
+    @Override
+    public PayrollSummary totals() {
+        String sql = "SELECT 'All', COALESCE(SUM(headcount),0), COALESCE(SUM(total_salary),0), " +
+                     "COALESCE(MIN(min_salary),0), COALESCE(MAX(max_salary),0) FROM payroll_summary";
+        try (Connection c = ds.getConnection(); PreparedStatement ps = c.prepareStatement(sql); ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            return map(rs);
+        } catch (SQLException e) { throw new RuntimeException(e); }
+    }
+
+    @Override
+    public int rebuild() {
+        try (Connection c = ds.getConnection()) {
+            c.setAutoCommit(false);
+            try (Statement s = c.createStatement()) {
+                s.executeUpdate("DELETE FROM payroll_summary");
+                // GROUP BY walks idx_staff_designation_salary, which covers both columns
+                int n = s.executeUpdate("INSERT INTO payroll_summary(" + COLS + ") " +
+                        "SELECT designation, COUNT(*), SUM(salary), MIN(salary), MAX(salary) FROM staff GROUP BY designation");
+                c.commit();
+                return n;
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            }
+        } catch (SQLException e) { throw new RuntimeException(e); }
+    }
+}
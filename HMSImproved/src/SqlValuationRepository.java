@@ -0,0 +1,66 @@
+import java.sql.*;
+import java.time.YearMonth;
+import java.util.*;
+import javax.sql.DataSource;
+
+/** Reads the stock_value_* rollups kept by the medical triggers; never scans medical. */
+public final class SqlValuationRepository implements ValuationRepository {
+    private final DataSource ds;
+    public SqlValuationRepository(DataSource ds) { this.ds = ds; }
+
+    private List<StockValue> query(String sql, String... args) {
+        try (Connection c = ds.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
+            for (int i = 0; i < args.length; i++) ps.setString(i + 1, args[i]);
+            try (ResultSet rs = ps.executeQuery()) {
+                List<StockValue> out = new ArrayList<>();
+                while (rs.next()) out.add(new StockValue(rs.getString(1), rs.getInt(2), rs.getLong(3), rs.getLong(4)));
+                return out;
+            }
+        } catch (SQLException e) { throw new RuntimeException(e); }
+    }
+
+    @Override
+    public List<StockValue> byManufacturer() {
+        return query("SELECT manufacturer, items, units, value FROM stock_value_manufacturer ORDER BY value DESC, manufacturer");
+    }
+
+    @Override
+    public List<StockValue> byExpiryMonth() {
+        return query("SELECT month, items, units, value FROM stock_value_expiry_month ORDER BY month = 'unknown', month");
+    }
+
+    @Override
+    public List<StockValue> byExpiryMonth(YearMonth from, YearMonth to) {
+        return query("SELECT month, items, units, value FROM stock_value_expiry_month WHERE month BETWEEN ? AND ? ORDER BY month",
+                     from.toString(), to.toString());
+    }
+
+    @Override
+    public long totalValue() {
+        try (Connection c = ds.getConnection();
+             PreparedStatement ps = c.prepareStatement("SELECT COALESCE(SUM(value),0) FROM stock_value_manufacturer");
+             ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        } catch (SQLException e) { throw new RuntimeException(e); }
+    }
+
+    @Override
+    public void rebuild() {
+        try (Connection c = ds.getConnection()) {
+            c.setAutoCommit(false);
+            try (Statement s = c.createStatement()) {
+                s.executeUpdate("DELETE FROM stock_value_manufacturer");
+                s.executeUpdate("DELETE FROM stock_value_expiry_month");
+                s.executeUpdate("INSERT INTO stock_value_manufacturer(manufacturer, items, units, value) " +
+                        "SELECT manufacturer, COUNT(*), SUM(count), SUM(cost * count) FROM medical GROUP BY manufacturer");
+                s.executeUpdate("INSERT INTO stock_value_expiry_month(month, items, units, value) " +
+                        "SELECT COALESCE(strftime('%Y-%m', expiry_date), 'unknown') AS m, COUNT(*), SUM(count), SUM(cost * count) " +
+                        "FROM medical GROUP BY m");
+                c.commit();
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            }
+        } catch (SQLException e) { throw new RuntimeException(e); }
+    }
+}
@@ -0,0 +1,145 @@
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.HashSet;
+import java.util.Set;
+import javax.sql.DataSource;
+
+/**
+ * Low-stock and expiry alerts for medicines, evaluated per row instead of by polling.
+ * A medicine is low once count <= its own reorder_point (INFO) and critical once count <=
+ * its safety_stock (WARN). Each threshold is tracked as its own crossing: the alert is
+ * raised when a write takes a medicine below the threshold and an unseen alert is
+ * withdrawn when a write lifts it back above, so restocking clears the alert, a low
+ * medicine that keeps falling still escalates at its safety stock, and further writes
+ * that stay on the same side do not nag again.
+ *
+ * {@link #evaluate(String)} re-checks one medicine after it was written (driven by the
+ * audit change feed). Expiry is also a function of time, so {@link #sweepExpiry()} runs
+ * once a day and looks only at medicines whose expiry date entered the warning window
+ * since the last successful sweep (normally just today, more after a failed run or a
+ * machine that slept through midnight); {@link #scanAll()} is the one full pass made at
+ * startup to catch up on whatever happened while the app was closed.
+ */
+public final class StockAlerts {
+    public static final int EXPIRY_WARN_DAYS = 30;
+
+    public static final String KIND_LOW_STOCK = "LOW_STOCK";
+    public static final String KIND_SAFETY_STOCK = "SAFETY_STOCK";
+    public static final String KIND_EXPIRING = "EXPIRING";
+
+    private final DataSource ds;
+    private final NotificationRepository notifications;
+    private final Set<String> belowReorder = new HashSet<>();   // ids known to be at/below their reorder point
+    private final Set<String> belowSafety = new HashSet<>();    // ids known to be at/below their safety stock
+    private LocalDate sweptThrough;   // last expiry date covered by a successful sweep or scan
+
+    public StockAlerts(DataSource ds, NotificationRepository notifications) {
+        this.ds = ds;
+        this.notifications = notifications;
+    }
+
+    /** Re-checks one medicine; returns notifications created. */
+    public synchronized int evaluate(String medicalId) {
+        String sql = "SELECT id, name, count, expiry_date, " +
+                     "date(expiry_date) <= date('now', '+" + EXPIRY_WARN_DAYS + " day'), reorder_point, safety_stock " +
+                     "FROM medical WHERE id=?";
+        try (Connection c = ds.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setString(1, medicalId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {   // deleted: nothing to warn about any more
+                    if (belowReorder.remove(medicalId)) notifications.withdraw(KIND_LOW_STOCK + ":" + medicalId);
+                    if (belowSafety.remove(medicalId)) notifications.withdraw(KIND_SAFETY_STOCK + ":" + medicalId);
+                    return 0;
+                }
+                int n = 0;
+                int count = rs.getInt(3), reorderPoint = rs.getInt(6), safetyStock = rs.getInt(7);
+                boolean below = count <= reorderPoint;
+                if (below && belowReorder.add(medicalId)) {
+                    n += lowStock(rs.getString(1), rs.getString(2), count, reorderPoint, safetyStock);
+                } else if (!below && belowReorder.remove(medicalId)) {
+                    notifications.withdraw(KIND_LOW_STOCK + ":" + medicalId);
+                }
+                boolean critical = count <= safetyStock;
+                if (critical && belowSafety.add(medicalId)) {
+                    n += safetyStock(rs.getString(1), rs.getString(2), count, safetyStock);
+                } else if (!critical && belowSafety.remove(medicalId)) {
+                    notifications.withdraw(KIND_SAFETY_STOCK + ":" + medicalId);
+                }
+                if (rs.getInt(5) == 1) n += expiring(rs.getString(1), rs.getString(2), rs.getString(4));
+                return n;
+            }
+        } catch (SQLException e) { throw new RuntimeException(e); }
+    }
+
+    /** Medicines whose expiry date entered the warning window since the last successful sweep. */
+    public synchronized int sweepExpiry() {
+        LocalDate to = windowEnd();
+        LocalDate from = sweptThrough == null ? to : sweptThrough.plusDays(1);
+        if (from.isAfter(to)) return 0;
+        int n = expiringBetween(from.toString(), to.toString());
+        sweptThrough = to;   // only reached when the query succeeded
+        return n;
+    }
+
+    // same clock as SQLite's date('now')
+    private static LocalDate windowEnd() {
+        return LocalDate.now(ZoneOffset.UTC).plusDays(EXPIRY_WARN_DAYS);
+    }
+
+    /** Startup catch-up: every medicine below its reorder point and everything inside the expiry window. */
+    public synchronized int scanAll() {
+        int n = 0;
+        try (Connection c = ds.getConnection(); PreparedStatement ps = c.prepareStatement(
+                 "SELECT id, name, count, reorder_point, safety_stock FROM medical_below_reorder")) {
+            try (ResultSet rs = ps.executeQuery()) {
+                belowReorder.clear();
+                belowSafety.clear();
+                while (rs.next()) {
+                    belowReorder.add(rs.getString(1));
+                    n += lowStock(rs.getString(1), rs.getString(2), rs.getInt(3), rs.getInt(4), rs.getInt(5));
+                    if (rs.getInt(3) <= rs.getInt(5)) {
+                        belowSafety.add(rs.getString(1));
+                        n += safetyStock(rs.getString(1), rs.getString(2), rs.getInt(3), rs.getInt(5));
+                    }
+                }
+            }
+        } catch (SQLException e) { throw new RuntimeException(e); }
+        LocalDate to = windowEnd();
+        n += expiringBetween("0000-01-01", to.toString());
+        sweptThrough = to;
+        return n;
+    }
+
+    // range over idx_medical_expiry; bounds are yyyy-MM-dd, inclusive
+    private int expiringBetween(String from, String to) {
+        String sql = "SELECT id, name, expiry_date FROM medical WHERE date(expiry_date) BETWEEN ? AND ?";
+        int n = 0;
+        try (Connection c = ds.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setString(1, from);
+            ps.setString(2, to);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) n += expiring(rs.getString(1), rs.getString(2), rs.getString(3));
+            }
+        } catch (SQLException e) { throw new RuntimeException(e); }
+        return n;
+    }
+
+    // one unseen alert per kind and medicine (idx_notification_dedupe); it keeps its original detail until seen
+    private int lowStock(String id, String name, int count, int reorderPoint, int safetyStock) {
+        return notifications.raise("INFO", KIND_LOW_STOCK, KIND_LOW_STOCK + ":" + id,
+                                   "Low stock: " + name,
+                                   "ID " + id + ", count=" + count + " (reorder at " + reorderPoint + ", safety " + safetyStock + ")") ? 1 : 0;
+    }
+
+    private int safetyStock(String id, String name, int count, int safetyStock) {
+        return notifications.raise("WARN", KIND_SAFETY_STOCK, KIND_SAFETY_STOCK + ":" + id,
+                                   "Below safety stock: " + name,
+                                   "ID " + id + ", count=" + count + " (safety " + safetyStock + ")") ? 1 : 0;
+    }
+
+    private int expiring(String id, String name, String expiry) {
+        return notifications.raise("INFO", KIND_EXPIRING, KIND_EXPIRING + ":" + id,
+                                   "Expiring soon: " + name, "ID " + id + ", expires " + expiry) ? 1 : 0;
+    }
+}
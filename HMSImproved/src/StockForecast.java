@@ -0,0 +1,184 @@
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.IntStream;
+import javax.sql.DataSource;
+
+/**
+ * Daily consumption rate and projected stock-out date per medicine.
+ *
+ * Consumption is read from the stock_movement ledger (decreases only; restocks are not
+ * demand) over the last {@link #HISTORY_DAYS} complete days and smoothed with an EWMA,
+ * starting from the first day a medicine had any consumption so new items are not
+ * diluted by the days before they existed. Everything lives in parallel primitive arrays
+ * indexed by medicine; {@link #recompute()} reads the ledger in parallel day slices, with
+ * SQLite folding each day's movements into one packed row so JDBC steps once per day
+ * rather than once per movement, smooths every medicine in a parallel pass over the
+ * arrays, then swaps them in. Rates
+ * are recomputed nightly; the stock side is kept current between runs through
+ * {@link #onStock(String, int)}.
+ */
+public final class StockForecast {
+    public static final int HISTORY_DAYS = 90;
+    public static final double ALPHA = 0.2;
+    private static final int READ_SLICES = 8;
+    private static final char ID_SEP = '\u001e';   // ASCII record separator; cannot clash with a typed id
+
+    /** One medicine's forecast; stockOut is null when it is not being consumed. */
+    public static final class Projection {
+        private final String id;
+        private final String name;
+        private final int stock;
+        private final double dailyRate;
+        private final double dailySd;
+        private final LocalDate stockOut;
+
+        Projection(String id, String name, int stock, double dailyRate, double dailySd, LocalDate stockOut) {
+            this.id = id;
+            this.name = name;
+            this.stock = stock;
+            this.dailyRate = dailyRate;
+            this.dailySd = dailySd;
+            this.stockOut = stockOut;
+        }
+
+        public String getId() { return id; }
+        public String getName() { return name; }
+        public int getStock() { return stock; }
+        public double getDailyRate() { return dailyRate; }
+        /** Exponentially weighted standard deviation of daily consumption. */
+        public double getDailySd() { return dailySd; }
+        public LocalDate getStockOut() { return stockOut; }
+    }
+
+    private final DataSource ds;
+
+    // snapshot, replaced as a whole by recompute(); stock[] is also patched by onStock()
+    private String[] ids = new String[0];
+    private String[] names = new String[0];
+    private int[] stock = new int[0];
+    private double[] rate = new double[0];
+    private double[] sd = new double[0];
+    private Map<String, Integer> index = Map.of();
+    private long computedDay = -1;   // epoch day the rates are based on (exclusive)
+
+    public StockForecast(DataSource ds) {
+        this.ds = ds;
+    }
+
+    /** Rebuilds all rates from the ledger; returns the number of medicines forecast. */
+    public int recompute() {
+        long today = LocalDate.now(java.time.ZoneOffset.UTC).toEpochDay();
+        long from = today - HISTORY_DAYS;
+
+        List<String> idList = new ArrayList<>();
+        List<String> nameList = new ArrayList<>();
+        List<Integer> stockList = new ArrayList<>();
+        Map<String, Integer> idx = new HashMap<>();
+        try (Connection c = ds.getConnection(); Statement s = c.createStatement();
+             ResultSet rs = s.executeQuery("SELECT id, name, count FROM medical")) {
+            while (rs.next()) {
+                idx.put(rs.getString(1), idList.size());
+                idList.add(rs.getString(1));
+                nameList.add(rs.getString(2));
+                stockList.add(rs.getInt(3));
+            }
+        } catch (SQLException e) { throw new RuntimeException(e); }
+
+        // row-major [medicine][day - from]; day slices touch disjoint cells, so they load in parallel
+        int n = idList.size();
+        int[] consumed = new int[n * HISTORY_DAYS];
+        int slices = Math.max(1, Math.min(READ_SLICES, Runtime.getRuntime().availableProcessors()));
+        int step = (HISTORY_DAYS + slices - 1) / slices;
+        IntStream.range(0, slices).parallel().forEach(k ->
+            loadSlice(idx, consumed, from, from + (long) k * step, Math.min(today, from + (long) (k + 1) * step)));
+
+        double[] rates = new double[n];
+        double[] sds = new double[n];
+        IntStream.range(0, n).parallel().forEach(i -> smooth(consumed, i * HISTORY_DAYS, rates, sds, i));
+
+        int[] stocks = new int[n];
+        for (int i = 0; i < n; i++) stocks[i] = stockList.get(i);
+        synchronized (this) {
+            ids = idList.toArray(new String[0]);
+            names = nameList.toArray(new String[0]);
+            stock = stocks;
+            rate = rates;
+            sd = sds;
+            index = idx;
+            computedDay = today;
+        }
+        return n;
+    }
+
+    // one WAL reader per slice, scanning the covering idx_stock_movement_day; the index is
+    // already in day order, so GROUP BY day streams without a sort. Both lists of a day are
+    // built from the same rows in the same order, so the n-th id goes with the n-th delta.
+    private void loadSlice(Map<String, Integer> idx, int[] consumed, long from, long lo, long hi) {
+        if (lo >= hi) return;
+        String sql = "SELECT day, group_concat(medical_id, char(30)), group_concat(delta, ',') FROM stock_movement " +
+                     "WHERE day >= ? AND day < ? AND delta < 0 GROUP BY day";
+        try (Connection c = ds.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setLong(1, lo);
+            ps.setLong(2, hi);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    int base = (int) (rs.getLong(1) - from);
+                    String idList = rs.getString(2), deltas = rs.getString(3);
+                    for (int p = 0, q = 0; p <= idList.length(); ) {
+                        int idEnd = idList.indexOf(ID_SEP, p), dEnd = deltas.indexOf(',', q);
+                        if (idEnd < 0) idEnd = idList.length();
+                        if (dEnd < 0) dEnd = deltas.length();
+                        Integer i = idx.get(idList.substring(p, idEnd));
+                        if (i != null) consumed[i * HISTORY_DAYS + base] -= Integer.parseInt(deltas, q, dEnd, 10);
+                        p = idEnd + 1;
+                        q = dEnd + 1;
+                    }
+                }
+            }
+        } catch (SQLException e) { throw new RuntimeException(e); }
+    }
+
+    // exponentially weighted mean and variance in one pass (incremental form)
+    private static void smooth(int[] consumed, int base, double[] mean, double[] sd, int i) {
+        int d = 0;
+        while (d < HISTORY_DAYS && consumed[base + d] == 0) d++;
+        if (d == HISTORY_DAYS) return;
+        double m = consumed[base + d], v = 0;
+        for (d++; d < HISTORY_DAYS; d++) {
+            double diff = consumed[base + d] - m;
+            double incr = ALPHA * diff;
+            m += incr;
+            v = (1 - ALPHA) * (v + diff * incr);
+        }
+        mean[i] = m;
+        sd[i] = Math.sqrt(v);
+    }
+
+    /** Keeps the projected stock current between nightly runs; unknown ids wait for the next run. */
+    public synchronized void onStock(String id, int count) {
+        Integer i = index.get(id);
+        if (i != null) stock[i] = count;
+    }
+
+    public synchronized boolean isReady() { return computedDay >= 0; }
+
+    public synchronized Optional<Projection> projection(String id) {
+        Integer i = index.get(id);
+        return i == null ? Optional.empty() : Optional.of(projection(i));
+    }
+
+    /** Medicines that will run out soonest, earliest first; items with no consumption are left out. */
+    public synchronized List<Projection> soonest(int limit) {
+        Integer[] order = IntStream.range(0, ids.length).filter(i -> rate[i] > 0).boxed().toArray(Integer[]::new);
+        Arrays.sort(order, Comparator.comparingDouble(i -> stock[i] / rate[i]));
+        List<Projection> out = new ArrayList<>();
+        for (int k = 0; k < order.length && k < limit; k++) out.add(projection(order[k]));
+        return out;
+    }
+
+    private Projection projection(int i) {
+        LocalDate out = rate[i] > 0 ? LocalDate.ofEpochDay(computedDay + (long) Math.floor(stock[i] / rate[i])) : null;
+        return new Projection(ids[i], names[i], stock[i], rate[i], sd[i], out);
+    }
+}
@@ -0,0 +1,73 @@
+import java.nio.file.*;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import org.sqlite.SQLiteDataSource;
+
+/**
+ * Stand-alone timing check for StockForecast.recompute() (run like HelloFX, no UI).
+ * Fills a scratch database with a dense ledger: every medicine consumes (i % 7) + 1 units
+ * on each of the last HISTORY_DAYS days and every other one is also restocked daily.
+ * Each run must reproduce those constant rates, and the best run must finish in under
+ * a second; exits with status 1 otherwise. The first run includes JIT warm-up and cold
+ * page caches, as the app's startup run does, and is printed separately.
+ *
+ *   java StockForecastLoadTest [medicines] [runs]
+ */
+public class StockForecastLoadTest {
+    private static final long TARGET_MS = 1000;
+
+    public static void main(String[] args) throws Exception {
+        int medicines = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        Path file = Files.createTempFile("hms-forecast", ".db");
+        SQLiteDataSource ds = new SQLiteDataSource();
+        ds.setUrl("jdbc:sqlite:" + file);
+        Db.configure(ds);
+        Db.bootstrap(ds);
+        long today = LocalDate.now(ZoneOffset.UTC).toEpochDay();
+        long movements;
+        try (Connection c = ds.getConnection(); Statement s = c.createStatement()) {
+            c.setAutoCommit(false);
+            s.executeUpdate("WITH RECURSIVE n(i) AS (SELECT 1 UNION ALL SELECT i + 1 FROM n WHERE i < " + medicines + ") " +
+                            "INSERT INTO medical(id, name, manufacturer, expiry_date, cost, count) " +
+                            "SELECT i, 'Medicine ' || i, 'Maker', '2099-01-01', 1, 500 FROM n");
+            String days = "WITH RECURSIVE d(k) AS (SELECT 1 UNION ALL SELECT k + 1 FROM d WHERE k < " + StockForecast.HISTORY_DAYS + ") ";
+            s.executeUpdate(days + "INSERT INTO stock_movement(medical_id, day, delta) " +
+                            "SELECT m.id, " + today + " - d.k, -((CAST(m.id AS INTEGER) % 7) + 1) FROM medical m, d");
+            s.executeUpdate(days + "INSERT INTO stock_movement(medical_id, day, delta) " +
+                            "SELECT m.id, " + today + " - d.k, 3 FROM medical m, d WHERE CAST(m.id AS INTEGER) % 2 = 0");
+            c.commit();
+            try (ResultSet rs = s.executeQuery("SELECT COUNT(*) FROM stock_movement")) { rs.next(); movements = rs.getLong(1); }
+        }
+
+        StockForecast forecast = new StockForecast(ds);
+        long first = -1, best = Long.MAX_VALUE;
+        int wrong = 0;
+        for (int run = 0; run < runs; run++) {
+            long t0 = System.nanoTime();
+            int n = forecast.recompute();
+            long ms = (System.nanoTime() - t0) / 1_000_000;
+            if (run == 0) first = ms;
+            best = Math.min(best, ms);
+            System.out.printf("run %d: %d medicines in %d ms%n", run + 1, n, ms);
+        }
+        for (int i = 1; i <= medicines; i++) {
+            double rate = forecast.projection(String.valueOf(i)).map(StockForecast.Projection::getDailyRate).orElse(-1.0);
+            if (Math.abs(rate - (i % 7 + 1)) > 1e-9) wrong++;
+        }
+
+        System.out.printf("%d medicines, %d movements, %d cores: first run %d ms, best %d ms (target < %d ms), wrong rates=%d%n",
+                medicines, movements, Runtime.getRuntime().availableProcessors(), first, best, TARGET_MS, wrong);
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(Paths.get(file + "-wal"));
+        Files.deleteIfExists(Paths.get(file + "-shm"));
+
+        if (wrong != 0 || best >= TARGET_MS) {
+            System.out.println("FAILED");
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+}
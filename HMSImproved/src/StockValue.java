@@ -0,0 +1,26 @@
+/** One bucket of an inventory valuation rollup (a manufacturer or an expiry month). */
+public class StockValue {
+    private final String key;
+    private final int items;
+    private final long units;
+    private final long value;
+
+    public StockValue(String key, int items, long units, long value) {
+        this.key = key;
+        this.items = items;
+        this.units = units;
+        this.value = value;
+    }
+
+    public String getKey() { return key; }
+    /** Number of medical rows in the bucket. */
+    public int getItems() { return items; }
+    /** Sum of count. */
+    public long getUnits() { return units; }
+    /** Sum of cost * count. */
+    public long getValue() { return value; }
+
+    @Override public String toString() {
+        return String.format("%-18s items=%-4d units=%-7d value=%d", key, items, units, value);
+    }
+}
@@ -0,0 +1,39 @@
+/**
+ * Token bucket: holds up to {@code capacity} tokens and refills continuously at
+ * {@code perSecond}. A burst can spend the whole bucket at once; after that, acquisitions
+ * are paced to the refill rate.
+ */
+public final class TokenBucket {
+    private final double capacity;
+    private final double perNano;
+    private double tokens;
+    private long last;
+
+    public TokenBucket(int capacity, double perSecond) {
+        if (capacity < 1 || perSecond <= 0) throw new IllegalArgumentException("capacity >= 1 and perSecond > 0 required");
+        this.capacity = capacity;
+        this.perNano = perSecond / 1e9;
+        this.tokens = capacity;
+        this.last = System.nanoTime();
+    }
+
+    /** Takes one token if available. */
+    public synchronized boolean tryAcquire() {
+        refill();
+        if (tokens < 1) return false;
+        tokens -= 1;
+        return true;
+    }
+
+    /** Nanoseconds until {@link #tryAcquire()} can succeed; 0 when a token is available now. */
+    public synchronized long nanosUntilAvailable() {
+        refill();
+        return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / perNano);
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - last) * perNano);
+        last = now;
+    }
+}
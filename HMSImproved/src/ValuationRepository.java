@@ -0,0 +1,14 @@
+import java.time.YearMonth;
+import java.util.*;
+
+public interface ValuationRepository {
+    /** Largest value first. */
+    List<StockValue> byManufacturer();
+    /** Month order; the 'unknown' bucket (unparseable expiry dates) comes last. */
+    List<StockValue> byExpiryMonth();
+    /** Months in [from, to]; expired stock can be read with a past {@code from}. */
+    List<StockValue> byExpiryMonth(YearMonth from, YearMonth to);
+    long totalValue();
+    /** Repair: recompute both rollups from medical in one transaction. */
+    void rebuild();
+}
@@ -0,0 +1,176 @@
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parses the free-text doctor.work_time column into weekly intervals.
+ *
+ * Accepted shapes (case-insensitive, segments separated by ';' or '|'):
+ *   "09:00-17:00"                 every day
+ *   "Mon-Fri 9am-5pm"             day range
+ *   "Tue,Thu 14:00-18:00; Sat 8-12"
+ *   "Weekdays 0800-1600", "Weekends 10:00 to 14:00", "Daily 24h"
+ * A range whose end is not after its start runs past midnight into the next day.
+ * Anything unrecognised yields no intervals (the doctor is simply never "on shift").
+ */
+public final class WorkSchedule {
+    public static final int MINUTES_PER_DAY = 24 * 60;
+    public static final int MINUTES_PER_WEEK = 7 * MINUTES_PER_DAY;
+
+    /** One shift on one day: [startMinute, endMinute) minutes after midnight. */
+    public static final class Interval {
+        private final DayOfWeek day;
+        private final int startMinute;
+        private final int endMinute;
+
+        public Interval(DayOfWeek day, int startMinute, int endMinute) {
+            if (startMinute < 0 || endMinute > MINUTES_PER_DAY || startMinute >= endMinute)
+                throw new IllegalArgumentException("bad interval " + startMinute + "-" + endMinute);
+            this.day = Objects.requireNonNull(day);
+            this.startMinute = startMinute;
+            this.endMinute = endMinute;
+        }
+
+        public DayOfWeek getDay() { return day; }
+        public int getStartMinute() { return startMinute; }
+        public int getEndMinute() { return endMinute; }
+
+        /** Position in the week, Monday 00:00 = 0. */
+        public int weekStart() { return (day.getValue() - 1) * MINUTES_PER_DAY + startMinute; }
+        public int weekEnd() { return (day.getValue() - 1) * MINUTES_PER_DAY + endMinute; }
+
+        @Override public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Interval)) return false;
+            Interval other = (Interval) o;
+            return day == other.day && startMinute == other.startMinute && endMinute == other.endMinute;
+        }
+        @Override public int hashCode() { return Objects.hash(day, startMinute, endMinute); }
+        @Override public String toString() {
+            return day.toString().substring(0, 3) + " " + LocalTime.ofSecondOfDay(startMinute * 60L)
+                + "-" + (endMinute == MINUTES_PER_DAY ? "24:00" : LocalTime.ofSecondOfDay(endMinute * 60L).toString());
+        }
+    }
+
+    private static final String TIME = "(\\d{1,2})(?::?(\\d{2}))?\\s*(am|pm)?";
+    private static final Pattern RANGE = Pattern.compile(TIME + "\\s*(?:-|–|to)\\s*" + TIME, Pattern.CASE_INSENSITIVE);
+    private static final Pattern ALL_DAY = Pattern.compile("\\b(24h|24/7|24 hours|all day)\\b", Pattern.CASE_INSENSITIVE);
+
+    private WorkSchedule() {}
+
+    /** Sorted by week position, merged where shifts touch or overlap. */
+    public static List<Interval> parse(String workTime) {
+        List<Interval> out = new ArrayList<>();
+        if (workTime == null || workTime.isBlank()) return out;
+
+        for (String segment : workTime.split("[;|\\n]")) {
+            if (segment.isBlank()) continue;
+            int start, end;
+            String dayPart;
+            Matcher m = RANGE.matcher(segment);
+            if (m.find()) {
+                end = toMinute(m.group(4), m.group(5), m.group(6));
+                start = toMinute(m.group(1), m.group(2), startMeridiem(m));
+                if (start < 0 || end < 0) continue;
+                dayPart = segment.substring(0, m.start()) + " " + segment.substring(m.end());
+            } else {
+                Matcher all = ALL_DAY.matcher(segment);
+                if (!all.find()) continue;
+                start = 0;
+                end = MINUTES_PER_DAY;
+                dayPart = segment.substring(0, all.start()) + " " + segment.substring(all.end());
+            }
+
+            for (DayOfWeek day : parseDays(dayPart)) {
+                if (end > start) {
+                    out.add(new Interval(day, start, end));
+                } else {
+                    // overnight: split at midnight
+                    if (start < MINUTES_PER_DAY) out.add(new Interval(day, start, MINUTES_PER_DAY));
+                    if (end > 0) out.add(new Interval(day.plus(1), 0, end));
+                }
+            }
+        }
+        return normalise(out);
+    }
+
+    private static List<Interval> normalise(List<Interval> in) {
+        in.sort(Comparator.comparingInt(Interval::weekStart));
+        List<Interval> out = new ArrayList<>();
+        for (Interval i : in) {
+            Interval last = out.isEmpty() ? null : out.get(out.size() - 1);
+            if (last != null && last.getDay() == i.getDay() && i.getStartMinute() <= last.getEndMinute()) {
+                out.set(out.size() - 1, new Interval(last.getDay(), last.getStartMinute(),
+                        Math.max(last.getEndMinute(), i.getEndMinute())));
+            } else {
+                out.add(i);
+            }
+        }
+        return out;
+    }
+
+    // When only the end carries am/pm ("9-5pm", "1-4pm") the start borrows it,
+    // flipped if that would put the start after the end.
+    private static String startMeridiem(Matcher m) {
+        if (m.group(3) != null || m.group(6) == null) return m.group(3);
+        int startHour = Integer.parseInt(m.group(1));
+        int endHour = Integer.parseInt(m.group(4)) % 12;
+        if (startHour > 12) return null;
+        boolean flip = startHour % 12 > endHour;
+        return flip == m.group(6).equalsIgnoreCase("pm") ? "am" : "pm";
+    }
+
+    // "9", "09", "0900", "9:30" with optional am/pm
+    private static int toMinute(String h, String mm, String meridiem) {
+        int hour = Integer.parseInt(h);
+        int minute = mm == null ? 0 : Integer.parseInt(mm);
+        if (meridiem != null) {
+            if (hour < 1 || hour > 12) return -1;
+            hour = hour % 12 + (meridiem.equalsIgnoreCase("pm") ? 12 : 0);
+        }
+        if (hour == 24 && minute == 0) return MINUTES_PER_DAY;
+        if (hour > 23 || minute > 59) return -1;
+        return hour * 60 + minute;
+    }
+
+    private static EnumSet<DayOfWeek> parseDays(String text) {
+        String t = text.trim().toLowerCase(Locale.ROOT);
+        if (t.isEmpty() || t.contains("daily") || t.contains("every")) return EnumSet.allOf(DayOfWeek.class);
+
+        EnumSet<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+        if (t.contains("weekday")) days.addAll(EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY));
+        if (t.contains("weekend")) days.addAll(EnumSet.of(DayOfWeek.SATURDAY, DayOfWeek.SUNDAY));
+
+        Matcher range = Pattern.compile("([a-z]{3,9})\\s*(?:-|–|to)\\s*([a-z]{3,9})").matcher(t);
+        while (range.find()) {
+            DayOfWeek from = day(range.group(1)), to = day(range.group(2));
+            if (from == null || to == null) continue;
+            for (DayOfWeek d = from; ; d = d.plus(1)) {
+                days.add(d);
+                if (d == to) break;
+            }
+        }
+        Matcher single = Pattern.compile("[a-z]{3,9}").matcher(t);
+        while (single.find()) {
+            DayOfWeek d = day(single.group());
+            if (d != null) days.add(d);
+        }
+        return days.isEmpty() ? EnumSet.allOf(DayOfWeek.class) : days;
+    }
+
+    /** "Tue", "tuesday", ... or null. */
+    public static DayOfWeek parseDay(String text) {
+        if (text == null || text.isBlank()) return null;
+        return day(text.trim().toLowerCase(Locale.ROOT));
+    }
+
+    private static DayOfWeek day(String token) {
+        for (DayOfWeek d : DayOfWeek.values()) {
+            // "tue", "tues", "tuesday" ...
+            if (d.toString().toLowerCase(Locale.ROOT).startsWith(token)) return d;
+        }
+        return null;
+    }
+}